@@ -0,0 +1,58 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures reading and writing payroll files with {@link FileUtil}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileUtilBenchmark {
+
+    /**
+     * Reads the whole time card file into a list.
+     *
+     * @param state the benchmark data
+     * @return the lines
+     */
+    @Benchmark
+    public List<String> readFileToList(PayrollState state) {
+        return FileUtil.readFileToList(state.timeCardFile.toString());
+    }
+
+    /**
+     * Streams the time card file line by line.
+     *
+     * @param state the benchmark data
+     * @return the number of lines
+     */
+    @Benchmark
+    public long streamLines(PayrollState state) {
+        try (Stream<String> lines = FileUtil.streamLines(state.timeCardFile.toString())) {
+            return lines.count();
+        }
+    }
+
+    /**
+     * Writes the employee lines to a file, without a backup.
+     *
+     * @param state the benchmark data
+     */
+    @Benchmark
+    public void writeFile(PayrollState state) {
+        FileUtil.writeFile(state.workDir.resolve("out.csv").toString(), state.employeeLines, false);
+    }
+}
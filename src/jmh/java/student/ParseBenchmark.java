@@ -0,0 +1,63 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning CSV lines into employees and time cards with {@link Builder}, and into
+ * {@link EmployeeTable} columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    /**
+     * Parses every employee line.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void buildEmployees(PayrollState state, Blackhole sink) {
+        int lineNumber = 1;
+        for (String line : state.employeeLines) {
+            sink.consume(Builder.buildEmployeeFromCSV(line, ++lineNumber));
+        }
+    }
+
+    /**
+     * Parses every time card line.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void buildTimeCards(PayrollState state, Blackhole sink) {
+        int lineNumber = 1;
+        for (String line : state.timeCardLines) {
+            sink.consume(Builder.buildTimeCardFromCSV(line, ++lineNumber));
+        }
+    }
+
+    /**
+     * Parses every employee line into table columns.
+     *
+     * @param state the benchmark data
+     * @return the table
+     */
+    @Benchmark
+    public EmployeeTable buildEmployeeTable(PayrollState state) {
+        return EmployeeTable.fromCSV(state.employeeLines);
+    }
+}
@@ -0,0 +1,92 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time card join and {@code runPayroll}, through the {@code BigDecimal} path, the
+ * fixed-point path, and a batch run over {@link EmployeeTable} columns, with and without the
+ * Vector API.
+ * YTD totals keep growing between invocations, which does not change the work done.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PayrollBenchmark {
+
+    /**
+     * Matches every time card to its employee.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void join(PayrollState state, Blackhole sink) {
+        for (ITimeCard timeCard : state.timeCards) {
+            sink.consume(state.registry.get(timeCard.getEmployeeID()));
+        }
+    }
+
+    /**
+     * Joins and runs payroll for every time card, as the payroll loop does.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void runPayroll(PayrollState state, Blackhole sink) {
+        for (ITimeCard timeCard : state.timeCards) {
+            IEmployee employee = state.registry.get(timeCard.getEmployeeID());
+            sink.consume(employee.runPayroll(timeCard.getHoursWorked()));
+        }
+    }
+
+    /**
+     * Runs payroll for every time card with {@code BigDecimal} arithmetic only.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void runPayrollBigDecimal(PayrollState state, Blackhole sink) {
+        for (ITimeCard timeCard : state.timeCards) {
+            EmployeeBigDecimal employee = (EmployeeBigDecimal) state.registry.get(timeCard.getEmployeeID());
+            sink.consume(employee.runPayrollBigDecimal(timeCard.getHoursWorked()));
+        }
+    }
+
+    /**
+     * Runs payroll for every row of a columnar table in one batch, a vector of rows at a time.
+     *
+     * @param state the table data
+     * @return the number of rows paid
+     */
+    @Benchmark
+    public int runPayrollTable(TableState state) {
+        return state.table.runPayroll(0, state.table.size(), state.scaledHours,
+                state.netMicros, state.taxMicros);
+    }
+
+    /**
+     * Runs payroll for every row of a columnar table in one batch, one row at a time.
+     *
+     * @param state the table data
+     * @return the number of rows paid
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dstudent.vector=false")
+    public int runPayrollTableScalar(TableState state) {
+        return state.table.runPayroll(0, state.table.size(), state.scaledHours,
+                state.netMicros, state.taxMicros);
+    }
+}
@@ -0,0 +1,102 @@
+package student;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared benchmark data, parameterized by employee count, HOURLY/SALARY mix and overtime
+ * ratio. Everything is generated by {@link SyntheticPayrollData} when a trial starts.
+ */
+@State(Scope.Benchmark)
+public class PayrollState {
+    /** Number of employees, with one time card each. */
+    @Param({"1000", "100000"})
+    public int employees;
+
+    /** Share of employees that are HOURLY. */
+    @Param({"0.0", "0.5", "1.0"})
+    public double hourlyRatio;
+
+    /** Share of time cards with overtime. */
+    @Param({"0.0", "0.2", "0.8"})
+    public double overtimeRatio;
+
+    /** Employee CSV lines, without the header. */
+    public List<String> employeeLines;
+    /** Time card CSV lines, without the header. */
+    public List<String> timeCardLines;
+    /** Parsed employees. */
+    public List<IEmployee> employeeList;
+    /** Parsed time cards. */
+    public List<ITimeCard> timeCards;
+    /** Employees indexed by ID. */
+    public EmployeeRegistry registry;
+    /** One pay stub per time card. */
+    public List<IPayStub> payStubs;
+    /** Employee file on disk, with a header. */
+    public Path employeeFile;
+    /** Time card file on disk, with a header. */
+    public Path timeCardFile;
+    /** Directory for files written by benchmarks. */
+    public Path workDir;
+
+    /**
+     * Generates the data and writes the input files.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        employeeLines = SyntheticPayrollData.employeeLines(employees, hourlyRatio, 5004);
+        timeCardLines = SyntheticPayrollData.timeCardLines(employees, overtimeRatio, 2024);
+
+        employeeList = new ArrayList<>(employees);
+        for (String line : employeeLines) {
+            employeeList.add(Builder.buildEmployeeFromCSV(line));
+        }
+        timeCards = new ArrayList<>(employees);
+        for (String line : timeCardLines) {
+            timeCards.add(Builder.buildTimeCardFromCSV(line));
+        }
+        registry = new EmployeeRegistry(employeeList);
+        payStubs = new ArrayList<>(employees);
+        for (ITimeCard timeCard : timeCards) {
+            payStubs.add(registry.get(timeCard).runPayroll(timeCard.getHoursWorked()));
+        }
+
+        workDir = Files.createTempDirectory("payroll-jmh");
+        employeeFile = workDir.resolve("employees.csv");
+        timeCardFile = workDir.resolve("time_cards.csv");
+        List<String> withHeader = new ArrayList<>(employeeLines);
+        withHeader.add(0, FileUtil.EMPLOYEE_HEADER);
+        Files.write(employeeFile, withHeader);
+        withHeader = new ArrayList<>(timeCardLines);
+        withHeader.add(0, "employee_id,hours_worked");
+        Files.write(timeCardFile, withHeader);
+    }
+
+    /**
+     * Deletes the files written for and by the benchmarks.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(workDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(workDir);
+    }
+}
@@ -0,0 +1,49 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting pay stubs and employees back to CSV lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    /**
+     * Converts every pay stub to CSV.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void payStubToCSV(PayrollState state, Blackhole sink) {
+        for (IPayStub payStub : state.payStubs) {
+            sink.consume(payStub.toCSV());
+        }
+    }
+
+    /**
+     * Converts every employee to CSV.
+     *
+     * @param state the benchmark data
+     * @param sink  consumes the results
+     */
+    @Benchmark
+    public void employeeToCSV(PayrollState state, Blackhole sink) {
+        for (IEmployee employee : state.employeeList) {
+            sink.consume(employee.toCSV());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates employee and time card CSV lines for benchmarks, so they can run without any
+ * real payroll data. The same seed always gives the same data.
+ */
+public final class SyntheticPayrollData {
+    /** Hours worked on a time card without overtime are drawn below this. */
+    private static final int REGULAR_HOURS = 40;
+    /** Most overtime hours on a time card. */
+    private static final int MAX_OVERTIME_HOURS = 20;
+
+    /** Private constructor to prevent instantiation of this utility class. */
+    private SyntheticPayrollData() {
+    }
+
+    /**
+     * Creates employee CSV lines, without the header.
+     *
+     * @param count       number of employees
+     * @param hourlyRatio share of employees that are HOURLY, from 0 to 1; the rest are SALARY
+     * @param seed        random seed
+     * @return the CSV lines, with IDs e0, e1, ...
+     */
+    public static List<String> employeeLines(int count, double hourlyRatio, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean hourly = random.nextDouble() < hourlyRatio;
+            String payRate = hourly
+                    ? String.format("%d.%02d", 15 + random.nextInt(60), random.nextInt(100))
+                    : String.valueOf(40_000 + random.nextInt(200) * 1000);
+            lines.add(String.join(",",
+                    hourly ? "HOURLY" : "SALARY",
+                    "Employee " + i,
+                    "e" + i,
+                    payRate,
+                    String.valueOf(random.nextInt(4) * 100),
+                    String.format("%d.%02d", random.nextInt(50_000), random.nextInt(100)),
+                    String.format("%d.%02d", random.nextInt(10_000), random.nextInt(100))));
+        }
+        return lines;
+    }
+
+    /**
+     * Creates one time card CSV line per employee, in a shuffled order, without the header.
+     *
+     * @param count         number of employees
+     * @param overtimeRatio share of time cards with more than 40 hours, from 0 to 1
+     * @param seed          random seed
+     * @return the CSV lines
+     */
+    public static List<String> timeCardLines(int count, double overtimeRatio, long seed) {
+        Random random = new Random(seed);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double hours = random.nextDouble() < overtimeRatio
+                    ? REGULAR_HOURS + 0.25 * (1 + random.nextInt(MAX_OVERTIME_HOURS * 4))
+                    : 0.25 * random.nextInt(REGULAR_HOURS * 4 + 1);
+            lines.add("e" + order[i] + "," + hours);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,41 @@
+package student;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark data held as an {@link EmployeeTable}, with the hours of each row's time card.
+ */
+@State(Scope.Benchmark)
+public class TableState {
+    /** The employees in columns. */
+    public EmployeeTable table;
+    /** Hours per row in ten-thousandths, -1 for rows without a time card. */
+    public long[] scaledHours;
+    /** Receives net pay per row. */
+    public long[] netMicros;
+    /** Receives taxes per row. */
+    public long[] taxMicros;
+
+    /**
+     * Builds the table from the shared data.
+     *
+     * @param data the shared benchmark data
+     */
+    @Setup(Level.Trial)
+    public void setUp(PayrollState data) {
+        table = EmployeeTable.fromCSV(data.employeeLines);
+        scaledHours = new long[table.size()];
+        Arrays.fill(scaledHours, -1);
+        for (ITimeCard timeCard : data.timeCards) {
+            int row = table.rowOf(timeCard.getEmployeeID());
+            scaledHours[row] = FixedPointPayroll.toScaledHours(timeCard.getHoursWorked());
+        }
+        netMicros = new long[table.size()];
+        taxMicros = new long[table.size()];
+    }
+}
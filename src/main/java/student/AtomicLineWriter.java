@@ -0,0 +1,187 @@
+package student;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * A {@link LineWriter} that replaces its target file atomically.
+ * <p>
+ * Lines go to a temporary file in the same directory. {@link #commit()} forces the data to
+ * disk and then moves the temporary file over the target in one atomic step, so a crash
+ * leaves either the complete old file or the complete new one, never a truncated mix.
+ * Closing the writer without committing throws the temporary file away and leaves the
+ * target untouched. If the new content is identical to the target, the target and its
+ * backups are left as they are. The temporary file is created readable by its owner only,
+ * so where the file system has POSIX permissions it is given those of the target, which the
+ * replaced file then keeps.
+ * </p>
+ * <p>
+ * Backups roll: with {@code backups} set to 3, the previous file becomes {@code name.bak},
+ * the one before that {@code name.bak.1}, then {@code name.bak.2}. With 1 this is the same
+ * single {@code .bak} file {@link FileUtil#writeFile(String, java.util.List)} keeps, and with
+ * 0 no backup is made.
+ * </p>
+ */
+public class AtomicLineWriter extends LineWriter {
+    /** The file to replace. */
+    private final Path target;
+    /** The temporary file being written. */
+    private final Path temp;
+    /** Number of backups to keep. */
+    private final int backups;
+    /** True once the temporary file has been committed or discarded. */
+    private boolean finished;
+
+    /**
+     * Creates a writer for a temporary file.
+     *
+     * @param channel the open channel of the temporary file
+     * @param target  the file to replace
+     * @param temp    the temporary file
+     * @param backups number of backups to keep
+     */
+    private AtomicLineWriter(FileChannel channel, Path target, Path temp, int backups) {
+        super(channel, DEFAULT_BUFFER_SIZE);
+        this.target = target;
+        this.temp = temp;
+        this.backups = backups;
+    }
+
+    /**
+     * Opens an atomic writer for a file.
+     *
+     * @param target  the file to replace on commit
+     * @param backups number of backups to keep, 0 for none
+     * @return the writer
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static AtomicLineWriter open(Path target, int backups) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName() + ".", ".tmp");
+        try {
+            copyPermissions(absolute, temp);
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            return new AtomicLineWriter(channel, absolute, temp, Math.max(0, backups));
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a file the POSIX permissions of another, if the other exists and the file system
+     * has POSIX permissions.
+     *
+     * @param from the file whose permissions are copied
+     * @param to   the file to change
+     * @throws IOException if the permissions cannot be read or set
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (Files.exists(from)
+                && Files.getFileAttributeView(to, PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        }
+    }
+
+    /**
+     * Syncs the new content to disk and moves it over the target.
+     *
+     * @throws IOException if writing, syncing or moving fails; the target is then unchanged
+     */
+    public void commit() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Writer already committed or closed.");
+        }
+        flush();
+        channel().force(true);
+        super.close();
+        finished = true;
+        try {
+            if (Files.exists(target) && Files.mismatch(temp, target) == -1L) {
+                Files.delete(temp); // nothing changed, keep the file and backups as they are
+                return;
+            }
+            rollBackups();
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Shifts the existing backups along and backs up the current target.
+     * The target itself is linked or copied, never moved, so it stays in place until the
+     * atomic move replaces it.
+     *
+     * @throws IOException if a backup cannot be made
+     */
+    private void rollBackups() throws IOException {
+        if (backups == 0 || !Files.exists(target)) {
+            return;
+        }
+        for (int i = backups - 1; i >= 1; i--) {
+            Path older = backupPath(i - 1);
+            if (Files.exists(older)) {
+                Files.move(older, backupPath(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path newest = backupPath(0);
+        Files.deleteIfExists(newest);
+        try {
+            Files.createLink(newest, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(target, newest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Gets the path of a backup.
+     *
+     * @param generation 0 for the newest backup
+     * @return the backup path
+     */
+    private Path backupPath(int generation) {
+        String name = target.getFileName() + ".bak" + (generation == 0 ? "" : "." + generation);
+        return target.resolveSibling(name);
+    }
+
+    /** Syncs the directory so the rename itself survives a crash, where the platform allows it. */
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // some platforms cannot open a directory; the rename is still atomic there
+        }
+    }
+
+    /**
+     * Closes the writer. If {@link #commit()} was not called, the new content is discarded and
+     * the target is left untouched.
+     *
+     * @throws IOException if the temporary file cannot be removed
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            channel().close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package student;
+
+/**
+ * Gross, tax and net pay for a batch of employees held in primitive columns, at the flat tax
+ * rate.
+ * <p>
+ * The amounts are the same as paying each employee with {@link FixedPointPayroll}: hours past
+ * 40 at 1.5 times the rate, pretax deductions taken off, taxable pay clamped at zero, then the
+ * tax multiply. When the JVM is started with {@code --add-modules jdk.incubator.vector}, the
+ * batch is computed a vector of employees at a time by the {@code VectorBatchPayroll} kernel;
+ * otherwise, or when the system property {@code student.vector} is {@code false}, a plain loop
+ * over the rows is used. The module is left out by default because it is incubating and the
+ * JVM warns about it on every start; add it to {@code JAVA_OPTS} to turn the kernel on.
+ * </p>
+ * <p>
+ * Batches come from {@link EmployeeTable#runPayroll(int, int, long[], long[], long[])}, and in
+ * projection runs from {@link PayrollProjection}, which pays one period of every row of the
+ * employee table at once.
+ * </p>
+ */
+public final class BatchPayroll {
+    /** Type byte of an hourly row. */
+    static final byte HOURLY = (byte) EmployeeType.HOURLY.ordinal();
+    /** Name of the Vector API kernel class, which is compiled apart from the rest. */
+    private static final String VECTOR_KERNEL = "student.VectorBatchPayroll";
+    /** The vector kernel, or null if the plain loop is used. */
+    private static final Kernel VECTOR = loadVectorKernel();
+
+    /**
+     * Computes a range of rows, as {@link BatchPayroll#compute} does.
+     */
+    interface Kernel {
+        /** @return the number of rows computed at a time. */
+        int lanes();
+
+        /**
+         * Works out net pay and taxes for a range of rows.
+         *
+         * @param from         first row, inclusive
+         * @param to           last row, exclusive
+         * @param types        employee type of each row, as the {@link EmployeeType} ordinal
+         * @param payRateCents hourly wage or annual salary of each row, in cents
+         * @param pretaxCents  pretax deductions of each row, in cents
+         * @param scaledHours  hours worked per row, in ten-thousandths
+         * @param netMicros    receives net pay per row, in micro-dollars
+         * @param taxMicros    receives taxes per row, in micro-dollars
+         * @return the number of rows paid
+         * @throws ArithmeticException if an amount does not fit a long
+         */
+        int compute(int from, int to, byte[] types, long[] payRateCents, long[] pretaxCents,
+                long[] scaledHours, long[] netMicros, long[] taxMicros);
+    }
+
+    /** Private constructor to prevent instantiation of this utility class. */
+    private BatchPayroll() {
+    }
+
+    /**
+     * Loads the vector kernel if the Vector API module is loaded and the kernel is not turned
+     * off.
+     *
+     * @return the kernel, or null if the plain loop has to be used
+     */
+    private static Kernel loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("student.vector", "true"))) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Kernel kernel = (Kernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor()
+                    .newInstance();
+            return kernel.lanes() > 1 ? kernel : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /** @return true if batches are computed with the Vector API. */
+    public static boolean isVectorized() {
+        return VECTOR != null;
+    }
+
+    /** @return the vector kernel, or null if batches are computed with the plain loop. */
+    static Kernel vectorKernel() {
+        return VECTOR;
+    }
+
+    /**
+     * Works out net pay and taxes for a range of rows. Rows with negative scaled hours have no
+     * time card; their outputs are set to -1.
+     *
+     * @param from         first row, inclusive
+     * @param to           last row, exclusive
+     * @param types        employee type of each row, as the {@link EmployeeType} ordinal
+     * @param payRateCents hourly wage or annual salary of each row, in cents
+     * @param pretaxCents  pretax deductions of each row, in cents
+     * @param scaledHours  hours worked per row, in ten-thousandths (see
+     *                     {@link FixedPointPayroll#toScaledHours(double)})
+     * @param netMicros    receives net pay per row, in micro-dollars
+     * @param taxMicros    receives taxes per row, in micro-dollars
+     * @return the number of rows paid
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    public static int compute(int from, int to, byte[] types, long[] payRateCents,
+            long[] pretaxCents, long[] scaledHours, long[] netMicros, long[] taxMicros) {
+        if (VECTOR != null) {
+            return VECTOR.compute(from, to, types, payRateCents, pretaxCents, scaledHours,
+                    netMicros, taxMicros);
+        }
+        return computeScalar(from, to, types, payRateCents, pretaxCents, scaledHours,
+                netMicros, taxMicros);
+    }
+
+    /**
+     * Works out net pay and taxes for a range of rows one row at a time, as
+     * {@link #compute} does.
+     *
+     * @param from         first row, inclusive
+     * @param to           last row, exclusive
+     * @param types        employee type of each row, as the {@link EmployeeType} ordinal
+     * @param payRateCents hourly wage or annual salary of each row, in cents
+     * @param pretaxCents  pretax deductions of each row, in cents
+     * @param scaledHours  hours worked per row, in ten-thousandths
+     * @param netMicros    receives net pay per row, in micro-dollars
+     * @param taxMicros    receives taxes per row, in micro-dollars
+     * @return the number of rows paid
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    static int computeScalar(int from, int to, byte[] types, long[] payRateCents,
+            long[] pretaxCents, long[] scaledHours, long[] netMicros, long[] taxMicros) {
+        int paid = 0;
+        for (int row = from; row < to; row++) {
+            long hours = scaledHours[row];
+            if (hours < 0) {
+                netMicros[row] = -1;
+                taxMicros[row] = -1;
+                continue;
+            }
+            long gross = types[row] == HOURLY
+                    ? FixedPointPayroll.hourlyGrossCents(payRateCents[row], hours)
+                    : FixedPointPayroll.salaryGrossCents(payRateCents[row]);
+            long taxable = FixedPointPayroll.taxableCents(gross, pretaxCents[row]);
+            long taxes = FixedPointPayroll.taxMicros(taxable);
+            netMicros[row] = FixedPointPayroll.netMicros(taxable, taxes);
+            taxMicros[row] = taxes;
+            paid++;
+        }
+        return paid;
+    }
+}
@@ -8,6 +8,12 @@ import java.math.BigDecimal;
  */
 public final class Builder {
 
+    /** Employee types, cached so matching a type does not copy the enum values per line. */
+    private static final EmployeeType[] EMPLOYEE_TYPES = EmployeeType.values();
+
+    /** One reusable field cursor per thread, so parsing a line allocates no tokenizer state. */
+    private static final ThreadLocal<CsvCursor> CURSOR = ThreadLocal.withInitial(CsvCursor::new);
+
     /** Private constructor to prevent instantiation of this utility class. */
     private Builder() {
     }
@@ -27,34 +33,64 @@ public final class Builder {
      * @throws IllegalArgumentException if the CSV format is invalid.
      */
     public static IEmployee buildEmployeeFromCSV(String csv) {
-        if (csv == null || csv.trim().isEmpty()) {
+        return buildEmployeeFromCSV(csv, 0);
+    }
+
+    /**
+     * Creates an {@code IEmployee} object from one line of an employee CSV file.
+     * <p>
+     * The line is read in place with a reusable {@link CsvCursor}, so only the name, the ID
+     * and the numeric values are allocated. Errors report the line number and the field.
+     * </p>
+     *
+     * @param csv        The CSV line containing employee data.
+     * @param lineNumber The line number in the source file, or 0 if unknown.
+     * @return The corresponding {@code IEmployee} object.
+     * @throws IllegalArgumentException if the CSV format is invalid.
+     */
+    public static IEmployee buildEmployeeFromCSV(CharSequence csv, int lineNumber) {
+        CsvCursor cursor = CURSOR.get().reset(csv, lineNumber);
+        if (csv == null || cursor.isBlank()) {
             throw new IllegalArgumentException("CSV string cannot be empty.");
         }
-
-        String[] parts = csv.split(",");
-        if (parts.length != 7) {
-            throw new IllegalArgumentException("Invalid employee CSV format. Expected 7 fields.");
+        if (cursor.countFields() != 7) {
+            throw new IllegalArgumentException("Invalid employee CSV format. Expected 7 fields"
+                    + (lineNumber > 0 ? " at line " + lineNumber : "") + ".");
         }
 
-        String type = parts[0].trim().toUpperCase();
-        String name = parts[1].trim();
-        String id = parts[2].trim();
+        cursor.next();
+        EmployeeType type = null;
+        for (EmployeeType candidate : EMPLOYEE_TYPES) {
+            if (cursor.fieldEqualsIgnoreCase(candidate.name())) {
+                type = candidate;
+            }
+        }
+        String unknownType = type == null ? cursor.fieldAsString().toUpperCase() : null;
+        cursor.next();
+        String name = cursor.fieldAsString();
+        cursor.next();
+        String id = cursor.fieldAsString();
 
         try {
-            BigDecimal payRate = new BigDecimal(parts[3].trim());
-            BigDecimal pretaxDeductions = new BigDecimal(parts[4].trim());
-            BigDecimal ytdEarnings = new BigDecimal(parts[5].trim());
-            BigDecimal ytdTaxesPaid = new BigDecimal(parts[6].trim());
+            cursor.next();
+            BigDecimal payRate = cursor.fieldAsDecimal();
+            cursor.next();
+            BigDecimal pretaxDeductions = cursor.fieldAsDecimal();
+            cursor.next();
+            BigDecimal ytdEarnings = cursor.fieldAsDecimal();
+            cursor.next();
+            BigDecimal ytdTaxesPaid = cursor.fieldAsDecimal();
 
-            if ("HOURLY".equals(type)) {
+            if (type == EmployeeType.HOURLY) {
                 return new HourlyEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
-            } else if ("SALARY".equals(type)) {
+            } else if (type == EmployeeType.SALARY) {
                 return new SalaryEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
             } else {
-                throw new IllegalArgumentException("Unknown employee type: " + type);
+                throw new IllegalArgumentException("Unknown employee type: " + unknownType);
             }
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid number format in employee CSV: " + csv, e);
+            throw new IllegalArgumentException("Invalid number format in employee CSV "
+                    + cursor.describePosition() + ": " + csv, e);
         }
     }
 
@@ -72,24 +108,61 @@ public final class Builder {
      * @throws IllegalArgumentException if the CSV format is invalid.
      */
     public static ITimeCard buildTimeCardFromCSV(String csv) {
-        if (csv == null || csv.trim().isEmpty()) {
+        return buildTimeCardFromCSV(csv, 0);
+    }
+
+    /**
+     * Creates a {@code ITimeCard} object from one line of a time card CSV file.
+     * The line is read in place with a reusable {@link CsvCursor}.
+     *
+     * @param csv        The CSV line containing time card data.
+     * @param lineNumber The line number in the source file, or 0 if unknown.
+     * @return A {@code TimeCard} object, or {@code null} if the hours worked are negative.
+     * @throws IllegalArgumentException if the CSV format is invalid.
+     */
+    public static ITimeCard buildTimeCardFromCSV(CharSequence csv, int lineNumber) {
+        return buildTimeCardFromCSV(csv, lineNumber, null);
+    }
+
+    /**
+     * Creates a {@code ITimeCard} object from one line of a time card CSV file, resolving the
+     * employee ID to its key in an ID dictionary. Cards whose ID is in the dictionary do not
+     * keep the ID string, and are joined to their employee by key; other cards are plain
+     * {@code TimeCard}s.
+     *
+     * @param csv        The CSV line containing time card data.
+     * @param lineNumber The line number in the source file, or 0 if unknown.
+     * @param ids        The employee ID dictionary, or null to keep every ID as a string.
+     * @return A time card, or {@code null} if the hours worked are negative.
+     * @throws IllegalArgumentException if the CSV format is invalid.
+     */
+    public static ITimeCard buildTimeCardFromCSV(CharSequence csv, int lineNumber,
+            IdDictionary ids) {
+        CsvCursor cursor = CURSOR.get().reset(csv, lineNumber);
+        if (csv == null || cursor.isBlank()) {
             throw new IllegalArgumentException("CSV string cannot be empty.");
         }
-
-        String[] parts = csv.split(",");
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Invalid time card CSV format. Expected 2 fields.");
+        if (cursor.countFields() != 2) {
+            throw new IllegalArgumentException("Invalid time card CSV format. Expected 2 fields"
+                    + (lineNumber > 0 ? " at line " + lineNumber : "") + ".");
         }
 
-        String employeeID = parts[0].trim();
+        cursor.next();
+        int key = ids == null ? -1 : cursor.fieldKey(ids);
+        String employeeID = key < 0 ? cursor.fieldAsString() : null;
         try {
-            BigDecimal hoursWorked = new BigDecimal(parts[1].trim());
+            cursor.next();
+            BigDecimal hoursWorked = cursor.fieldAsDecimal();
             if (hoursWorked.compareTo(BigDecimal.ZERO) < 0) {
                 return null;
             }
+            if (key >= 0) {
+                return new IndexedTimeCard(ids, key, hoursWorked);
+            }
             return new TimeCard(employeeID, hoursWorked);
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid number format in time card CSV: " + csv, e);
+            throw new IllegalArgumentException("Invalid number format in time card CSV "
+                    + cursor.describePosition() + ": " + csv, e);
         }
     }
 
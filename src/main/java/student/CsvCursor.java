@@ -0,0 +1,286 @@
+package student;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+
+/**
+ * A reusable cursor over the comma separated fields of a single CSV line.
+ * <p>
+ * The cursor never copies the line. Fields are tracked as trimmed index ranges into the
+ * original {@code CharSequence}, and numeric fields are parsed directly from those
+ * characters, so reading a line only allocates the values that are actually kept.
+ * One cursor can be reset and reused for every line of a file, but it is not thread safe.
+ * </p>
+ */
+public final class CsvCursor {
+    /** Field separator. */
+    private static final char SEPARATOR = ',';
+    /** Most digits that always fit in a {@code long} unscaled value. */
+    private static final int MAX_FAST_DIGITS = 18;
+
+    /** The line being read. */
+    private CharSequence line;
+    /** Line number in the source file, or 0 if unknown. */
+    private int lineNumber;
+    /** Index where the next field starts, or -1 when the line is exhausted. */
+    private int position;
+    /** Index of the current field, starting from 0. */
+    private int fieldIndex;
+    /** Start of the current field, after trimming. */
+    private int start;
+    /** End (exclusive) of the current field, after trimming. */
+    private int end;
+
+    /**
+     * Points the cursor at a new line, before its first field.
+     *
+     * @param line       the line to read
+     * @param lineNumber the line number in the source file, or 0 if unknown
+     * @return this cursor
+     */
+    public CsvCursor reset(CharSequence line, int lineNumber) {
+        this.line = line == null ? "" : line;
+        this.lineNumber = lineNumber;
+        this.position = 0;
+        this.fieldIndex = -1;
+        this.start = 0;
+        this.end = 0;
+        return this;
+    }
+
+    /**
+     * Points the cursor at a line held in part of a char array, without copying it.
+     *
+     * @param chars      the characters
+     * @param offset     index of the first character of the line
+     * @param length     number of characters in the line
+     * @param lineNumber the line number in the source file, or 0 if unknown
+     * @return this cursor
+     */
+    public CsvCursor reset(char[] chars, int offset, int length, int lineNumber) {
+        return reset(CharBuffer.wrap(chars, offset, length), lineNumber);
+    }
+
+    /** @return the line number of the current line, or 0 if unknown. */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /** @return the index of the current field, starting from 0. */
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Checks if the line is empty or only whitespace.
+     *
+     * @return true if there is nothing on the line
+     */
+    public boolean isBlank() {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the fields on the line the same way {@code String.split(",")} does, so
+     * trailing empty fields are not counted.
+     *
+     * @return the number of fields
+     */
+    public int countFields() {
+        int last = line.length() - 1;
+        while (last >= 0 && line.charAt(last) == SEPARATOR) {
+            last--;
+        }
+        if (last < 0) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < last; i++) {
+            if (line.charAt(i) == SEPARATOR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves to the next field.
+     *
+     * @return true if there was another field, false if the line is exhausted
+     */
+    public boolean next() {
+        if (position < 0) {
+            return false;
+        }
+        int fieldEnd = position;
+        while (fieldEnd < line.length() && line.charAt(fieldEnd) != SEPARATOR) {
+            fieldEnd++;
+        }
+        start = position;
+        end = fieldEnd;
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        position = fieldEnd < line.length() ? fieldEnd + 1 : -1;
+        fieldIndex++;
+        return true;
+    }
+
+    /**
+     * Checks if the current field matches a value, ignoring case.
+     *
+     * @param value the value to compare with
+     * @return true if the trimmed field equals the value ignoring case
+     */
+    public boolean fieldEqualsIgnoreCase(String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char a = line.charAt(start + i);
+            char b = value.charAt(i);
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the current field as a string.
+     *
+     * @return the trimmed field
+     */
+    public String fieldAsString() {
+        return line.subSequence(start, end).toString();
+    }
+
+    /**
+     * Looks up the current field in an ID dictionary, without creating a string.
+     *
+     * @param ids the dictionary
+     * @return the key of the trimmed field, or -1 if it is not in the dictionary
+     */
+    public int fieldKey(IdDictionary ids) {
+        return ids.find(line, start, end);
+    }
+
+    /**
+     * Parses the current field as a decimal number.
+     * <p>
+     * Plain decimals such as {@code -12.50} are parsed straight from the characters into an
+     * unscaled {@code long}. Anything else (exponents, very long values, bad input) falls back
+     * to the {@code BigDecimal} string constructor, so accepted values and errors are exactly
+     * the same as {@code new BigDecimal(field)}.
+     * </p>
+     *
+     * @return the field as a {@code BigDecimal}
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public BigDecimal fieldAsDecimal() {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return slowDecimal();
+            }
+        }
+        if (digits == 0 || digits > MAX_FAST_DIGITS) {
+            return slowDecimal();
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /**
+     * Parses the current field as a plain decimal scaled to a whole number, for example
+     * {@code 12.5} with scale 2 is {@code 1250}. No objects are created.
+     *
+     * @param scale the number of decimal places to keep
+     * @return the field times ten to the power of scale
+     * @throws NumberFormatException if the field is not a plain decimal number
+     * @throws ArithmeticException   if the field has more decimal places than the scale, or
+     *                               does not fit a long
+     */
+    public long fieldAsScaledLong(int scale) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (decimals >= 0 && ++decimals > scale) {
+                    if (c != '0') {
+                        throw new ArithmeticException("More than " + scale + " decimal places "
+                                + describePosition());
+                    }
+                    continue; // trailing zeros past the scale change nothing
+                }
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+                digits++;
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                throw new NumberFormatException("Not a plain decimal number " + describePosition());
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Missing number " + describePosition());
+        }
+        for (int d = Math.max(decimals, 0); d < scale; d++) {
+            value = Math.multiplyExact(value, 10);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the current field with the {@code BigDecimal} string constructor.
+     *
+     * @return the field as a {@code BigDecimal}
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    private BigDecimal slowDecimal() {
+        return new BigDecimal(fieldAsString());
+    }
+
+    /**
+     * Describes where the cursor is, for error messages.
+     *
+     * @return a description such as "at line 3, field 4", or "at field 4" when the line
+     *         number is unknown
+     */
+    public String describePosition() {
+        // fields are reported counting from 1, like columns in a spreadsheet
+        String field = "field " + (fieldIndex + 1);
+        return lineNumber > 0 ? "at line " + lineNumber + ", " + field : "at " + field;
+    }
+}
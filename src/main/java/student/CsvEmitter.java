@@ -0,0 +1,165 @@
+package student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Builds CSV lines in a reusable {@code StringBuilder}.
+ * <p>
+ * Money is written with exactly two decimal places, rounded HALF_UP from the exact value,
+ * which is what {@code String.format("%.2f", ...)} printed for every amount this program
+ * handles, without parsing a format string or going through {@code double}. Amounts too large
+ * for a {@code double} to hold to the cent are now printed exactly instead of approximately.
+ * </p>
+ * <p>
+ * An emitter is not thread safe; use {@link #local()} to get one for the current thread.
+ * </p>
+ */
+public final class CsvEmitter {
+    /** Field separator. */
+    private static final char SEPARATOR = ',';
+    /** Typical line length, so the buffer rarely grows. */
+    private static final int INITIAL_CAPACITY = 128;
+    /** Largest precision whose unscaled value always fits a long. */
+    private static final int MAX_LONG_PRECISION = 18;
+    /** One emitter per thread for {@code toCSV} methods. */
+    private static final ThreadLocal<CsvEmitter> LOCAL = ThreadLocal.withInitial(CsvEmitter::new);
+
+    /** The line being built. */
+    private final StringBuilder line = new StringBuilder(INITIAL_CAPACITY);
+    /** True until the first field of the line is written. */
+    private boolean first = true;
+
+    /** @return the emitter for the current thread. */
+    public static CsvEmitter local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Starts a new line, clearing the buffer.
+     *
+     * @return this emitter
+     */
+    public CsvEmitter begin() {
+        line.setLength(0);
+        first = true;
+        return this;
+    }
+
+    /**
+     * Writes the separator before every field but the first.
+     *
+     * @return the buffer
+     */
+    private StringBuilder next() {
+        if (first) {
+            first = false;
+        } else {
+            line.append(SEPARATOR);
+        }
+        return line;
+    }
+
+    /**
+     * Adds a text field as it is.
+     *
+     * @param value the text
+     * @return this emitter
+     */
+    public CsvEmitter field(Object value) {
+        next().append(value);
+        return this;
+    }
+
+    /**
+     * Adds a money field.
+     *
+     * @param value the amount
+     * @return this emitter
+     */
+    public CsvEmitter money(BigDecimal value) {
+        appendMoney(next(), value);
+        return this;
+    }
+
+    /**
+     * Adds a money field given in cents.
+     *
+     * @param cents the amount in cents
+     * @return this emitter
+     */
+    public CsvEmitter cents(long cents) {
+        appendCents(next(), cents, false);
+        return this;
+    }
+
+    /**
+     * Adds a money field given in micro-dollars.
+     *
+     * @param micros the amount in micro-dollars
+     * @return this emitter
+     */
+    public CsvEmitter micros(long micros) {
+        appendMicros(next(), micros);
+        return this;
+    }
+
+    /** @return the buffer holding the current line, for callers that write it out directly. */
+    public StringBuilder buffer() {
+        return line;
+    }
+
+    /** @return the current line as a string. */
+    @Override
+    public String toString() {
+        return line.toString();
+    }
+
+    /**
+     * Appends an amount with two decimal places, rounded HALF_UP.
+     *
+     * @param out   where to append
+     * @param value the amount
+     * @return the same builder
+     */
+    public static StringBuilder appendMoney(StringBuilder out, BigDecimal value) {
+        BigDecimal rounded = value.setScale(2, RoundingMode.HALF_UP);
+        if (rounded.precision() > MAX_LONG_PRECISION) {
+            return out.append(rounded.toPlainString());
+        }
+        return appendCents(out, rounded.unscaledValue().longValue(), value.signum() < 0);
+    }
+
+    /**
+     * Appends an amount given in micro-dollars with two decimal places, rounded HALF_UP.
+     *
+     * @param out    where to append
+     * @param micros the amount in micro-dollars
+     * @return the same builder
+     */
+    public static StringBuilder appendMicros(StringBuilder out, long micros) {
+        return appendCents(out, Money.microsToCents(micros), micros < 0);
+    }
+
+    /**
+     * Appends whole cents as dollars with two decimal places.
+     *
+     * @param out      where to append
+     * @param cents    the amount in cents
+     * @param negative true if the original amount was negative, so that amounts which round
+     *                 to zero print as {@code -0.00} like {@code %.2f} does
+     * @return the same builder
+     */
+    private static StringBuilder appendCents(StringBuilder out, long cents, boolean negative) {
+        if (cents < 0 || negative) {
+            out.append('-');
+        }
+        long dollars = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        out.append(dollars).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+}
@@ -1,10 +1,13 @@
 package student;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A base class for different types of employees in the payroll system.
  * This class stores common employee information and handles payroll calculations.
+ * Payroll may be run from several threads at once; the year-to-date totals are kept in an
+ * immutable snapshot that is swapped atomically, so no lock is needed.
  */
 public abstract class EmployeeBigDecimal implements IEmployee {
     /** Employee's name. */
@@ -15,15 +18,22 @@ public abstract class EmployeeBigDecimal implements IEmployee {
     private final BigDecimal payRate;
     /** Amount deducted before taxes. */
     private final BigDecimal pretaxDeductions;
-    /** Year-to-date (YTD) earnings. */
-    private BigDecimal ytdEarnings;
-    /** Year-to-date (YTD) taxes paid. */
-    private BigDecimal ytdTaxesPaid;
+    /** Year-to-date (YTD) earnings and taxes paid, replaced as a pair on every payroll run. */
+    private final AtomicReference<YtdSnapshot> ytd;
     /** Employee type (HOURLY or SALARY). */
     private final EmployeeType employeeType;
+    /** How the employee's taxes are worked out. */
+    private volatile TaxPolicy taxPolicy = TaxPolicy.FLAT;
 
-    /** The fixed tax rate used in payroll calculations. */
-    private static final BigDecimal TAX_RATE = new BigDecimal("0.2265");
+    /** Pay rate in cents, used by the fixed-point payroll path. */
+    private final long payRateCents;
+    /** Pretax deductions in cents, used by the fixed-point payroll path. */
+    private final long pretaxCents;
+    /** True if pay rate and deductions are whole cents, so the fixed-point path can be used. */
+    private final boolean fixedPoint;
+
+    /** Returned by {@link #calculateGrossPayCents(double)} when the fixed-point path cannot be used. */
+    protected static final long NO_FIXED_POINT = Long.MIN_VALUE;
 
     /**
      * Creates an employee with the given details.
@@ -72,8 +82,22 @@ public abstract class EmployeeBigDecimal implements IEmployee {
         this.id = id;
         this.payRate = payRate;
         this.pretaxDeductions = pretaxDeductions;
-        this.ytdEarnings = ytdEarnings;
-        this.ytdTaxesPaid = ytdTaxesPaid;
+        this.ytd = new AtomicReference<>(new YtdSnapshot(ytdEarnings, ytdTaxesPaid));
+
+        long rateCents = 0;
+        long deductionCents = 0;
+        boolean exactCents = payRate != null && pretaxDeductions != null;
+        if (exactCents) {
+            try {
+                rateCents = Money.toCents(payRate);
+                deductionCents = Money.toCents(pretaxDeductions);
+            } catch (ArithmeticException e) {
+                exactCents = false; // fractions of a cent, only BigDecimal is exact
+            }
+        }
+        this.payRateCents = rateCents;
+        this.pretaxCents = deductionCents;
+        this.fixedPoint = exactCents;
         this.employeeType = employeeType;
     }
 
@@ -100,6 +124,11 @@ public abstract class EmployeeBigDecimal implements IEmployee {
         return payRate;
     }
 
+    /** @return Employee's pay rate in cents, only meaningful when the rate is whole cents. */
+    protected long getPayRateCents() {
+        return payRateCents;
+    }
+
     /** @return Employee type (HOURLY or SALARY). */
     @Override
     public String getEmployeeType() {
@@ -109,13 +138,36 @@ public abstract class EmployeeBigDecimal implements IEmployee {
     /** @return Year-to-date earnings as a double. */
     @Override
     public double getYTDEarnings() {
-        return ytdEarnings.doubleValue();
+        return ytd.get().getEarnings().doubleValue();
     }
 
     /** @return Year-to-date taxes paid as a double. */
     @Override
     public double getYTDTaxesPaid() {
-        return ytdTaxesPaid.doubleValue();
+        return ytd.get().getTaxesPaid().doubleValue();
+    }
+
+    /** @return Year-to-date earnings and taxes paid, read together. */
+    public YtdSnapshot getYTD() {
+        return ytd.get();
+    }
+
+    /** @return How the employee's taxes are worked out, {@link TaxPolicy#FLAT} by default. */
+    public TaxPolicy getTaxPolicy() {
+        return taxPolicy;
+    }
+
+    /**
+     * Sets how the employee's taxes are worked out from the next payroll run on.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public void setTaxPolicy(TaxPolicy taxPolicy) {
+        if (taxPolicy == null) {
+            throw new IllegalArgumentException("Tax policy cannot be null.");
+        }
+        this.taxPolicy = taxPolicy;
     }
 
     /** @return Pretax deductions as a double. */
@@ -124,6 +176,25 @@ public abstract class EmployeeBigDecimal implements IEmployee {
         return pretaxDeductions.doubleValue();
     }
 
+    /**
+     * Copies this employee, so payroll can run on the copy without changing this one.
+     *
+     * @return an {@code HourlyEmployee} or {@code SalaryEmployee} with the same values
+     */
+    EmployeeBigDecimal copy() {
+        YtdSnapshot current = ytd.get();
+        EmployeeBigDecimal copy;
+        if (employeeType == EmployeeType.HOURLY) {
+            copy = new HourlyEmployee(name, id, payRate, current.getEarnings(),
+                    current.getTaxesPaid(), pretaxDeductions);
+        } else {
+            copy = new SalaryEmployee(name, id, payRate, current.getEarnings(),
+                    current.getTaxesPaid(), pretaxDeductions);
+        }
+        copy.taxPolicy = taxPolicy;
+        return copy;
+    }
+
     /**
      * Calculates the gross pay based on hours worked.
      *
@@ -132,8 +203,23 @@ public abstract class EmployeeBigDecimal implements IEmployee {
      */
     protected abstract BigDecimal calculateGrossPay(double hoursWorked);
 
+    /**
+     * Calculates the gross pay in cents with {@code long} arithmetic. It must give exactly the
+     * same amount as {@link #calculateGrossPay(double)}.
+     *
+     * @param hoursWorked The number of hours worked.
+     * @return Gross pay in cents, or {@link #NO_FIXED_POINT} if it cannot be done exactly.
+     */
+    protected long calculateGrossPayCents(double hoursWorked) {
+        return NO_FIXED_POINT;
+    }
+
     /**
      * Runs payroll for the employee and calculates net pay.
+     * <p>
+     * When the amounts are whole cents and fit a {@code long}, this uses the allocation-light
+     * fixed-point path, otherwise it uses {@code BigDecimal}. Both give identical results.
+     * </p>
      *
      * @param hoursWorked The number of hours worked.
      * @return The employee's pay stub.
@@ -143,6 +229,144 @@ public abstract class EmployeeBigDecimal implements IEmployee {
         if (hoursWorked < 0) {
             return null;
         }
+        IPayStub payStub = runPayrollFixedPoint(hoursWorked);
+        return payStub != null ? payStub : runPayrollBigDecimal(hoursWorked);
+    }
+
+    /**
+     * Runs payroll with scaled {@code long} arithmetic from {@link FixedPointPayroll}.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @return The employee's pay stub, or null if the amounts cannot be handled exactly.
+     */
+    IPayStub runPayrollFixedPoint(double hoursWorked) {
+        long taxableCents = taxableCentsFixedPoint(hoursWorked);
+        if (taxableCents == NO_FIXED_POINT) {
+            return null;
+        }
+        PaidPeriod paid = payFixedPoint(taxableCents);
+        if (paid == null) {
+            return null; // too large for a long, let BigDecimal handle it
+        }
+        return new PayStub(this, paid.netPay, paid.taxes, paid.after.getEarnings(),
+                paid.after.getTaxesPaid());
+    }
+
+    /**
+     * Runs payroll and fills in a row of a pay stub buffer instead of creating a
+     * {@code PayStub}. The amounts are the same as {@link #runPayroll(double)}.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @param stubs       The buffer to fill in.
+     * @param row         The row to fill in.
+     */
+    void runPayroll(double hoursWorked, PayStubBuffer stubs, int row) {
+        long taxableCents = taxableCentsFixedPoint(hoursWorked);
+        PaidPeriod paid = taxableCents == NO_FIXED_POINT ? null : payFixedPoint(taxableCents);
+        if (paid != null) {
+            stubs.set(row, this, paid.netMicros, paid.taxMicros, paid.after.getEarnings(),
+                    paid.after.getTaxesPaid());
+        } else {
+            stubs.set(row, runPayrollBigDecimal(hoursWorked));
+        }
+    }
+
+    /**
+     * The amounts of one pay period and the year-to-date totals it was added to.
+     */
+    private static final class PaidPeriod {
+        /** Net pay in micro-dollars. */
+        private final long netMicros;
+        /** Taxes in micro-dollars. */
+        private final long taxMicros;
+        /** Net pay. */
+        private final BigDecimal netPay;
+        /** Taxes. */
+        private final BigDecimal taxes;
+        /** The totals after the period. */
+        private final YtdSnapshot after;
+
+        /**
+         * Creates a paid period.
+         *
+         * @param netMicros net pay in micro-dollars
+         * @param taxMicros taxes in micro-dollars
+         * @param netPay    net pay
+         * @param taxes     taxes
+         * @param after     the totals after the period
+         */
+        private PaidPeriod(long netMicros, long taxMicros, BigDecimal netPay, BigDecimal taxes,
+                YtdSnapshot after) {
+            this.netMicros = netMicros;
+            this.taxMicros = taxMicros;
+            this.netPay = netPay;
+            this.taxes = taxes;
+            this.after = after;
+        }
+    }
+
+    /**
+     * Works out the taxable pay with scaled {@code long} arithmetic.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @return Taxable pay in cents, or {@link #NO_FIXED_POINT} if it cannot be done exactly.
+     */
+    private long taxableCentsFixedPoint(double hoursWorked) {
+        if (!fixedPoint) {
+            return NO_FIXED_POINT;
+        }
+        try {
+            long grossCents = calculateGrossPayCents(hoursWorked);
+            return grossCents == NO_FIXED_POINT
+                    ? NO_FIXED_POINT : FixedPointPayroll.taxableCents(grossCents, pretaxCents);
+        } catch (ArithmeticException e) {
+            return NO_FIXED_POINT;
+        }
+    }
+
+    /**
+     * Works out the taxes and net pay with scaled {@code long} arithmetic and adds them to the
+     * year-to-date totals. Taxes that depend on the totals are worked out from the totals the
+     * period is added to, again on every retry, so concurrent runs each see the other's pay.
+     *
+     * @param taxableCents Taxable pay in cents.
+     * @return The period, or null if an amount does not fit a long or the YTD totals have
+     *         more than six decimal places; the totals are then unchanged.
+     */
+    private PaidPeriod payFixedPoint(long taxableCents) {
+        TaxPolicy policy = taxPolicy;
+        YtdSnapshot before;
+        YtdSnapshot after;
+        long taxMicros;
+        long netMicros;
+        BigDecimal netPay;
+        BigDecimal taxes;
+        do {
+            before = ytd.get();
+            try {
+                long ytdTaxableMicros = policy.usesYtd()
+                        ? Math.addExact(Money.toMicros(before.getEarnings()),
+                                Money.toMicros(before.getTaxesPaid()))
+                        : 0;
+                taxMicros = policy.taxMicros(taxableCents, ytdTaxableMicros);
+                netMicros = FixedPointPayroll.netMicros(taxableCents, taxMicros);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+            netPay = Money.fromMicros(netMicros);
+            taxes = Money.fromMicros(taxMicros);
+            after = before.add(netPay, taxes);
+        } while (!ytd.compareAndSet(before, after));
+        return new PaidPeriod(netMicros, taxMicros, netPay, taxes, after);
+    }
+
+    /**
+     * Runs payroll with {@code BigDecimal} arithmetic. This is the reference calculation.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @return The employee's pay stub.
+     */
+    IPayStub runPayrollBigDecimal(double hoursWorked) {
 
         BigDecimal grossPay = calculateGrossPay(hoursWorked);
         BigDecimal taxableAmount = grossPay.subtract(pretaxDeductions);
@@ -152,18 +376,47 @@ public abstract class EmployeeBigDecimal implements IEmployee {
             taxableAmount = BigDecimal.ZERO;
         }
 
-        BigDecimal taxes = taxableAmount.multiply(TAX_RATE);
-        BigDecimal netPay = taxableAmount.subtract(taxes);
+        // lock-free update like addToYTD, but taxes that depend on the YTD totals are worked
+        // out again from the totals of every retry
+        TaxPolicy policy = taxPolicy;
+        YtdSnapshot before;
+        YtdSnapshot after;
+        BigDecimal taxes;
+        BigDecimal netPay;
+        do {
+            before = ytd.get();
+            // YTD earnings are net of taxes, so taxable pay so far is earnings plus taxes paid
+            BigDecimal ytdTaxable = policy.usesYtd()
+                    ? before.getEarnings().add(before.getTaxesPaid()) : null;
+            taxes = policy.tax(taxableAmount, ytdTaxable);
+            netPay = taxableAmount.subtract(taxes);
 
-        // Ensure net pay is never negative
-        if (netPay.compareTo(BigDecimal.ZERO) < 0) {
-            netPay = BigDecimal.ZERO;
-        }
+            // Ensure net pay is never negative
+            if (netPay.compareTo(BigDecimal.ZERO) < 0) {
+                netPay = BigDecimal.ZERO;
+            }
+            after = before.add(netPay, taxes);
+        } while (!ytd.compareAndSet(before, after));
 
-        ytdEarnings = ytdEarnings.add(netPay);
-        ytdTaxesPaid = ytdTaxesPaid.add(taxes);
+        return new PayStub(this, netPay, taxes, after.getEarnings(), after.getTaxesPaid());
+    }
 
-        return new PayStub(this, netPay, taxes, ytdEarnings, ytdTaxesPaid);
+    /**
+     * Adds amounts to the year-to-date totals, for a payroll run or a replayed journal entry.
+     *
+     * @param earnings amount to add to YTD earnings
+     * @param taxes    amount to add to YTD taxes paid
+     * @return the new totals
+     */
+    YtdSnapshot addToYTD(BigDecimal earnings, BigDecimal taxes) {
+        // lock-free update: retry if another thread ran payroll for this employee meanwhile
+        YtdSnapshot before;
+        YtdSnapshot after;
+        do {
+            before = ytd.get();
+            after = before.add(earnings, taxes);
+        } while (!ytd.compareAndSet(before, after));
+        return after;
     }
 
 
@@ -175,11 +428,13 @@ public abstract class EmployeeBigDecimal implements IEmployee {
      */
     @Override
     public String toCSV() {
-        return String.format("%s,%s,%s,%.2f,%.2f,%.2f,%.2f",
-                employeeType, name, id,
-                getPayRate(),
-                getPretaxDeductions(),
-                getYTDEarnings(),
-                getYTDTaxesPaid());
+        YtdSnapshot current = ytd.get();
+        CsvEmitter csv = CsvEmitter.local().begin().field(employeeType).field(name).field(id);
+        if (fixedPoint) {
+            csv.cents(payRateCents).cents(pretaxCents);
+        } else {
+            csv.money(payRate).money(pretaxDeductions);
+        }
+        return csv.money(current.getEarnings()).money(current.getTaxesPaid()).toString();
     }
 }
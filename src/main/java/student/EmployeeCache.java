@@ -0,0 +1,219 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * A bounded cache of parsed employees for a service that runs payroll on the same employee
+ * file again and again.
+ * <p>
+ * Each request calls {@link #open()} and gets its own {@link LazyEmployeeFile} sharing one line
+ * index. Looking an employee up in it first checks the cache, keyed by ID; only on a miss is
+ * the line parsed by {@link Builder#buildEmployeeFromCSV(String, int)}. The cache keeps at most
+ * a fixed number of employees and drops the least recently used one when it is full, so hot
+ * employees stay parsed without the whole staff being held on the heap.
+ * </p>
+ * <p>
+ * The cache holds untouched copies: every request gets new employee objects, so running
+ * payroll in one request never changes what the next request sees. Before each request the
+ * size and modification time of the file are checked. If either changed, the file is indexed
+ * again and the cache is only cleared if the CRC-32C checksum of the contents changed too, so
+ * touching the file or rewriting identical bytes keeps the cache warm. With checksum
+ * verification on, the checksum is compared before every request, which also catches a change
+ * within the resolution of the modification time.
+ * </p>
+ * <p>
+ * The cache is thread safe; requests may run at the same time, and only wait for each other
+ * while the cache map is looked up or filled.
+ * </p>
+ */
+public class EmployeeCache {
+    /** Default number of employees kept. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /** The employee file. */
+    private final Path file;
+    /** Most employees kept. */
+    private final int maxEntries;
+    /** True to compare the checksum before every request. */
+    private final boolean verifyChecksum;
+    /** Parsed employees by ID, least recently used first. */
+    private final Map<String, EmployeeBigDecimal> entries;
+
+    /** Line index of the current file, or null before the first request. */
+    private LazyEmployeeFile index;
+    /** Size of the indexed file. */
+    private long size;
+    /** Modification time of the indexed file, in milliseconds. */
+    private long modified;
+    /** Checksum of the indexed file. */
+    private long checksum;
+
+    /** Lookups served from the cache. */
+    private long hits;
+    /** Lookups that parsed a line. */
+    private long misses;
+    /** Employees dropped to stay within the limit. */
+    private long evictions;
+    /** Times the cache was cleared because the file changed. */
+    private long invalidations;
+
+    /**
+     * Creates a cache that checks the file by size and modification time.
+     *
+     * @param file       the employee file, with a header line
+     * @param maxEntries the most employees to keep
+     * @throws IllegalArgumentException if the file is null or maxEntries is less than 1
+     */
+    public EmployeeCache(Path file, int maxEntries) {
+        this(file, maxEntries, false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param file           the employee file, with a header line
+     * @param maxEntries     the most employees to keep
+     * @param verifyChecksum true to also compare the checksum of the file before every request
+     * @throws IllegalArgumentException if the file is null or maxEntries is less than 1
+     */
+    public EmployeeCache(Path file, int maxEntries, boolean verifyChecksum) {
+        if (file == null) {
+            throw new IllegalArgumentException("Employee file cannot be null.");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.verifyChecksum = verifyChecksum;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EmployeeBigDecimal> eldest) {
+                if (size() > EmployeeCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Starts a request: checks the file for changes and returns a fresh set of employees.
+     *
+     * @return the employees, built on demand through the cache
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line has no ID or two lines share one
+     */
+    public synchronized LazyEmployeeFile open() throws IOException {
+        long currentSize = Files.size(file);
+        long currentModified = Files.getLastModifiedTime(file).toMillis();
+        if (index == null || currentSize != size || currentModified != modified || verifyChecksum) {
+            LazyEmployeeFile reindexed = LazyEmployeeFile.open(file);
+            long currentChecksum = checksumOf(reindexed);
+            if (index != null && currentChecksum != checksum) {
+                invalidations++;
+                entries.clear();
+            }
+            // same contents: the cached employees still match, but map the file that is there now
+            index = reindexed;
+            checksum = currentChecksum;
+            size = currentSize;
+            modified = currentModified;
+        }
+        LazyEmployeeFile generation = index;
+        return new LazyEmployeeFile(generation,
+                (request, line) -> load(generation, request, line));
+    }
+
+    /**
+     * Builds an employee for a request, from the cache when possible. Only the map and the
+     * counters are used under the lock; parsing and copying run outside it, so requests do not
+     * wait on each other's misses.
+     *
+     * @param generation the index the request was opened with
+     * @param request    the request's view of the file
+     * @param line       the index of the employee line
+     * @return a new employee
+     */
+    private IEmployee load(LazyEmployeeFile generation, LazyEmployeeFile request, int line) {
+        String id = request.idAt(line);
+        EmployeeBigDecimal cached;
+        synchronized (this) {
+            cached = generation == index ? entries.get(id) : null;
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (cached != null) {
+            return cached.copy(); // cached employees are never changed, so copying needs no lock
+        }
+        IEmployee parsed = Builder.buildEmployeeFromCSV(request.lineAt(line), line + 2);
+        if (!(parsed instanceof EmployeeBigDecimal)) {
+            return parsed;
+        }
+        EmployeeBigDecimal employee = (EmployeeBigDecimal) parsed;
+        EmployeeBigDecimal kept = employee.copy();
+        synchronized (this) {
+            // the file may have changed while parsing, so only keep it if this is still current
+            if (generation == index) {
+                entries.putIfAbsent(id, kept);
+            }
+        }
+        return employee;
+    }
+
+    /**
+     * Works out the checksum of a mapped file.
+     *
+     * @param mapped the file
+     * @return the CRC-32C of its contents
+     */
+    private static long checksumOf(LazyEmployeeFile mapped) {
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.contents());
+        return crc.getValue();
+    }
+
+    /** Drops every cached employee, so the next request parses from scratch. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /** @return the number of employees in the cache. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return the most employees the cache keeps. */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /** @return the number of lookups served from the cache. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return the number of lookups that parsed a line. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return the number of employees dropped to stay within the limit. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** @return the number of times the cache was cleared because the file changed. */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,180 @@
+package student;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of employees keyed by their ID.
+ * The registry is built once from the employee list and turns the time card to employee
+ * join into a constant-time hash lookup instead of a scan over every employee. The IDs are
+ * held in an {@link IdDictionary} whose keys are the employee positions, so time cards
+ * resolved against {@link #getIds()} when parsed are joined with a plain array access.
+ */
+public class EmployeeRegistry implements EmployeeSource {
+    /** Employees in the order they were registered, used when writing the employee file. */
+    private final List<IEmployee> employees;
+    /** Employee IDs, keyed by the employee's position in {@link #employees}. */
+    private final IdDictionary byId;
+
+    /**
+     * Builds a registry from the given employees.
+     *
+     * @param employees the employees to index
+     * @throws IllegalArgumentException if the list is null, contains a null employee,
+     *                                  or two employees share the same ID
+     */
+    public EmployeeRegistry(List<IEmployee> employees) {
+        if (employees == null) {
+            throw new IllegalArgumentException("Employee list cannot be null.");
+        }
+        this.employees = new ArrayList<>(employees.size());
+        // size the dictionary up front so building it never rehashes
+        this.byId = new IdDictionary(employees.size());
+        for (IEmployee employee : employees) {
+            register(employee);
+        }
+    }
+
+    /**
+     * Adds a single employee to the registry.
+     *
+     * @param employee the employee to add
+     * @throws IllegalArgumentException if the employee is null or its ID is already registered
+     */
+    private void register(IEmployee employee) {
+        if (employee == null) {
+            throw new IllegalArgumentException("Employee cannot be null.");
+        }
+        if (byId.add(employee.getID()) < 0) {
+            throw new IllegalArgumentException("Duplicate employee ID: " + employee.getID());
+        }
+        employees.add(employee);
+    }
+
+    /**
+     * Finds the employee with the given ID.
+     *
+     * @param id the employee ID
+     * @return the employee, or {@code null} if no employee has that ID
+     */
+    @Override
+    public IEmployee get(String id) {
+        int index = byId.find(id);
+        return index < 0 ? null : employees.get(index);
+    }
+
+    /**
+     * Finds the position of an employee, so per-employee data can be kept in plain arrays.
+     *
+     * @param id the employee ID
+     * @return the index of the employee in {@link #getEmployees()}, or -1 if no employee has
+     *         that ID
+     */
+    @Override
+    public int indexOf(String id) {
+        return byId.find(id);
+    }
+
+    /**
+     * Finds the position of the employee a time card belongs to, by key if the card was
+     * resolved against this registry's IDs.
+     *
+     * @param timeCard the time card
+     * @return the index of the employee, or -1 if the time card is null or unmatched
+     */
+    @Override
+    public int indexOf(ITimeCard timeCard) {
+        if (timeCard instanceof IndexedTimeCard) {
+            IndexedTimeCard indexed = (IndexedTimeCard) timeCard;
+            if (indexed.getIds() == byId) {
+                return indexed.getKey();
+            }
+        }
+        return timeCard == null ? -1 : indexOf(timeCard.getEmployeeID());
+    }
+
+    /**
+     * Finds the employee a time card belongs to.
+     *
+     * @param timeCard the time card
+     * @return the matching employee, or {@code null} if the time card is null or unmatched
+     */
+    @Override
+    public IEmployee get(ITimeCard timeCard) {
+        int index = indexOf(timeCard);
+        return index < 0 ? null : employees.get(index);
+    }
+
+    /**
+     * Checks if an employee with the given ID is registered.
+     *
+     * @param id the employee ID
+     * @return true if the ID is registered
+     */
+    public boolean contains(String id) {
+        return byId.find(id) >= 0;
+    }
+
+    /** @return the employee IDs, keyed by employee position. */
+    @Override
+    public IdDictionary getIds() {
+        return byId;
+    }
+
+    /**
+     * Sets the tax policy of every registered employee. Employees other than
+     * {@link EmployeeBigDecimal} and {@link EmployeeView} keep working out their own taxes.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    @Override
+    public void setTaxPolicy(TaxPolicy taxPolicy) {
+        if (taxPolicy == null) {
+            throw new IllegalArgumentException("Tax policy cannot be null.");
+        }
+        for (IEmployee employee : employees) {
+            applyTaxPolicy(employee, taxPolicy);
+        }
+    }
+
+    /**
+     * Sets the tax policy of an employee that has one.
+     *
+     * @param employee  the employee
+     * @param taxPolicy the tax policy
+     */
+    static void applyTaxPolicy(IEmployee employee, TaxPolicy taxPolicy) {
+        if (employee instanceof EmployeeBigDecimal) {
+            ((EmployeeBigDecimal) employee).setTaxPolicy(taxPolicy);
+        } else if (employee instanceof EmployeeView) {
+            ((EmployeeView) employee).setTaxPolicy(taxPolicy);
+        }
+    }
+
+    /** @return the number of registered employees. */
+    @Override
+    public int size() {
+        return employees.size();
+    }
+
+    /**
+     * Writes every employee with {@link IEmployee#toCSV()}, in registration order.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeCSV(LineWriter out) throws IOException {
+        for (IEmployee employee : employees) {
+            out.writeLine(employee.toCSV());
+        }
+    }
+
+    /** @return the employees in registration order, as an unmodifiable list. */
+    public List<IEmployee> getEmployees() {
+        return Collections.unmodifiableList(employees);
+    }
+}
@@ -0,0 +1,398 @@
+package student;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A binary snapshot of the employee file that loads without parsing any text.
+ * <p>
+ * The file starts with a fixed header, followed by one fixed-width record per employee and
+ * then a string table holding the names and IDs. Amounts are stored the same way as in an
+ * {@link EmployeeTable}: pay rate and deductions in cents, YTD totals in micro-dollars.
+ * The file is memory mapped, so opening it costs almost nothing and records are only paged
+ * in when they are read.
+ * </p>
+ * <p>
+ * Layout, all numbers big-endian:
+ * </p>
+ * <pre>
+ * header   magic int, version int, count int, record size int, source size long,
+ *          source modified millis long, string table offset long, string table length long
+ * record   type byte, 3 reserved bytes, name ref int, ID ref int, reserved int,
+ *          pay rate cents long, pretax cents long, YTD earnings micros long,
+ *          YTD taxes micros long
+ * strings  for each string: unsigned short byte length, UTF-8 bytes
+ * </pre>
+ * <p>
+ * The header records the size and modification time of the CSV file the snapshot was made
+ * from, so {@link #isCurrent(Path)} can tell when the CSV has changed since.
+ * </p>
+ */
+public final class EmployeeSnapshot {
+    /** First four bytes of every snapshot, "EMPS". */
+    public static final int MAGIC = 0x454D5053;
+    /** The format version written by this class. */
+    public static final int VERSION = 1;
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 48;
+    /** Size of one record in bytes. */
+    static final int RECORD_SIZE = 48;
+    /** Longest string the string table can hold, in UTF-8 bytes. */
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    /** Employee types, indexed by the type byte. */
+    private static final EmployeeType[] TYPES = EmployeeType.values();
+
+    /** The mapped file. */
+    private final ByteBuffer buffer;
+    /** Number of employees. */
+    private final int count;
+    /** Size of one record, which may be larger than {@link #RECORD_SIZE} in later versions. */
+    private final int recordSize;
+    /** Size of the source CSV file when the snapshot was made. */
+    private final long sourceSize;
+    /** Modification time of the source CSV file when the snapshot was made. */
+    private final long sourceModified;
+    /** Offset of the string table. */
+    private final int stringTable;
+
+    /**
+     * Reads the header of a mapped snapshot.
+     *
+     * @param buffer the snapshot
+     * @param file   the file name, for error messages
+     * @throws IllegalArgumentException if the buffer is not a supported snapshot
+     */
+    private EmployeeSnapshot(ByteBuffer buffer, Path file) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an employee snapshot: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported employee snapshot version "
+                    + buffer.getInt(4) + ": " + file);
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.recordSize = buffer.getInt(12);
+        this.sourceSize = buffer.getLong(16);
+        this.sourceModified = buffer.getLong(24);
+        long tableOffset = buffer.getLong(32);
+        long tableLength = buffer.getLong(40);
+        if (count < 0 || recordSize < RECORD_SIZE
+                || tableOffset != HEADER_SIZE + (long) count * recordSize
+                || tableOffset + tableLength != buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt employee snapshot: " + file);
+        }
+        this.stringTable = (int) tableOffset;
+    }
+
+    /**
+     * Maps a snapshot file into memory.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a supported snapshot
+     */
+    public static EmployeeSnapshot map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Employee snapshot too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new EmployeeSnapshot(mapped, file);
+        }
+    }
+
+    /** @return the number of employees. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Checks if the snapshot was made from the current version of a CSV file.
+     *
+     * @param csvFile the employee CSV file
+     * @return true if the file has the size and modification time recorded in the snapshot
+     * @throws IOException if the file attributes cannot be read
+     */
+    public boolean isCurrent(Path csvFile) throws IOException {
+        return Files.exists(csvFile) && Files.size(csvFile) == sourceSize
+                && Files.getLastModifiedTime(csvFile).toMillis() == sourceModified;
+    }
+
+    /**
+     * Reads one employee into a standalone employee object. Only the pages holding this
+     * record and its strings are touched.
+     *
+     * @param index the index of the employee, in file order
+     * @return an {@code HourlyEmployee} or {@code SalaryEmployee}
+     */
+    public EmployeeBigDecimal get(int index) {
+        int at = recordOffset(index);
+        String name = string(buffer.getInt(at + 4));
+        String id = string(buffer.getInt(at + 8));
+        BigDecimal payRate = BigDecimal.valueOf(buffer.getLong(at + 16), 2);
+        BigDecimal pretax = BigDecimal.valueOf(buffer.getLong(at + 24), 2);
+        BigDecimal earnings = Money.fromMicros(buffer.getLong(at + 32));
+        BigDecimal taxes = Money.fromMicros(buffer.getLong(at + 40));
+        if (type(at) == EmployeeType.HOURLY) {
+            return new HourlyEmployee(name, id, payRate, earnings, taxes, pretax);
+        }
+        return new SalaryEmployee(name, id, payRate, earnings, taxes, pretax);
+    }
+
+    /**
+     * Reads the ID of one employee, without reading the rest of its record.
+     *
+     * @param index the index of the employee
+     * @return the ID
+     */
+    String idOf(int index) {
+        return string(buffer.getInt(recordOffset(index) + 8));
+    }
+
+    /**
+     * Formats one record as a line of the employee CSV file, without creating any decimals.
+     *
+     * @param index the index of the employee
+     * @return the line, the same as {@code get(index).toCSV()}
+     */
+    String toCSV(int index) {
+        int at = recordOffset(index);
+        return CsvEmitter.local().begin()
+                .field(type(at)).field(string(buffer.getInt(at + 4)))
+                .field(string(buffer.getInt(at + 8)))
+                .cents(buffer.getLong(at + 16))
+                .cents(buffer.getLong(at + 24))
+                .micros(buffer.getLong(at + 32))
+                .micros(buffer.getLong(at + 40))
+                .toString();
+    }
+
+    /**
+     * Copies one record into an employee table.
+     *
+     * @param index the index of the employee
+     * @param table the table to add the employee to
+     * @throws IllegalArgumentException if the table already has the employee's ID
+     */
+    void copyTo(int index, EmployeeTable table) {
+        int at = recordOffset(index);
+        table.add(type(at), string(buffer.getInt(at + 4)), string(buffer.getInt(at + 8)),
+                buffer.getLong(at + 16), buffer.getLong(at + 24),
+                buffer.getLong(at + 32), buffer.getLong(at + 40));
+    }
+
+    /**
+     * Copies every record into an employee table, without creating any decimals.
+     *
+     * @return the table
+     * @throws IllegalArgumentException if the snapshot holds duplicate IDs
+     */
+    public EmployeeTable toTable() {
+        EmployeeTable table = new EmployeeTable(count);
+        Map<Integer, String> strings = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int at = recordOffset(i);
+            // names are shared in the string table, so decode each one only once
+            String name = strings.computeIfAbsent(buffer.getInt(at + 4), this::string);
+            table.add(type(at), name, string(buffer.getInt(at + 8)),
+                    buffer.getLong(at + 16), buffer.getLong(at + 24),
+                    buffer.getLong(at + 32), buffer.getLong(at + 40));
+        }
+        return table;
+    }
+
+    /**
+     * Writes the snapshot back out in the employee CSV layout, with the header.
+     *
+     * @param csvFile the CSV file to write
+     * @throws IOException if writing fails
+     */
+    public void toCSV(Path csvFile) throws IOException {
+        EmployeeTable table = toTable();
+        try (LineWriter out = new LineWriter(csvFile, LineWriter.DEFAULT_BUFFER_SIZE)) {
+            out.writeLine(FileUtil.EMPLOYEE_HEADER);
+            for (int row = 0; row < table.size(); row++) {
+                out.writeLine(table.get(row).toCSV());
+            }
+        }
+    }
+
+    /**
+     * Converts an employee CSV file, with its header, to a snapshot.
+     *
+     * @param csvFile      the CSV file
+     * @param snapshotFile the snapshot to write
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a line is invalid or has amounts a snapshot cannot
+     *                                  store exactly
+     */
+    public static void fromCSV(Path csvFile, Path snapshotFile) throws IOException {
+        EmployeeTable table = new EmployeeTable();
+        CsvCursor cursor = new CsvCursor();
+        int lineNumber = 1;
+        try (Stream<String> lines = Files.lines(csvFile, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines.skip(1)::iterator) {
+                table.addFromCSV(cursor.reset(line, ++lineNumber));
+            }
+        }
+        write(snapshotFile, table, csvFile);
+    }
+
+    /**
+     * Writes a snapshot of the employees in a table. The snapshot replaces any existing file
+     * atomically.
+     *
+     * @param snapshotFile the snapshot to write
+     * @param table        the employees
+     * @param source       the CSV file holding the same employees, recorded so the snapshot
+     *                     can be checked against it later
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a name or ID is too long
+     */
+    public static void write(Path snapshotFile, EmployeeTable table, Path source)
+            throws IOException {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        Map<String, Integer> refs = new HashMap<>();
+        ByteBuffer records = ByteBuffer.allocate(table.size() * RECORD_SIZE);
+        for (int row = 0; row < table.size(); row++) {
+            int at = row * RECORD_SIZE;
+            records.put(at, (byte) table.typeOf(row).ordinal());
+            records.putInt(at + 4, intern(table.nameOf(row), refs, strings));
+            records.putInt(at + 8, intern(table.idOf(row), refs, strings));
+            records.putLong(at + 16, table.payRateCentsOf(row));
+            records.putLong(at + 24, table.pretaxCentsOf(row));
+            records.putLong(at + 32, table.ytdEarningsMicrosOf(row));
+            records.putLong(at + 40, table.ytdTaxesMicrosOf(row));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(table.size()).putInt(RECORD_SIZE)
+                .putLong(Files.exists(source) ? Files.size(source) : 0)
+                .putLong(Files.exists(source) ? Files.getLastModifiedTime(source).toMillis() : 0)
+                .putLong(HEADER_SIZE + (long) records.capacity())
+                .putLong(strings.size())
+                .flip();
+
+        Path target = snapshotFile.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (ByteBuffer part : new ByteBuffer[] {header, records,
+                        ByteBuffer.wrap(strings.toByteArray())}) {
+                    while (part.hasRemaining()) {
+                        channel.write(part);
+                    }
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a snapshot of employees, going through their CSV form so any {@code IEmployee}
+     * can be stored.
+     *
+     * @param snapshotFile the snapshot to write
+     * @param employees    the employees
+     * @param source       the CSV file holding the same employees
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if an employee has amounts a snapshot cannot store
+     *                                  exactly
+     */
+    public static void write(Path snapshotFile, List<IEmployee> employees, Path source)
+            throws IOException {
+        EmployeeTable table = new EmployeeTable(employees.size());
+        CsvCursor cursor = new CsvCursor();
+        for (IEmployee employee : employees) {
+            table.addFromCSV(cursor.reset(employee.toCSV(), 0));
+        }
+        write(snapshotFile, table, source);
+    }
+
+    /**
+     * Adds a string to the string table, once.
+     *
+     * @param value   the string
+     * @param refs    offsets of the strings already added
+     * @param strings the string table
+     * @return the offset of the string in the table
+     */
+    private static int intern(String value, Map<String, Integer> refs, ByteArrayOutputStream strings) {
+        Integer ref = refs.get(value);
+        if (ref != null) {
+            return ref;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long for an employee snapshot: "
+                    + value.substring(0, 20) + "...");
+        }
+        int offset = strings.size();
+        strings.write(bytes.length >>> 8);
+        strings.write(bytes.length);
+        strings.write(bytes, 0, bytes.length);
+        refs.put(value, offset);
+        return offset;
+    }
+
+    /**
+     * Finds a record.
+     *
+     * @param index the index of the employee
+     * @return the offset of its record
+     */
+    private int recordOffset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Employee " + index + " of " + count);
+        }
+        return HEADER_SIZE + index * recordSize;
+    }
+
+    /**
+     * Reads the type of a record.
+     *
+     * @param at the offset of the record
+     * @return the employee type
+     */
+    private EmployeeType type(int at) {
+        return TYPES[buffer.get(at)];
+    }
+
+    /**
+     * Decodes a string from the string table.
+     *
+     * @param ref the offset of the string in the table
+     * @return the string
+     */
+    private String string(int ref) {
+        int at = stringTable + ref;
+        int length = buffer.getShort(at) & MAX_STRING_BYTES;
+        byte[] bytes = new byte[length];
+        buffer.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
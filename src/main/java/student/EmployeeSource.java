@@ -0,0 +1,83 @@
+package student;
+
+import java.io.IOException;
+
+/**
+ * Where payroll finds the employees a time card refers to.
+ * <p>
+ * {@link EmployeeRegistry} holds every employee in memory, while {@link LazyEmployeeFile}
+ * and {@link LazyEmployeeSnapshot} only build the employees that are actually looked up.
+ * </p>
+ */
+public interface EmployeeSource {
+    /**
+     * Finds the employee with the given ID.
+     *
+     * @param id the employee ID
+     * @return the employee, or {@code null} if no employee has that ID
+     */
+    IEmployee get(String id);
+
+    /**
+     * Finds the employee a time card belongs to.
+     *
+     * @param timeCard the time card
+     * @return the matching employee, or {@code null} if the time card is null or unmatched
+     */
+    default IEmployee get(ITimeCard timeCard) {
+        return timeCard == null ? null : get(timeCard.getEmployeeID());
+    }
+
+    /**
+     * Finds the position of an employee, so per-employee data can be kept in plain arrays.
+     *
+     * @param id the employee ID
+     * @return the index of the employee, from 0 to {@code size() - 1}, or -1 if no employee has
+     *         that ID
+     */
+    int indexOf(String id);
+
+    /**
+     * Finds the position of the employee a time card belongs to.
+     *
+     * @param timeCard the time card
+     * @return the index of the employee, or -1 if the time card is null or unmatched
+     */
+    default int indexOf(ITimeCard timeCard) {
+        return timeCard == null ? -1 : indexOf(timeCard.getEmployeeID());
+    }
+
+    /**
+     * Gets the dictionary of employee IDs, so time cards can be resolved to employees as they
+     * are parsed, with {@link Builder#buildTimeCardFromCSV(CharSequence, int, IdDictionary)}.
+     *
+     * @return the dictionary, whose keys are the employee indexes, or null if this source looks
+     *         employees up by ID string
+     */
+    default IdDictionary getIds() {
+        return null;
+    }
+
+    /**
+     * Sets how the taxes of every employee are worked out from the next payroll run on.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     * @throws UnsupportedOperationException if this source cannot change tax policies
+     */
+    default void setTaxPolicy(TaxPolicy taxPolicy) {
+        throw new UnsupportedOperationException("Tax policies cannot be changed.");
+    }
+
+    /** @return the number of employees. */
+    int size();
+
+    /**
+     * Writes every employee as a line of the employee CSV file, in file order, without the
+     * header.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    void writeCSV(LineWriter out) throws IOException;
+}
@@ -0,0 +1,497 @@
+package student;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar (struct-of-arrays) store of employees for batch payroll.
+ * <p>
+ * Each employee is a row index into parallel primitive arrays: pay rate and pretax deductions
+ * in cents, YTD earnings and taxes in micro-dollars (see {@link Money}), and the employee type
+ * as a byte. Names are interned in a dictionary, so repeated names are stored once. Batch
+ * payroll walks the arrays directly with {@link FixedPointPayroll}, and {@link #get(int)}
+ * hands out lightweight {@link EmployeeView} flyweights for code that expects an
+ * {@code IEmployee}.
+ * </p>
+ * <p>
+ * The table is not thread safe, except that {@link #runPayroll(int, int, long[], long[], long[])}
+ * may be called from several threads on ranges that do not overlap.
+ * </p>
+ */
+public class EmployeeTable {
+    /** Initial capacity when none is given. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Employee types, indexed by the type byte. */
+    private static final EmployeeType[] TYPES = EmployeeType.values();
+
+    /** Number of rows in use. */
+    private int size;
+    /** Employee type of each row, as the enum ordinal. */
+    private byte[] types;
+    /** Index of each row's name in the name dictionary. */
+    private int[] nameRefs;
+    /** ID of each row. */
+    private String[] ids;
+    /** Pay rate of each row in cents (hourly wage or annual salary). */
+    private long[] payRateCents;
+    /** Pretax deductions of each row in cents. */
+    private long[] pretaxCents;
+    /** YTD earnings of each row in micro-dollars. */
+    private long[] ytdEarningsMicros;
+    /** YTD taxes paid of each row in micro-dollars. */
+    private long[] ytdTaxesMicros;
+    /** Tax policy of each row, or null while every row has the flat tax. */
+    private TaxPolicy[] taxPolicies;
+
+    /** Distinct names, indexed by name reference. */
+    private String[] names;
+    /** Number of distinct names. */
+    private int nameCount;
+    /** Name dictionary, from name to name reference. */
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    /** Row of each employee ID. */
+    private final Map<String, Integer> rowsById = new HashMap<>();
+
+    /** Creates an empty table. */
+    public EmployeeTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of employees.
+     *
+     * @param capacity the expected number of employees
+     */
+    public EmployeeTable(int capacity) {
+        int initial = Math.max(1, capacity);
+        types = new byte[initial];
+        nameRefs = new int[initial];
+        ids = new String[initial];
+        payRateCents = new long[initial];
+        pretaxCents = new long[initial];
+        ytdEarningsMicros = new long[initial];
+        ytdTaxesMicros = new long[initial];
+        names = new String[initial];
+    }
+
+    /**
+     * Builds a table from employee CSV lines, without creating employee objects.
+     *
+     * @param lines the CSV lines, without the header
+     * @return the table
+     * @throws IllegalArgumentException if a line is invalid
+     */
+    public static EmployeeTable fromCSV(List<String> lines) {
+        EmployeeTable table = new EmployeeTable(lines.size());
+        CsvCursor cursor = new CsvCursor();
+        for (int i = 0; i < lines.size(); i++) {
+            table.addFromCSV(cursor.reset(lines.get(i), i + 2));
+        }
+        return table;
+    }
+
+    /**
+     * Adds one employee from a CSV line, parsing the numbers straight into the columns.
+     *
+     * @param cursor a cursor reset to the line, before its first field
+     * @return the new row
+     * @throws IllegalArgumentException if the line is invalid or has fractions of a cent
+     */
+    public int addFromCSV(CsvCursor cursor) {
+        if (cursor.countFields() != 7) {
+            throw new IllegalArgumentException("Invalid employee CSV format. Expected 7 fields"
+                    + (cursor.getLineNumber() > 0 ? " at line " + cursor.getLineNumber() : "") + ".");
+        }
+        cursor.next();
+        EmployeeType type = null;
+        for (EmployeeType candidate : TYPES) {
+            if (cursor.fieldEqualsIgnoreCase(candidate.name())) {
+                type = candidate;
+            }
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown employee type: "
+                    + cursor.fieldAsString().toUpperCase());
+        }
+        cursor.next();
+        String name = cursor.fieldAsString();
+        cursor.next();
+        String id = cursor.fieldAsString();
+        try {
+            cursor.next();
+            long rate = cursor.fieldAsScaledLong(2);
+            cursor.next();
+            long pretax = cursor.fieldAsScaledLong(2);
+            cursor.next();
+            long earnings = cursor.fieldAsScaledLong(Money.MICRO_SCALE);
+            cursor.next();
+            long taxes = cursor.fieldAsScaledLong(Money.MICRO_SCALE);
+            return add(type, name, id, rate, pretax, earnings, taxes);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid number format in employee CSV "
+                    + cursor.describePosition() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds one employee with amounts as decimals.
+     *
+     * @param type             the employee type
+     * @param name             the employee's name
+     * @param id               the employee's ID
+     * @param payRate          hourly wage or annual salary
+     * @param pretaxDeductions amount deducted before taxes
+     * @param ytdEarnings      year-to-date earnings
+     * @param ytdTaxesPaid     year-to-date taxes paid
+     * @return the new row
+     * @throws IllegalArgumentException if an amount cannot be stored exactly, or the ID is taken
+     */
+    public int add(EmployeeType type, String name, String id, BigDecimal payRate,
+            BigDecimal pretaxDeductions, BigDecimal ytdEarnings, BigDecimal ytdTaxesPaid) {
+        try {
+            return add(type, name, id, Money.toCents(payRate), Money.toCents(pretaxDeductions),
+                    Money.toMicros(ytdEarnings), Money.toMicros(ytdTaxesPaid));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Employee " + id
+                    + " has amounts the employee table cannot store exactly.", e);
+        }
+    }
+
+    /**
+     * Adds one employee with amounts already scaled.
+     *
+     * @param type              the employee type
+     * @param name              the employee's name
+     * @param id                the employee's ID
+     * @param payRateCents      hourly wage or annual salary in cents
+     * @param pretaxCents       pretax deductions in cents
+     * @param ytdEarningsMicros year-to-date earnings in micro-dollars
+     * @param ytdTaxesMicros    year-to-date taxes paid in micro-dollars
+     * @return the new row
+     * @throws IllegalArgumentException if the ID is already in the table
+     */
+    public int add(EmployeeType type, String name, String id, long payRateCents, long pretaxCents,
+            long ytdEarningsMicros, long ytdTaxesMicros) {
+        if (rowsById.putIfAbsent(id, size) != null) {
+            throw new IllegalArgumentException("Duplicate employee ID: " + id);
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        this.types[row] = (byte) type.ordinal();
+        this.nameRefs[row] = internName(name);
+        this.ids[row] = id;
+        this.payRateCents[row] = payRateCents;
+        this.pretaxCents[row] = pretaxCents;
+        this.ytdEarningsMicros[row] = ytdEarningsMicros;
+        this.ytdTaxesMicros[row] = ytdTaxesMicros;
+        return row;
+    }
+
+    /**
+     * Looks a name up in the dictionary, adding it if it is new.
+     *
+     * @param name the name
+     * @return the name reference
+     */
+    private int internName(String name) {
+        Integer code = nameCodes.get(name);
+        if (code == null) {
+            if (nameCount == names.length) {
+                names = Arrays.copyOf(names, nameCount * 2);
+            }
+            code = nameCount;
+            names[nameCount++] = name;
+            nameCodes.put(name, code);
+        }
+        return code;
+    }
+
+    /** Doubles the capacity of every column. */
+    private void grow() {
+        int capacity = ids.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        payRateCents = Arrays.copyOf(payRateCents, capacity);
+        pretaxCents = Arrays.copyOf(pretaxCents, capacity);
+        ytdEarningsMicros = Arrays.copyOf(ytdEarningsMicros, capacity);
+        ytdTaxesMicros = Arrays.copyOf(ytdTaxesMicros, capacity);
+        if (taxPolicies != null) {
+            taxPolicies = Arrays.copyOf(taxPolicies, capacity);
+        }
+    }
+
+    /** @return the number of employees in the table. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the row of an employee.
+     *
+     * @param id the employee ID
+     * @return the row, or -1 if there is no such employee
+     */
+    public int rowOf(String id) {
+        Integer row = rowsById.get(id);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Gets a flyweight view of a row.
+     *
+     * @param row the row
+     * @return an {@code IEmployee} backed by the table
+     * @throws IndexOutOfBoundsException if the row is not in the table
+     */
+    public EmployeeView get(int row) {
+        return new EmployeeView(this, checkRow(row));
+    }
+
+    /**
+     * Gets all rows as {@code IEmployee} views, so the table can be used where a list of
+     * employees is expected, for example by {@link EmployeeRegistry}.
+     *
+     * @return a read-only list of views
+     */
+    public List<IEmployee> asList() {
+        return new AbstractList<>() {
+            @Override
+            public IEmployee get(int index) {
+                return EmployeeTable.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Runs payroll for a range of rows in one pass over the columns.
+     * <p>
+     * Rows with negative scaled hours have no time card and are skipped; their outputs are
+     * set to -1. Paid rows get their net pay and taxes written to the output arrays, and their
+     * YTD columns updated. While every row has the flat tax, the pay is worked out for the
+     * whole range at once by {@link BatchPayroll}, which uses the Vector API when it can.
+     * </p>
+     *
+     * @param from        first row, inclusive
+     * @param to          last row, exclusive
+     * @param scaledHours hours worked per row, in ten-thousandths (see
+     *                    {@link FixedPointPayroll#toScaledHours(double)})
+     * @param netMicros   receives net pay per row, in micro-dollars
+     * @param taxMicros   receives taxes per row, in micro-dollars
+     * @return the number of rows paid
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    public int runPayroll(int from, int to, long[] scaledHours, long[] netMicros, long[] taxMicros) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " of " + size);
+        }
+        if (taxPolicies == null) {
+            int paid = payFlatTax(from, to, scaledHours, netMicros, taxMicros);
+            for (int row = from; row < to; row++) {
+                if (scaledHours[row] >= 0) {
+                    ytdEarningsMicros[row] = Math.addExact(ytdEarningsMicros[row], netMicros[row]);
+                    ytdTaxesMicros[row] = Math.addExact(ytdTaxesMicros[row], taxMicros[row]);
+                }
+            }
+            return paid;
+        }
+        int paid = 0;
+        for (int row = from; row < to; row++) {
+            long hours = scaledHours[row];
+            if (hours < 0) {
+                netMicros[row] = -1;
+                taxMicros[row] = -1;
+                continue;
+            }
+            long gross = types[row] == EmployeeType.HOURLY.ordinal()
+                    ? FixedPointPayroll.hourlyGrossCents(payRateCents[row], hours)
+                    : FixedPointPayroll.salaryGrossCents(payRateCents[row]);
+            long taxable = FixedPointPayroll.taxableCents(gross, pretaxCents[row]);
+            long taxes = taxMicrosOf(row, taxable);
+            long net = FixedPointPayroll.netMicros(taxable, taxes);
+            netMicros[row] = net;
+            taxMicros[row] = taxes;
+            ytdEarningsMicros[row] = Math.addExact(ytdEarningsMicros[row], net);
+            ytdTaxesMicros[row] = Math.addExact(ytdTaxesMicros[row], taxes);
+            paid++;
+        }
+        return paid;
+    }
+
+    /** @return true while every row has the flat tax, so {@link BatchPayroll} can pay them. */
+    boolean hasFlatTax() {
+        return taxPolicies == null;
+    }
+
+    /**
+     * Works out one period's net pay and taxes for a range of rows at the flat tax with
+     * {@link BatchPayroll}, leaving the YTD columns alone. Rows with negative scaled hours get
+     * outputs of -1.
+     *
+     * @param from        first row, inclusive
+     * @param to          last row, exclusive
+     * @param scaledHours hours worked per row, in ten-thousandths
+     * @param netMicros   receives net pay per row, in micro-dollars
+     * @param taxMicros   receives taxes per row, in micro-dollars
+     * @return the number of rows paid
+     * @throws IllegalStateException if a row has another tax policy
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    int payFlatTax(int from, int to, long[] scaledHours, long[] netMicros, long[] taxMicros) {
+        if (taxPolicies != null) {
+            throw new IllegalStateException("Rows have tax policies other than the flat tax.");
+        }
+        return BatchPayroll.compute(from, to, types, payRateCents, pretaxCents, scaledHours,
+                netMicros, taxMicros);
+    }
+
+    /**
+     * Checks that a row is in the table.
+     *
+     * @param row the row
+     * @return the row
+     * @throws IndexOutOfBoundsException if the row is not in the table
+     */
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    /**
+     * Gets the type of a row.
+     *
+     * @param row the row
+     * @return the employee type
+     */
+    EmployeeType typeOf(int row) {
+        return TYPES[types[row]];
+    }
+
+    /**
+     * Gets the name of a row.
+     *
+     * @param row the row
+     * @return the name
+     */
+    String nameOf(int row) {
+        return names[nameRefs[row]];
+    }
+
+    /**
+     * Gets the ID of a row.
+     *
+     * @param row the row
+     * @return the ID
+     */
+    String idOf(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Gets the pay rate of a row.
+     *
+     * @param row the row
+     * @return the pay rate in cents
+     */
+    long payRateCentsOf(int row) {
+        return payRateCents[row];
+    }
+
+    /**
+     * Gets the pretax deductions of a row.
+     *
+     * @param row the row
+     * @return the pretax deductions in cents
+     */
+    long pretaxCentsOf(int row) {
+        return pretaxCents[row];
+    }
+
+    /**
+     * Gets the YTD earnings of a row.
+     *
+     * @param row the row
+     * @return the YTD earnings in micro-dollars
+     */
+    long ytdEarningsMicrosOf(int row) {
+        return ytdEarningsMicros[row];
+    }
+
+    /**
+     * Gets the YTD taxes paid of a row.
+     *
+     * @param row the row
+     * @return the YTD taxes paid in micro-dollars
+     */
+    long ytdTaxesMicrosOf(int row) {
+        return ytdTaxesMicros[row];
+    }
+
+    /**
+     * Gets the tax policy of a row.
+     *
+     * @param row the row
+     * @return the tax policy, {@link TaxPolicy#FLAT} unless another one was set
+     */
+    TaxPolicy taxPolicyOf(int row) {
+        TaxPolicy policy = taxPolicies == null ? null : taxPolicies[row];
+        return policy == null ? TaxPolicy.FLAT : policy;
+    }
+
+    /**
+     * Sets the tax policy of a row.
+     *
+     * @param row       the row
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    void setTaxPolicy(int row, TaxPolicy taxPolicy) {
+        if (taxPolicy == null) {
+            throw new IllegalArgumentException("Tax policy cannot be null.");
+        }
+        if (taxPolicies == null) {
+            taxPolicies = new TaxPolicy[ids.length];
+        }
+        taxPolicies[checkRow(row)] = taxPolicy;
+    }
+
+    /**
+     * Works out a row's taxes with its tax policy.
+     *
+     * @param row          the row
+     * @param taxableCents taxable pay in cents
+     * @return taxes in micro-dollars
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    long taxMicrosOf(int row, long taxableCents) {
+        TaxPolicy policy = taxPolicyOf(row);
+        long ytdTaxable = policy.usesYtd()
+                ? Math.addExact(ytdEarningsMicros[row], ytdTaxesMicros[row]) : 0;
+        return policy.taxMicros(taxableCents, ytdTaxable);
+    }
+
+    /**
+     * Adds one pay period to the YTD totals of a row.
+     *
+     * @param row       the row
+     * @param netMicros net pay in micro-dollars
+     * @param taxMicros taxes in micro-dollars
+     */
+    void addToYTD(int row, long netMicros, long taxMicros) {
+        ytdEarningsMicros[row] = Math.addExact(ytdEarningsMicros[row], netMicros);
+        ytdTaxesMicros[row] = Math.addExact(ytdTaxesMicros[row], taxMicros);
+    }
+}
@@ -0,0 +1,216 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * A lightweight {@code IEmployee} view of one row of an {@link EmployeeTable}.
+ * <p>
+ * A view only holds the table and the row index, so it is cheap to create on demand. All reads
+ * and payroll updates go straight to the table's columns, and the results are the same as for
+ * an {@link HourlyEmployee} or {@link SalaryEmployee} with the same values.
+ * </p>
+ */
+public final class EmployeeView implements IEmployee {
+    /** The table holding the data. */
+    private final EmployeeTable table;
+    /** The row of this employee. */
+    private final int row;
+
+    /**
+     * Creates a view of a table row.
+     *
+     * @param table the table
+     * @param row   the row
+     */
+    EmployeeView(EmployeeTable table, int row) {
+        this.table = table;
+        this.row = row;
+    }
+
+    /** @return the row of this employee in its table. */
+    public int getRow() {
+        return row;
+    }
+
+    /** @return the table holding this employee. */
+    EmployeeTable getTable() {
+        return table;
+    }
+
+    /** @return Employee's name. */
+    @Override
+    public String getName() {
+        return table.nameOf(row);
+    }
+
+    /** @return Employee's ID. */
+    @Override
+    public String getID() {
+        return table.idOf(row);
+    }
+
+    /** @return Employee's pay rate as a double. */
+    @Override
+    public double getPayRate() {
+        return table.payRateCentsOf(row) / 100.0;
+    }
+
+    /** @return Employee type (HOURLY or SALARY). */
+    @Override
+    public String getEmployeeType() {
+        return table.typeOf(row).name();
+    }
+
+    /** @return Year-to-date earnings as a double. */
+    @Override
+    public double getYTDEarnings() {
+        return table.ytdEarningsMicrosOf(row) / (double) Money.MICROS_PER_DOLLAR;
+    }
+
+    /** @return Year-to-date taxes paid as a double. */
+    @Override
+    public double getYTDTaxesPaid() {
+        return table.ytdTaxesMicrosOf(row) / (double) Money.MICROS_PER_DOLLAR;
+    }
+
+    /** @return Pretax deductions as a double. */
+    @Override
+    public double getPretaxDeductions() {
+        return table.pretaxCentsOf(row) / 100.0;
+    }
+
+    /**
+     * Runs payroll for this employee and updates the YTD columns of the table.
+     *
+     * @param hoursWorked The number of hours worked.
+     * @return The employee's pay stub, or null if the hours are negative.
+     */
+    @Override
+    public IPayStub runPayroll(double hoursWorked) {
+        if (hoursWorked < 0) {
+            return null;
+        }
+        long taxableCents = taxableCents(hoursWorked);
+        long taxMicros = table.taxMicrosOf(row, taxableCents);
+        long netMicros = FixedPointPayroll.netMicros(taxableCents, taxMicros);
+        table.addToYTD(row, netMicros, taxMicros);
+
+        return new PayStub(this, Money.fromMicros(netMicros), Money.fromMicros(taxMicros),
+                Money.fromMicros(table.ytdEarningsMicrosOf(row)),
+                Money.fromMicros(table.ytdTaxesMicrosOf(row)));
+    }
+
+    /**
+     * Runs payroll and fills in a row of a pay stub buffer instead of creating a
+     * {@code PayStub}. The amounts are the same as {@link #runPayroll(double)}.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @param stubs       The buffer to fill in.
+     * @param stubRow     The row of the buffer to fill in.
+     */
+    void runPayroll(double hoursWorked, PayStubBuffer stubs, int stubRow) {
+        long taxableCents = taxableCents(hoursWorked);
+        long taxMicros = table.taxMicrosOf(row, taxableCents);
+        long netMicros = FixedPointPayroll.netMicros(taxableCents, taxMicros);
+        table.addToYTD(row, netMicros, taxMicros);
+        stubs.set(stubRow, this, netMicros, taxMicros, table.ytdEarningsMicrosOf(row),
+                table.ytdTaxesMicrosOf(row));
+    }
+
+    /**
+     * Works out the taxable pay of this employee.
+     *
+     * @param hoursWorked The number of hours worked, not negative.
+     * @return Taxable pay in cents.
+     */
+    private long taxableCents(double hoursWorked) {
+        long grossCents;
+        if (table.typeOf(row) == EmployeeType.SALARY) {
+            grossCents = FixedPointPayroll.salaryGrossCents(table.payRateCentsOf(row));
+        } else {
+            long scaledHours = FixedPointPayroll.toScaledHours(hoursWorked);
+            grossCents = scaledHours != FixedPointPayroll.NOT_EXACT
+                    ? FixedPointPayroll.hourlyGrossCents(table.payRateCentsOf(row), scaledHours)
+                    // hours with many decimals: gross pay is still whole cents, so let the
+                    // BigDecimal code work it out once
+                    : Money.toCents(toEmployee().calculateGrossPay(hoursWorked));
+        }
+        return FixedPointPayroll.taxableCents(grossCents, table.pretaxCentsOf(row));
+    }
+
+    /** @return how the employee's taxes are worked out. */
+    public TaxPolicy getTaxPolicy() {
+        return table.taxPolicyOf(row);
+    }
+
+    /**
+     * Sets how the employee's taxes are worked out from the next payroll run on.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public void setTaxPolicy(TaxPolicy taxPolicy) {
+        table.setTaxPolicy(row, taxPolicy);
+    }
+
+    /**
+     * Copies this row into a standalone employee object.
+     *
+     * @return an {@code HourlyEmployee} or {@code SalaryEmployee} with the same values
+     */
+    public EmployeeBigDecimal toEmployee() {
+        BigDecimal payRate = BigDecimal.valueOf(table.payRateCentsOf(row), 2);
+        BigDecimal pretax = BigDecimal.valueOf(table.pretaxCentsOf(row), 2);
+        BigDecimal earnings = Money.fromMicros(table.ytdEarningsMicrosOf(row));
+        BigDecimal taxes = Money.fromMicros(table.ytdTaxesMicrosOf(row));
+        EmployeeBigDecimal employee;
+        if (table.typeOf(row) == EmployeeType.HOURLY) {
+            employee = new HourlyEmployee(getName(), getID(), payRate, earnings, taxes, pretax);
+        } else {
+            employee = new SalaryEmployee(getName(), getID(), payRate, earnings, taxes, pretax);
+        }
+        employee.setTaxPolicy(table.taxPolicyOf(row));
+        return employee;
+    }
+
+    /**
+     * Converts employee data to a CSV string.
+     * Format: "employeeType,name,id,payRate,pretaxDeductions,ytdEarnings,ytdTaxesPaid"
+     *
+     * @return CSV representation of the employee.
+     */
+    @Override
+    public String toCSV() {
+        return CsvEmitter.local().begin()
+                .field(table.typeOf(row)).field(getName()).field(getID())
+                .cents(table.payRateCentsOf(row))
+                .cents(table.pretaxCentsOf(row))
+                .micros(table.ytdEarningsMicrosOf(row))
+                .micros(table.ytdTaxesMicrosOf(row))
+                .toString();
+    }
+
+    /**
+     * Two views are equal if they show the same row of the same table.
+     *
+     * @param o the object to compare with
+     * @return true if both views show the same row
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EmployeeView)) {
+            return false;
+        }
+        EmployeeView other = (EmployeeView) o;
+        return table == other.table && row == other.row;
+    }
+
+    /** @return a hash of the table and row. */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(table) * 31 + row;
+    }
+}
@@ -3,12 +3,19 @@ package student;
 // note: java.nio was introduced in Java 17.
 // if you have an older version of Java, you will either
 // want to update, or convert this code to use Buffered reader
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.Path;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Contains simple utilities for reading in a file. You are free to modify this
@@ -23,6 +30,9 @@ public final class FileUtil {
     /** header line required when writing out to the pay stub file. */
     public static final String PAY_STUB_HEADER = "employee_name,net_pay,taxes,ytd_earnings,ytd_taxes_paid";
 
+    /** size in chars of the buffer used when streaming a file, so memory stays bounded. */
+    public static final int READ_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -39,15 +49,45 @@ public final class FileUtil {
      */
     public static List<String> readFileToList(String file) {
         List<String> lines = Collections.emptyList();
-        try {
-            lines = Files.readAllLines(Path.of(file));
-            lines.remove(0); // remove the header line
-        } catch (IOException e) {
+        try (Stream<String> stream = streamLines(file)) {
+            lines = stream.collect(Collectors.toCollection(ArrayList::new));
+        } catch (UncheckedIOException e) {
             System.err.println("Error reading employee file: " + e.getMessage());
         }
         return lines;
     }
 
+    /**
+     * Lazily streams the lines of a text file, skipping the header line.
+     * <p>
+     * Lines are read on demand through a fixed size buffer, so the whole file is never
+     * held in memory. The stream must be closed to release the file, ideally with a
+     * try-with-resources block. Read errors after the file is opened are thrown as
+     * {@code UncheckedIOException} by the stream operations.
+     * </p>
+     *
+     * @param file the file name
+     * @return a stream of the lines after the header, or an empty stream if the file
+     *         cannot be opened
+     */
+    public static Stream<String> streamLines(String file) {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(Files.newInputStream(Path.of(file)),
+                    StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return Stream.empty();
+        }
+        return reader.lines().skip(1).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     /**
      * Writes the lines to the file. Will backup teh file if it exists.
      * 
@@ -66,25 +106,75 @@ public final class FileUtil {
      * @param backup  if true, will backup the file if it exists
      */
     public static void writeFile(String outFile, List<String> lines, boolean backup) {
-        if (backup) {
-            try {
-                // check for existence
-                if (Files.exists(Path.of(outFile))) {
-                    // it is alright to overwrite the backup
-                    Files.move(Path.of(outFile), Path.of(outFile + ".bak"),
-                            StandardCopyOption.REPLACE_EXISTING);
-                }
-            } catch (IOException e) {
-                System.err.println("Error backing up file: " + e.getMessage());
-                e.printStackTrace();
-                return; // don't write the file if we can't back it up
-            }
+        LineWriter writer = openWriter(outFile, backup);
+        if (writer == null) {
+            return;
+        }
+        try (writer) {
+            writer.writeLines(lines);
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + e.getMessage());
         }
+    }
 
+    /**
+     * Opens a file so lines can be written to it one at a time, as they are produced.
+     * The file is backed up first, the same as {@link #writeFile(String, List, boolean)}.
+     * The writer must be closed to flush the last lines.
+     * 
+     * @param outFile the file name
+     * @param backup  if true, will backup the file if it exists
+     * @return the writer, or null if the file could not be backed up or opened
+     */
+    public static LineWriter openWriter(String outFile, boolean backup) {
+        if (backup && !backup(outFile)) {
+            return null; // don't write the file if we can't back it up
+        }
         try {
-            Files.write(Path.of(outFile), lines);
+            return new LineWriter(Path.of(outFile), LineWriter.DEFAULT_BUFFER_SIZE);
         } catch (IOException e) {
             System.err.println("Error writing to file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens a file so it can be replaced atomically: lines go to a temporary file that only
+     * replaces the real file when {@link AtomicLineWriter#commit()} is called, after it has
+     * been synced to disk. If the program stops before that, the old file is left intact.
+     * 
+     * @param outFile the file name
+     * @param backups number of rolling backups to keep, 1 keeps a single .bak file
+     * @return the writer, or null if the temporary file could not be created
+     */
+    public static AtomicLineWriter openAtomicWriter(String outFile, int backups) {
+        try {
+            return AtomicLineWriter.open(Path.of(outFile), backups);
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Moves the file to a .bak file next to it, if it exists.
+     * 
+     * @param outFile the file name
+     * @return true if the file was backed up or did not exist
+     */
+    private static boolean backup(String outFile) {
+        try {
+            // check for existence
+            if (Files.exists(Path.of(outFile))) {
+                // it is alright to overwrite the backup
+                Files.move(Path.of(outFile), Path.of(outFile + ".bak"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error backing up file: " + e.getMessage());
+            e.printStackTrace();
+            return false;
         }
     }
 }
@@ -0,0 +1,111 @@
+package student;
+
+/**
+ * Payroll arithmetic on scaled {@code long} values (see {@link Money}).
+ * <p>
+ * Each step mirrors the {@code BigDecimal} calculation in {@link EmployeeBigDecimal},
+ * {@link HourlyEmployee} and {@link SalaryEmployee}, including where HALF_UP rounding
+ * happens, so both give exactly the same amounts. The methods never allocate. They use
+ * exact arithmetic and throw {@code ArithmeticException} on overflow, so callers can fall
+ * back to {@code BigDecimal} for amounts that do not fit.
+ * </p>
+ */
+public final class FixedPointPayroll {
+    /** The fixed tax rate in basis points (22.65%). */
+    public static final long TAX_RATE_BASIS_POINTS = 2265L;
+    /** Basis points in one whole. */
+    public static final long BASIS_POINTS = 10_000L;
+    /** Hours are held in ten-thousandths of an hour. */
+    public static final long HOURS_SCALE = 10_000L;
+    /** Standard hours per week before overtime applies, in ten-thousandths. */
+    public static final long OVERTIME_HOURS = 40 * HOURS_SCALE;
+    /** Number of pay periods per year for salaried employees. */
+    public static final long PAY_PERIODS_PER_YEAR = 24L;
+    /** Returned by {@link #toScaledHours(double)} when hours cannot be held exactly. */
+    public static final long NOT_EXACT = -1L;
+    /** Largest number of hours handled, far above any real pay period. */
+    private static final double MAX_HOURS = 1_000_000.0;
+
+    /** Private constructor to prevent instantiation of this utility class. */
+    private FixedPointPayroll() {
+    }
+
+    /**
+     * Converts hours to ten-thousandths of an hour.
+     * This only succeeds when the decimal value {@code BigDecimal.valueOf(hours)} sees has at
+     * most four decimal places, so the scaled value is exactly what the {@code BigDecimal}
+     * code would multiply by.
+     *
+     * @param hours the hours worked
+     * @return the hours in ten-thousandths, or {@link #NOT_EXACT}
+     */
+    public static long toScaledHours(double hours) {
+        if (!(hours >= 0 && hours < MAX_HOURS)) {
+            return NOT_EXACT;
+        }
+        long scaled = Math.round(hours * HOURS_SCALE);
+        return scaled / (double) HOURS_SCALE == hours ? scaled : NOT_EXACT;
+    }
+
+    /**
+     * Calculates hourly gross pay, with hours past 40 paid at 1.5 times the rate.
+     *
+     * @param payRateCents the hourly rate in cents
+     * @param scaledHours  the hours worked in ten-thousandths
+     * @return the gross pay in cents, rounded half up
+     * @throws ArithmeticException if the amount does not fit a long
+     */
+    public static long hourlyGrossCents(long payRateCents, long scaledHours) {
+        // paid hours in hundred-thousandths, so the 1.5 overtime factor stays whole
+        long paidHours = scaledHours <= OVERTIME_HOURS
+                ? scaledHours * 10
+                : OVERTIME_HOURS * 10 + (scaledHours - OVERTIME_HOURS) * 15;
+        // cents times hundred-thousandths of an hour is cents scaled by 100,000
+        return Money.divideHalfUp(Math.multiplyExact(payRateCents, paidHours), 100_000L);
+    }
+
+    /**
+     * Calculates gross pay for one salary period.
+     *
+     * @param annualSalaryCents the annual salary in cents
+     * @return the gross pay in cents, rounded half up
+     */
+    public static long salaryGrossCents(long annualSalaryCents) {
+        return Money.divideHalfUp(annualSalaryCents, PAY_PERIODS_PER_YEAR);
+    }
+
+    /**
+     * Calculates the amount that is taxed, never below zero.
+     *
+     * @param grossCents   the gross pay in cents
+     * @param pretaxCents  the pretax deductions in cents
+     * @return the taxable amount in cents
+     */
+    public static long taxableCents(long grossCents, long pretaxCents) {
+        return Math.max(0L, Math.subtractExact(grossCents, pretaxCents));
+    }
+
+    /**
+     * Calculates taxes on the taxable amount.
+     *
+     * @param taxableCents the taxable amount in cents
+     * @return the taxes in micro-dollars, exact
+     * @throws ArithmeticException if the amount does not fit a long
+     */
+    public static long taxMicros(long taxableCents) {
+        // cents times basis points is micro-dollars
+        return Math.multiplyExact(taxableCents, TAX_RATE_BASIS_POINTS);
+    }
+
+    /**
+     * Calculates net pay, never below zero.
+     *
+     * @param taxableCents the taxable amount in cents
+     * @param taxMicros    the taxes in micro-dollars
+     * @return the net pay in micro-dollars, exact
+     * @throws ArithmeticException if the amount does not fit a long
+     */
+    public static long netMicros(long taxableCents, long taxMicros) {
+        return Math.max(0L, Math.multiplyExact(taxableCents, Money.MICROS_PER_CENT) - taxMicros);
+    }
+}
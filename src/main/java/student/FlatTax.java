@@ -0,0 +1,29 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * The flat tax, 22.65% of the taxable pay. The {@code BigDecimal} form keeps every decimal
+ * place of the product, as payroll always has.
+ */
+final class FlatTax implements TaxPolicy {
+    /** The fixed tax rate used in payroll calculations. */
+    private static final BigDecimal TAX_RATE = BigDecimal.valueOf(
+            FixedPointPayroll.TAX_RATE_BASIS_POINTS, 4);
+
+    @Override
+    public long taxMicros(long taxableCents, long ytdTaxableMicros) {
+        return FixedPointPayroll.taxMicros(taxableCents);
+    }
+
+    @Override
+    public BigDecimal tax(BigDecimal taxable, BigDecimal ytdTaxable) {
+        return taxable.multiply(TAX_RATE);
+    }
+
+    /** @return a short description. */
+    @Override
+    public String toString() {
+        return "flat " + TAX_RATE.movePointRight(2) + "%";
+    }
+}
@@ -89,4 +89,20 @@ public class HourlyEmployee extends EmployeeBigDecimal {
 
         return grossPay.setScale(2, RoundingMode.HALF_UP);
     }
+
+    /**
+     * Calculates gross pay in cents with {@code long} arithmetic, matching
+     * {@link #calculateGrossPay(double)} exactly.
+     *
+     * @param hoursWorked Number of hours worked in the pay period.
+     * @return Gross pay in cents, or {@code NO_FIXED_POINT} if the hours are not exact.
+     */
+    @Override
+    protected long calculateGrossPayCents(double hoursWorked) {
+        long scaledHours = FixedPointPayroll.toScaledHours(hoursWorked);
+        if (scaledHours == FixedPointPayroll.NOT_EXACT) {
+            return NO_FIXED_POINT;
+        }
+        return FixedPointPayroll.hourlyGrossCents(getPayRateCents(), scaledHours);
+    }
 }
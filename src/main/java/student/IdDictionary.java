@@ -0,0 +1,223 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * A dictionary that gives every employee ID a dense {@code int} key, 0, 1, 2 and so on in the
+ * order the IDs were added.
+ * <p>
+ * The IDs are kept as characters in one shared {@code char[]}, and the lookup table is an
+ * open-addressing hash table of plain {@code int}s, probed linearly. Nothing is boxed and no
+ * {@code String} is kept per ID, so a million IDs cost a few arrays instead of a million
+ * strings and hash map entries. An ID can be looked up straight from part of a CSV line, so
+ * the time card parser resolves a card to its employee without creating the ID string.
+ * </p>
+ * <p>
+ * Adding IDs is not thread safe. Once filled, a dictionary may be read from any number of
+ * threads.
+ * </p>
+ */
+public final class IdDictionary {
+    /** Slot value of an empty table slot; used slots hold the key plus one. */
+    private static final int EMPTY = 0;
+    /** Smallest table size, a power of two. */
+    private static final int MIN_TABLE_SIZE = 16;
+
+    /** Characters of every ID, back to back. */
+    private char[] chars;
+    /** Start of each key's ID in {@link #chars}; key {@code k} ends where {@code k + 1} starts. */
+    private int[] starts;
+    /** Hash of each key's ID, so growing the table does not rehash the characters. */
+    private int[] hashes;
+    /** Hash table of key plus one, {@link #EMPTY} for a free slot; its size is a power of two. */
+    private int[] table;
+    /** Number of keys. */
+    private int size;
+
+    /**
+     * Creates an empty dictionary.
+     *
+     * @param expected the number of IDs expected, so the arrays are sized once
+     * @throws IllegalArgumentException if expected is negative
+     */
+    public IdDictionary(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        this.hashes = new int[Math.max(1, expected)];
+        this.starts = new int[hashes.length + 1];
+        this.chars = new char[Math.max(16, expected * 8)];
+        this.table = new int[tableSizeFor(expected)];
+    }
+
+    /**
+     * Adds an ID.
+     *
+     * @param id the ID
+     * @return the new key, or -1 if the ID is already in the dictionary
+     */
+    public int add(CharSequence id) {
+        int hash = hash(id, 0, id.length());
+        int slot = findSlot(id, 0, id.length(), hash);
+        if (table[slot] != EMPTY) {
+            return -1;
+        }
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            starts = Arrays.copyOf(starts, size * 2 + 1);
+        }
+        int start = starts[size];
+        if (start + id.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + id.length()));
+        }
+        for (int i = 0; i < id.length(); i++) {
+            chars[start + i] = id.charAt(i);
+        }
+        starts[size + 1] = start + id.length();
+        hashes[size] = hash;
+        table[slot] = size + 1;
+        size++;
+        // keep the table at most half full, so probes stay short
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Finds the key of an ID.
+     *
+     * @param id the ID
+     * @return the key, or -1 if the ID is not in the dictionary
+     */
+    public int find(CharSequence id) {
+        return find(id, 0, id.length());
+    }
+
+    /**
+     * Finds the key of an ID held in part of a character sequence, such as a field of a CSV
+     * line, without copying it.
+     *
+     * @param text  the characters
+     * @param start index of the first character of the ID
+     * @param end   index after the last character of the ID
+     * @return the key, or -1 if the ID is not in the dictionary
+     */
+    public int find(CharSequence text, int start, int end) {
+        int slot = findSlot(text, start, end, hash(text, start, end));
+        return table[slot] - 1;
+    }
+
+    /**
+     * Gets the ID of a key. The string is created on each call.
+     *
+     * @param key the key
+     * @return the ID
+     * @throws IndexOutOfBoundsException if the key is not in the dictionary
+     */
+    public String idOf(int key) {
+        if (key < 0 || key >= size) {
+            throw new IndexOutOfBoundsException("Key " + key + " of " + size);
+        }
+        return new String(chars, starts[key], starts[key + 1] - starts[key]);
+    }
+
+    /** @return the number of IDs. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Probes the table for an ID.
+     *
+     * @param text  the characters
+     * @param start index of the first character of the ID
+     * @param end   index after the last character of the ID
+     * @param hash  the hash of the ID
+     * @return the slot holding the ID, or the empty slot where it would go
+     */
+    private int findSlot(CharSequence text, int start, int end, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY) {
+            int key = table[slot] - 1;
+            if (hashes[key] == hash && matches(key, text, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Compares a key's ID with a range of characters.
+     *
+     * @param key   the key
+     * @param text  the characters
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return true if they are the same
+     */
+    private boolean matches(int key, CharSequence text, int start, int end) {
+        int from = starts[key];
+        if (starts[key + 1] - from != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (chars[from++] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves every key to a larger table.
+     *
+     * @param tableSize the new table size, a power of two
+     */
+    private void rehash(int tableSize) {
+        int[] grown = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int key = 0; key < size; key++) {
+            int slot = hashes[key] & mask;
+            while (grown[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = key + 1;
+        }
+        table = grown;
+    }
+
+    /**
+     * Hashes a range of characters, mixing the bits so similar IDs such as {@code s192} and
+     * {@code s193} land far apart.
+     *
+     * @param text  the characters
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return the hash
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Works out a table size that holds a number of keys at most half full.
+     *
+     * @param keys the number of keys
+     * @return the table size, a power of two
+     */
+    private static int tableSizeFor(int keys) {
+        int size = MIN_TABLE_SIZE;
+        while (size < keys * 2) {
+            size *= 2;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,68 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * A time card whose employee ID was resolved to its key in an {@link IdDictionary} when the
+ * line was parsed.
+ * <p>
+ * The card keeps the dictionary and the key instead of the ID string, so joining it to its
+ * employee is an array access. The ID string is only created if {@link #getEmployeeID()} is
+ * called.
+ * </p>
+ */
+final class IndexedTimeCard implements ITimeCard {
+    /** The dictionary the key belongs to. */
+    private final IdDictionary ids;
+    /** The key of the employee's ID. */
+    private final int key;
+    /** The number of hours worked in the pay period. */
+    private final BigDecimal hoursWorked;
+
+    /**
+     * Creates a time card.
+     *
+     * @param ids         the dictionary the key belongs to
+     * @param key         the key of the employee's ID
+     * @param hoursWorked the number of hours worked, not negative
+     */
+    IndexedTimeCard(IdDictionary ids, int key, BigDecimal hoursWorked) {
+        this.ids = ids;
+        this.key = key;
+        this.hoursWorked = hoursWorked;
+    }
+
+    /**
+     * Gets the key of the employee's ID, valid in {@link #getIds()} only.
+     *
+     * @return the key
+     */
+    int getKey() {
+        return key;
+    }
+
+    /** @return the dictionary the key belongs to. */
+    IdDictionary getIds() {
+        return ids;
+    }
+
+    /**
+     * Gets the employee ID. The string is created on each call.
+     *
+     * @return the employee ID
+     */
+    @Override
+    public String getEmployeeID() {
+        return ids.idOf(key);
+    }
+
+    /**
+     * Gets the hours worked by the employee.
+     *
+     * @return the hours worked as a double
+     */
+    @Override
+    public double getHoursWorked() {
+        return hoursWorked.doubleValue();
+    }
+}
@@ -0,0 +1,324 @@
+package student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An employee file that only builds the employees payroll actually looks up.
+ * <p>
+ * Opening the file maps it into memory and makes one light pass over it, recording where each
+ * line starts and ends and reading only the ID field. An {@code IEmployee} is parsed from its
+ * line the first time it is looked up. When the file is written back, employees that were
+ * looked up are written with {@link IEmployee#toCSV()} and every other line is copied byte for
+ * byte, so a run that touches 1% of the staff parses 1% of the file.
+ * </p>
+ * <p>
+ * Only the ID of each line is checked when the file is opened; any other problem with a line
+ * is reported, with its line number, when that employee is first looked up. The file is not
+ * thread safe, so look employees up from one thread.
+ * </p>
+ */
+public class LazyEmployeeFile implements EmployeeSource {
+    /** Field separator. */
+    private static final byte SEPARATOR = ',';
+    /** Index of the ID field. */
+    private static final int ID_FIELD = 2;
+
+    /**
+     * Builds the employee on one line of the file.
+     */
+    @FunctionalInterface
+    interface Loader {
+        /**
+         * Builds an employee.
+         *
+         * @param file  the file
+         * @param index the index of the employee line
+         * @return the employee
+         * @throws IllegalArgumentException if the line is invalid
+         */
+        IEmployee load(LazyEmployeeFile file, int index);
+    }
+
+    /** Parses the line with {@link Builder}. */
+    private static final Loader PARSE = (file, index) ->
+            Builder.buildEmployeeFromCSV(file.lineAt(index), index + 2);
+
+    /** The mapped file. */
+    private final ByteBuffer bytes;
+    /** Start of each employee line. */
+    private int[] starts;
+    /** End of each employee line, without the line separator. */
+    private int[] ends;
+    /** ID of each employee line. */
+    private String[] ids;
+    /** Number of employee lines. */
+    private int count;
+    /** Line index of each employee ID. */
+    private final Map<String, Integer> byId;
+    /** Builds employees from their lines. */
+    private final Loader loader;
+    /** Employees built so far, by line index. */
+    private IEmployee[] employees;
+    /** Number of employees built so far. */
+    private int materialized;
+    /** Tax policy given to employees as they are built, or null for their own. */
+    private TaxPolicy taxPolicy;
+
+    /**
+     * Indexes the lines of a mapped file.
+     *
+     * @param bytes the file contents
+     * @throws IllegalArgumentException if a line has no ID or two lines share one
+     */
+    private LazyEmployeeFile(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.starts = new int[64];
+        this.ends = new int[64];
+        this.ids = new String[64];
+        this.byId = new HashMap<>();
+        this.loader = PARSE;
+        index();
+        this.employees = new IEmployee[count];
+    }
+
+    /**
+     * Creates a fresh view of an already indexed file, with no employees built yet. The index
+     * is shared, not copied, so this is cheap.
+     *
+     * @param indexed the indexed file
+     * @param loader  builds employees from their lines
+     */
+    LazyEmployeeFile(LazyEmployeeFile indexed, Loader loader) {
+        this.bytes = indexed.bytes;
+        this.starts = indexed.starts;
+        this.ends = indexed.ends;
+        this.ids = indexed.ids;
+        this.count = indexed.count;
+        this.byId = indexed.byId;
+        this.loader = loader;
+        this.employees = new IEmployee[count];
+    }
+
+    /**
+     * Opens and indexes an employee file.
+     *
+     * @param file the employee file, with a header line
+     * @return the indexed file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line has no ID or two lines share one
+     */
+    public static LazyEmployeeFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Employee file too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LazyEmployeeFile(mapped);
+        }
+    }
+
+    /**
+     * Finds every line after the header and the ID on it.
+     */
+    private void index() {
+        int limit = bytes.limit();
+        int position = 0;
+        boolean header = true;
+        int[] commas = new int[ID_FIELD];
+        while (position < limit) {
+            int end = position;
+            int commaCount = 0;
+            while (end < limit && bytes.get(end) != '\n') {
+                if (bytes.get(end) == SEPARATOR && commaCount < commas.length) {
+                    commas[commaCount++] = end;
+                }
+                end++;
+            }
+            int next = end + 1;
+            if (end > position && bytes.get(end - 1) == '\r') {
+                end--;
+            }
+            if (!header) {
+                addLine(position, end, commas, commaCount);
+            }
+            header = false;
+            position = next;
+        }
+    }
+
+    /**
+     * Records one employee line and its ID.
+     *
+     * @param start      the start of the line
+     * @param end        the end of the line
+     * @param commas     the first two separators on the line
+     * @param commaCount how many of them were found
+     */
+    private void addLine(int start, int end, int[] commas, int commaCount) {
+        int lineNumber = count + 2;
+        if (commaCount < ID_FIELD) {
+            throw new IllegalArgumentException("Invalid employee CSV format. Expected 7 fields at line "
+                    + lineNumber + ".");
+        }
+        int idStart = commas[ID_FIELD - 1] + 1;
+        int idEnd = idStart;
+        while (idEnd < end && bytes.get(idEnd) != SEPARATOR) {
+            idEnd++;
+        }
+        // trim the same way CsvCursor does
+        while (idStart < idEnd && (bytes.get(idStart) & 0xFF) <= ' ') {
+            idStart++;
+        }
+        while (idEnd > idStart && (bytes.get(idEnd - 1) & 0xFF) <= ' ') {
+            idEnd--;
+        }
+        String id = decode(idStart, idEnd);
+        if (byId.putIfAbsent(id, count) != null) {
+            throw new IllegalArgumentException("Duplicate employee ID: " + id);
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        ids[count] = id;
+        count++;
+    }
+
+    /**
+     * Finds the employee with the given ID, building it from its line the first time.
+     *
+     * @param id the employee ID
+     * @return the employee, or {@code null} if no employee has that ID
+     * @throws IllegalArgumentException if the employee's line is invalid
+     */
+    @Override
+    public IEmployee get(String id) {
+        Integer index = byId.get(id);
+        return index == null ? null : get(index.intValue());
+    }
+
+    /**
+     * Gets the employee on a line, building it the first time.
+     *
+     * @param index the index of the employee line, 0 for the line after the header
+     * @return the employee
+     * @throws IllegalArgumentException if the line is invalid
+     */
+    public IEmployee get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Employee " + index + " of " + count);
+        }
+        IEmployee employee = employees[index];
+        if (employee == null) {
+            employee = loader.load(this, index);
+            if (taxPolicy != null) {
+                EmployeeRegistry.applyTaxPolicy(employee, taxPolicy);
+            }
+            employees[index] = employee;
+            materialized++;
+        }
+        return employee;
+    }
+
+    @Override
+    public int indexOf(String id) {
+        Integer index = byId.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Sets the tax policy of the employees built so far and of those built later.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    @Override
+    public void setTaxPolicy(TaxPolicy taxPolicy) {
+        if (taxPolicy == null) {
+            throw new IllegalArgumentException("Tax policy cannot be null.");
+        }
+        this.taxPolicy = taxPolicy;
+        for (IEmployee employee : employees) {
+            if (employee != null) {
+                EmployeeRegistry.applyTaxPolicy(employee, taxPolicy);
+            }
+        }
+    }
+
+    /** @return the number of employee lines. */
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /** @return the number of employees built so far. */
+    public int getMaterializedCount() {
+        return materialized;
+    }
+
+    /**
+     * Writes every employee line in file order. Employees that were looked up are written with
+     * {@link IEmployee#toCSV()}, all other lines are copied unchanged.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeCSV(LineWriter out) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (employees[i] != null) {
+                out.writeLine(employees[i].toCSV());
+            } else {
+                out.writeEncodedLine(bytes.slice(starts[i], ends[i] - starts[i]));
+            }
+        }
+    }
+
+    /**
+     * Gets the ID on an employee line.
+     *
+     * @param index the index of the employee line
+     * @return the ID
+     */
+    String idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Decodes an employee line.
+     *
+     * @param index the index of the employee line
+     * @return the line, without its line separator
+     */
+    String lineAt(int index) {
+        return decode(starts[index], ends[index]);
+    }
+
+    /** @return the mapped file contents, positioned at the start. */
+    ByteBuffer contents() {
+        return bytes.duplicate().clear();
+    }
+
+    /**
+     * Decodes part of the file.
+     *
+     * @param start the first byte
+     * @param end   the end, exclusive
+     * @return the text
+     */
+    private String decode(int start, int end) {
+        return StandardCharsets.UTF_8.decode(bytes.slice(start, end - start)).toString();
+    }
+}
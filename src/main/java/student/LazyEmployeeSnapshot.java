@@ -0,0 +1,201 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Employees served straight from a mapped {@link EmployeeSnapshot}, building each employee
+ * only when it is looked up.
+ * <p>
+ * Opening reads just the ID of every record into an {@link IdDictionary}; the rest of a record
+ * is read, and an employee object built with {@link EmployeeSnapshot#get(int)}, the first time
+ * the employee is looked up. When the employee file is written back, employees that were
+ * looked up are written with {@link IEmployee#toCSV()} and every other record is formatted
+ * from its columns, so a run that touches 1% of the staff builds 1% of the employees.
+ * </p>
+ * <p>
+ * Unlike {@link LazyEmployeeFile}, employees may be looked up from several threads at once,
+ * so parallel and pipelined runs can use it; every thread gets the same employee object.
+ * </p>
+ */
+public class LazyEmployeeSnapshot implements EmployeeSource {
+    /** The mapped snapshot. */
+    private final EmployeeSnapshot snapshot;
+    /** Employee IDs, keyed by record index. */
+    private final IdDictionary ids;
+    /** Employees built so far, by record index. */
+    private final AtomicReferenceArray<IEmployee> employees;
+    /** Tax policy of the employees built from now on, or null to keep the default. */
+    private volatile TaxPolicy taxPolicy;
+
+    /**
+     * Indexes the IDs of a snapshot.
+     *
+     * @param snapshot the snapshot
+     * @throws IllegalArgumentException if two records share an ID
+     */
+    public LazyEmployeeSnapshot(EmployeeSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.ids = new IdDictionary(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            String id = snapshot.idOf(i);
+            if (ids.add(id) < 0) {
+                throw new IllegalArgumentException("Duplicate employee ID: " + id);
+            }
+        }
+        this.employees = new AtomicReferenceArray<>(snapshot.size());
+    }
+
+    /**
+     * Finds the employee with the given ID, building it from its record the first time.
+     *
+     * @param id the employee ID
+     * @return the employee, or {@code null} if no employee has that ID
+     */
+    @Override
+    public IEmployee get(String id) {
+        int index = ids.find(id);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Finds the employee a time card belongs to.
+     *
+     * @param timeCard the time card
+     * @return the matching employee, or {@code null} if the time card is null or unmatched
+     */
+    @Override
+    public IEmployee get(ITimeCard timeCard) {
+        int index = indexOf(timeCard);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Gets the employee in a record, building it the first time. If two threads build the
+     * same employee at once, both get the one built first.
+     *
+     * @param index the index of the record
+     * @return the employee
+     */
+    public IEmployee get(int index) {
+        IEmployee employee = employees.get(index);
+        if (employee == null) {
+            EmployeeBigDecimal built = snapshot.get(index);
+            TaxPolicy policy = taxPolicy;
+            if (policy != null) {
+                built.setTaxPolicy(policy);
+            }
+            employee = employees.compareAndExchange(index, null, built);
+            if (employee == null) {
+                employee = built;
+            }
+        }
+        return employee;
+    }
+
+    @Override
+    public int indexOf(String id) {
+        return ids.find(id);
+    }
+
+    /**
+     * Finds the position of the employee a time card belongs to, by key if the card was
+     * resolved against these IDs.
+     *
+     * @param timeCard the time card
+     * @return the index of the employee, or -1 if the time card is null or unmatched
+     */
+    @Override
+    public int indexOf(ITimeCard timeCard) {
+        if (timeCard instanceof IndexedTimeCard) {
+            IndexedTimeCard indexed = (IndexedTimeCard) timeCard;
+            if (indexed.getIds() == ids) {
+                return indexed.getKey();
+            }
+        }
+        return timeCard == null ? -1 : indexOf(timeCard.getEmployeeID());
+    }
+
+    /** @return the employee IDs, keyed by record index. */
+    @Override
+    public IdDictionary getIds() {
+        return ids;
+    }
+
+    /**
+     * Sets the tax policy of the employees built so far and of those built later.
+     *
+     * @param taxPolicy the tax policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    @Override
+    public void setTaxPolicy(TaxPolicy taxPolicy) {
+        if (taxPolicy == null) {
+            throw new IllegalArgumentException("Tax policy cannot be null.");
+        }
+        this.taxPolicy = taxPolicy;
+        for (int i = 0; i < employees.length(); i++) {
+            IEmployee employee = employees.get(i);
+            if (employee != null) {
+                EmployeeRegistry.applyTaxPolicy(employee, taxPolicy);
+            }
+        }
+    }
+
+    /** @return the number of employees. */
+    @Override
+    public int size() {
+        return employees.length();
+    }
+
+    /** @return the number of employees built so far. */
+    public int getMaterializedCount() {
+        int materialized = 0;
+        for (int i = 0; i < employees.length(); i++) {
+            if (employees.get(i) != null) {
+                materialized++;
+            }
+        }
+        return materialized;
+    }
+
+    /**
+     * Writes every employee in snapshot order. Employees that were looked up are written with
+     * {@link IEmployee#toCSV()}, all others are formatted from their records.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeCSV(LineWriter out) throws IOException {
+        for (int i = 0; i < employees.length(); i++) {
+            IEmployee employee = employees.get(i);
+            out.writeLine(employee != null ? employee.toCSV() : snapshot.toCSV(i));
+        }
+    }
+
+    /**
+     * Writes a new snapshot of the employees as they are now. The new snapshot replaces the
+     * file atomically, so it can be the file this one is mapped from.
+     *
+     * @param snapshotFile the snapshot to write
+     * @param source       the CSV file holding the same employees
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a paid employee has amounts a snapshot cannot store
+     *                                  exactly
+     */
+    public void writeSnapshot(Path snapshotFile, Path source) throws IOException {
+        EmployeeTable table = new EmployeeTable(employees.length());
+        CsvCursor cursor = new CsvCursor();
+        for (int i = 0; i < employees.length(); i++) {
+            IEmployee employee = employees.get(i);
+            if (employee != null) {
+                table.addFromCSV(cursor.reset(employee.toCSV(), 0));
+            } else {
+                snapshot.copyTo(i, table);
+            }
+        }
+        EmployeeSnapshot.write(snapshotFile, table, source);
+    }
+}
@@ -0,0 +1,169 @@
+package student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes text lines to a file through one large direct buffer.
+ * <p>
+ * Lines are encoded as UTF-8 straight into the buffer and the buffer is handed to the file
+ * channel whenever it fills, so callers can write records as they are produced instead of
+ * collecting them all first. Each line ends with the system line separator, the same as
+ * {@code Files.write}. A writer is not thread safe.
+ * </p>
+ */
+public class LineWriter implements Closeable {
+    /** Default buffer size in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    /** Line separator written after every line. */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /** The file being written. */
+    private final FileChannel channel;
+    /** Bytes waiting to be written. */
+    private final ByteBuffer buffer;
+    /** Reused UTF-8 encoder. */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    /** Total bytes handed to the file so far. */
+    private long bytesWritten;
+
+    /**
+     * Opens a file for writing, replacing anything already in it.
+     *
+     * @param file       the file
+     * @param bufferSize the buffer size in bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public LineWriter(Path file, int bufferSize) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), bufferSize);
+    }
+
+    /**
+     * Writes to an already open channel. The writer takes ownership and closes it.
+     *
+     * @param channel    the channel to write to
+     * @param bufferSize the buffer size in bytes
+     */
+    protected LineWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 64));
+    }
+
+    /**
+     * Writes one line followed by the line separator.
+     *
+     * @param line the line, without a separator
+     * @throws IOException if writing fails
+     */
+    public void writeLine(CharSequence line) throws IOException {
+        encode(CharBuffer.wrap(line));
+        encode(CharBuffer.wrap(LINE_SEPARATOR));
+    }
+
+    /**
+     * Writes one line that is already UTF-8 encoded, followed by the line separator. The bytes
+     * are copied as they are, so a line read from a file can be passed through unchanged.
+     *
+     * @param line the encoded line, without a separator, from its position to its limit
+     * @throws IOException if writing fails
+     */
+    public void writeEncodedLine(ByteBuffer line) throws IOException {
+        ByteBuffer bytes = line.duplicate();
+        while (bytes.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.remaining());
+            buffer.put(bytes.slice(bytes.position(), length));
+            bytes.position(bytes.position() + length);
+        }
+        encode(CharBuffer.wrap(LINE_SEPARATOR));
+    }
+
+    /**
+     * Writes every line.
+     *
+     * @param lines the lines, without separators
+     * @throws IOException if writing fails
+     */
+    public void writeLines(Iterable<? extends CharSequence> lines) throws IOException {
+        for (CharSequence line : lines) {
+            writeLine(line);
+        }
+    }
+
+    /**
+     * Encodes characters into the buffer, draining it to the file whenever it is full.
+     *
+     * @param chars the characters
+     * @throws IOException if writing fails
+     */
+    private void encode(CharBuffer chars) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                encoder.reset();
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    /**
+     * Writes everything in the buffer to the file.
+     *
+     * @throws IOException if writing fails
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes any buffered lines to the file.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /** @return the file channel, for subclasses that need to sync or move the file. */
+    protected FileChannel channel() {
+        return channel;
+    }
+
+    /** @return the number of bytes written to the file so far, not counting the buffer. */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Flushes and closes the file.
+     *
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
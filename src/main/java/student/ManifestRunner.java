@@ -0,0 +1,339 @@
+package student;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs payroll for many tenants, each with its own employee, time card and pay stub files,
+ * inside one JVM.
+ * <p>
+ * The tenants are listed in a manifest CSV file with the header
+ * {@code employee_file,time_card_file,payroll_file}. Every tenant runs as its own task, so
+ * JVM startup and JIT warm-up are paid once for the whole batch. Tasks run on virtual threads
+ * when the JVM has them, and on a pool of platform threads otherwise; either way at most a
+ * fixed number of tenants run at once, so hundreds of tenants do not all load their employees
+ * at the same time.
+ * </p>
+ * <p>
+ * Tenants are isolated: each one only reads and writes its own files, and an exception in one
+ * tenant is caught and reported in its {@link Outcome} without affecting the others. The
+ * manifest may not list the same employee or pay stub file twice, as two tenants writing one
+ * file would overwrite each other, nor read time cards from a file a tenant writes.
+ * </p>
+ */
+public final class ManifestRunner {
+    /** Header line of a manifest file. */
+    public static final String MANIFEST_HEADER = "employee_file,time_card_file,payroll_file";
+    /** Number of fields in a manifest line. */
+    private static final int MANIFEST_FIELDS = 3;
+
+    /**
+     * One tenant's files.
+     */
+    public static final class Tenant {
+        /** The employee file name. */
+        private final String employeeFile;
+        /** The time card file name. */
+        private final String timeCardFile;
+        /** The pay stub file name. */
+        private final String payrollFile;
+        /** The line of the manifest the tenant was read from. */
+        private final int lineNumber;
+
+        /**
+         * Creates a tenant.
+         *
+         * @param employeeFile the employee file name
+         * @param timeCardFile the time card file name
+         * @param payrollFile  the pay stub file name
+         * @param lineNumber   the line of the manifest, used in messages
+         */
+        public Tenant(String employeeFile, String timeCardFile, String payrollFile,
+                int lineNumber) {
+            this.employeeFile = employeeFile;
+            this.timeCardFile = timeCardFile;
+            this.payrollFile = payrollFile;
+            this.lineNumber = lineNumber;
+        }
+
+        /** @return the employee file name. */
+        public String getEmployeeFile() {
+            return employeeFile;
+        }
+
+        /** @return the time card file name. */
+        public String getTimeCardFile() {
+            return timeCardFile;
+        }
+
+        /** @return the pay stub file name. */
+        public String getPayrollFile() {
+            return payrollFile;
+        }
+
+        /** @return the line of the manifest the tenant was read from. */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /** @return a short description for messages. */
+        @Override
+        public String toString() {
+            return "tenant at line " + lineNumber + " (" + employeeFile + ")";
+        }
+    }
+
+    /**
+     * Runs payroll for one tenant.
+     */
+    @FunctionalInterface
+    public interface Job {
+        /**
+         * Runs payroll.
+         *
+         * @param tenant the tenant
+         * @return true if the run succeeded
+         * @throws Exception if the run failed
+         */
+        boolean run(Tenant tenant) throws Exception;
+    }
+
+    /**
+     * The result of one tenant's run.
+     */
+    public static final class Outcome {
+        /** The tenant. */
+        private final Tenant tenant;
+        /** True if the run succeeded. */
+        private final boolean succeeded;
+        /** The exception the run threw, or null. */
+        private final Throwable error;
+        /** Wall time of the run in milliseconds. */
+        private final long elapsedMillis;
+
+        /**
+         * Creates an outcome.
+         *
+         * @param tenant        the tenant
+         * @param succeeded     true if the run succeeded
+         * @param error         the exception the run threw, or null
+         * @param elapsedMillis wall time of the run in milliseconds
+         */
+        Outcome(Tenant tenant, boolean succeeded, Throwable error, long elapsedMillis) {
+            this.tenant = tenant;
+            this.succeeded = succeeded;
+            this.error = error;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** @return the tenant. */
+        public Tenant getTenant() {
+            return tenant;
+        }
+
+        /** @return true if the run succeeded. */
+        public boolean isSucceeded() {
+            return succeeded;
+        }
+
+        /** @return the exception the run threw, or null if it returned normally. */
+        public Throwable getError() {
+            return error;
+        }
+
+        /** @return wall time of the run in milliseconds. */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /** Most tenants running at once. */
+    private final int maxConcurrent;
+
+    /**
+     * Creates a runner.
+     *
+     * @param maxConcurrent the most tenants to run at once
+     * @throws IllegalArgumentException if maxConcurrent is less than 1
+     */
+    public ManifestRunner(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1.");
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Reads a manifest file.
+     *
+     * @param manifestFile the manifest file name
+     * @return the tenants, in file order
+     * @throws IOException if the manifest cannot be read
+     * @throws IllegalArgumentException if a line does not have three file names, a file is
+     *                                  written more than once, or a tenant reads its time cards
+     *                                  from a file a tenant writes
+     */
+    public static List<Tenant> readManifest(String manifestFile) throws IOException {
+        List<String> lines = Files.readAllLines(Path.of(manifestFile), StandardCharsets.UTF_8);
+        List<Tenant> tenants = new ArrayList<>(lines.size());
+        // compare where files really are, so a.csv and ./a.csv count as the same file
+        Set<Path> written = new HashSet<>();
+        CsvCursor cursor = new CsvCursor();
+        for (int i = 1; i < lines.size(); i++) {
+            int lineNumber = i + 1;
+            cursor.reset(lines.get(i), lineNumber);
+            if (cursor.isBlank()) {
+                continue;
+            }
+            if (cursor.countFields() != MANIFEST_FIELDS) {
+                throw new IllegalArgumentException("Invalid manifest format. Expected "
+                        + MANIFEST_FIELDS + " fields at line " + lineNumber + ".");
+            }
+            String[] files = new String[MANIFEST_FIELDS];
+            for (int f = 0; f < MANIFEST_FIELDS; f++) {
+                cursor.next();
+                files[f] = cursor.fieldAsString();
+                if (files[f].isEmpty()) {
+                    throw new IllegalArgumentException("Missing file name "
+                            + cursor.describePosition());
+                }
+            }
+            boolean newEmployeeFile = written.add(location(files[0]));
+            boolean newPayrollFile = written.add(location(files[2]));
+            if (!newEmployeeFile || !newPayrollFile) {
+                throw new IllegalArgumentException("File written more than once at line "
+                        + lineNumber + ".");
+            }
+            tenants.add(new Tenant(files[0], files[1], files[2], lineNumber));
+        }
+        for (Tenant tenant : tenants) {
+            if (written.contains(location(tenant.getTimeCardFile()))) {
+                throw new IllegalArgumentException("Time card file is written by a tenant at line "
+                        + tenant.getLineNumber() + ".");
+            }
+        }
+        return tenants;
+    }
+
+    /**
+     * Resolves a file name from the manifest to the file it names.
+     *
+     * @param file the file name
+     * @return the absolute, normalized path
+     * @throws IllegalArgumentException if the file name is not a valid path
+     */
+    private static Path location(String file) {
+        return Path.of(file).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Runs every tenant and waits for all of them.
+     *
+     * @param tenants the tenants
+     * @param job     runs payroll for one tenant
+     * @return one outcome per tenant, in the same order
+     */
+    public List<Outcome> runAll(List<Tenant> tenants, Job job) {
+        Semaphore permits = new Semaphore(maxConcurrent);
+        List<Future<Outcome>> futures = new ArrayList<>(tenants.size());
+        ExecutorService executor = newExecutor(Math.min(maxConcurrent, Math.max(1, tenants.size())));
+        try {
+            for (Tenant tenant : tenants) {
+                futures.add(executor.submit(() -> runOne(tenant, job, permits)));
+            }
+            List<Outcome> outcomes = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                outcomes.add(await(futures.get(i), tenants.get(i)));
+            }
+            return outcomes;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs one tenant once a permit is free, catching anything it throws.
+     *
+     * @param tenant  the tenant
+     * @param job     the payroll job
+     * @param permits limits how many tenants run at once
+     * @return the outcome
+     * @throws InterruptedException if interrupted while waiting for a permit
+     */
+    private static Outcome runOne(Tenant tenant, Job job, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        long start = System.nanoTime();
+        try {
+            boolean succeeded = job.run(tenant);
+            return new Outcome(tenant, succeeded, null, elapsedMillis(start));
+        } catch (Exception | Error e) {
+            return new Outcome(tenant, false, e, elapsedMillis(start));
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Waits for a tenant's task.
+     *
+     * @param future the task
+     * @param tenant the tenant
+     * @return its outcome, or a failed outcome if the task could not finish
+     */
+    private static Outcome await(Future<Outcome> future, Tenant tenant) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new Outcome(tenant, false, e.getCause(), 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(tenant, false, e, 0);
+        }
+    }
+
+    /**
+     * Works out the milliseconds since a start time.
+     *
+     * @param startNanos the start, from {@link System#nanoTime()}
+     * @return the elapsed milliseconds
+     */
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Creates the executor for the tenant tasks: one virtual thread per task on JVMs that
+     * have them, otherwise a pool of daemon platform threads.
+     *
+     * @param threads the number of platform threads to fall back on
+     * @return the executor
+     */
+    static ExecutorService newExecutor(int threads) {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // virtual threads need Java 21, or preview features on Java 19 and 20
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "payroll-tenant-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * Helpers for money held as scaled {@code long} values instead of {@code BigDecimal}.
+ * <p>
+ * Two scales are used. Rates, deductions and gross pay are whole cents. Taxes, net pay and
+ * year-to-date totals are micro-dollars (millionths), because a cent amount multiplied by
+ * a rate in basis points (22.65% is 2265) needs six decimal places to stay exact. Keeping
+ * the exact value and rounding only when printing is what the {@code BigDecimal} code does
+ * too, so both give the same output.
+ * </p>
+ */
+public final class Money {
+    /** Number of decimal places in a micro-dollar value. */
+    public static final int MICRO_SCALE = 6;
+    /** Micro-dollars in one cent. */
+    public static final long MICROS_PER_CENT = 10_000L;
+    /** Micro-dollars in one dollar. */
+    public static final long MICROS_PER_DOLLAR = 1_000_000L;
+
+    /** Private constructor to prevent instantiation of this utility class. */
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to whole cents.
+     *
+     * @param amount the amount
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount has fractions of a cent or does not fit a long
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Converts an amount to micro-dollars.
+     *
+     * @param amount the amount
+     * @return the amount in micro-dollars
+     * @throws ArithmeticException if the amount has more than six decimal places or does not
+     *                             fit a long
+     */
+    public static long toMicros(BigDecimal amount) {
+        return amount.movePointRight(MICRO_SCALE).longValueExact();
+    }
+
+    /**
+     * Converts micro-dollars back to a {@code BigDecimal} with six decimal places.
+     *
+     * @param micros the amount in micro-dollars
+     * @return the amount
+     */
+    public static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, MICRO_SCALE);
+    }
+
+    /**
+     * Divides and rounds half up (ties away from zero), the same as
+     * {@code RoundingMode.HALF_UP}.
+     *
+     * @param value   the value to divide
+     * @param divisor the divisor, must be positive
+     * @return the rounded quotient
+     */
+    public static long divideHalfUp(long value, long divisor) {
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += value < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Rounds micro-dollars half up to whole cents.
+     *
+     * @param micros the amount in micro-dollars
+     * @return the amount in cents
+     */
+    public static long microsToCents(long micros) {
+        return divideHalfUp(micros, MICROS_PER_CENT);
+    }
+}
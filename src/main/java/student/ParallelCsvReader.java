@@ -0,0 +1,286 @@
+package student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses the lines of a large CSV file on several threads.
+ * <p>
+ * The file is memory mapped and split into chunks at newline boundaries. Every chunk first
+ * counts its lines, so each line gets its real line number, and then parses its lines on the
+ * executor. The results are put back together in file order, so the result is the same as
+ * parsing the lines one by one, including which error is thrown when several lines are bad.
+ * The header line is skipped, like {@link FileUtil#streamLines(String)} does.
+ * </p>
+ */
+public class ParallelCsvReader {
+    /** Number of chunks created per thread, so uneven chunks still balance out. */
+    private static final int TASKS_PER_THREAD = 4;
+    /** Smallest chunk worth a task of its own. */
+    static final int DEFAULT_MIN_CHUNK_BYTES = 256 * 1024;
+    /** Largest chunk, well below the 2 GB a single mapping can hold. */
+    private static final int MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Turns one line into a value.
+     *
+     * @param <T> the type of value
+     */
+    @FunctionalInterface
+    public interface LineParser<T> {
+        /**
+         * Parses a line. The characters are only valid during the call, so the parser must
+         * copy anything it keeps, as {@link Builder} does.
+         *
+         * @param line       the line, without its line separator
+         * @param lineNumber the line number in the file, the header being line 1
+         * @return the value, which may be null
+         */
+        T parse(CharSequence line, int lineNumber);
+    }
+
+    /** Executor the parsing tasks run on. */
+    private final Executor executor;
+    /** Number of threads behind the executor, used to size the chunks. */
+    private final int parallelism;
+    /** Smallest chunk size in bytes. */
+    private final int minChunkBytes;
+
+    /**
+     * Creates a reader.
+     *
+     * @param executor    the executor to parse on, such as a {@code ForkJoinPool}
+     * @param parallelism the number of threads the executor runs
+     * @throws IllegalArgumentException if the executor is null or parallelism is less than 1
+     */
+    public ParallelCsvReader(Executor executor, int parallelism) {
+        this(executor, parallelism, DEFAULT_MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * Creates a reader with a custom smallest chunk size, so tests can split small files.
+     *
+     * @param executor      the executor to parse on
+     * @param parallelism   the number of threads the executor runs
+     * @param minChunkBytes the smallest chunk size in bytes
+     */
+    ParallelCsvReader(Executor executor, int parallelism, int minChunkBytes) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.minChunkBytes = Math.max(1, minChunkBytes);
+    }
+
+    /**
+     * Parses every line after the header.
+     *
+     * @param <T>    the type of value
+     * @param file   the UTF-8 file
+     * @param parser the line parser
+     * @return one value per line, in file order
+     * @throws IOException if the file cannot be read
+     * @throws RuntimeException the first exception the parser threw, in file order
+     */
+    public <T> List<T> read(Path file, LineParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = nextLineStart(channel, 0, size);
+            long[] bounds = chunkBounds(channel, dataStart, size);
+            int chunks = bounds.length - 1;
+
+            // pass 1: count the lines of every chunk, so line numbers are known up front
+            MappedByteBuffer[] buffers = new MappedByteBuffer[chunks];
+            List<CompletableFuture<Integer>> counted = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c],
+                        bounds[c + 1] - bounds[c]);
+                buffers[c] = buffer;
+                counted.add(CompletableFuture.supplyAsync(() -> countLines(buffer), executor));
+            }
+            int[] counts = new int[chunks];
+            for (int c = 0; c < chunks; c++) {
+                counts[c] = join(counted.get(c));
+            }
+
+            // pass 2: parse, every chunk starting at its own line number
+            List<CompletableFuture<List<T>>> parsed = new ArrayList<>(chunks);
+            int firstLine = 2;
+            int total = 0;
+            for (int c = 0; c < chunks; c++) {
+                MappedByteBuffer buffer = buffers[c];
+                int startLine = firstLine;
+                parsed.add(CompletableFuture.supplyAsync(() -> parseChunk(buffer, startLine, parser),
+                        executor));
+                firstLine += counts[c];
+                total += counts[c];
+            }
+            List<T> result = new ArrayList<>(total);
+            for (CompletableFuture<List<T>> chunk : parsed) {
+                result.addAll(join(chunk)); // in chunk order, so the earliest error wins
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Splits the data into chunks that each start at the beginning of a line.
+     *
+     * @param channel   the file
+     * @param dataStart where the first line after the header starts
+     * @param size      the file size
+     * @return the chunk start positions, followed by the file size
+     * @throws IOException if the file cannot be read
+     */
+    private long[] chunkBounds(FileChannel channel, long dataStart, long size) throws IOException {
+        long data = size - dataStart;
+        long chunkBytes = Math.max(minChunkBytes, data / ((long) parallelism * TASKS_PER_THREAD) + 1);
+        chunkBytes = Math.min(chunkBytes, MAX_CHUNK_BYTES);
+        List<Long> bounds = new ArrayList<>();
+        long position = dataStart;
+        while (position < size) {
+            bounds.add(position);
+            position = nextLineStart(channel, Math.min(size, position + chunkBytes) - 1, size);
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the start of the line after a position.
+     *
+     * @param channel the file
+     * @param from    the position to search from
+     * @param size    the file size
+     * @return the position after the first newline at or after {@code from}, or the size
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Counts the lines in a chunk, including a last line without a newline.
+     *
+     * @param chunk the chunk
+     * @return the number of lines
+     */
+    private static int countLines(ByteBuffer chunk) {
+        int lines = 0;
+        int limit = chunk.limit();
+        for (int i = 0; i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (limit > 0 && chunk.get(limit - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Parses every line in a chunk.
+     *
+     * @param <T>       the type of value
+     * @param chunk     the chunk
+     * @param firstLine the line number of the first line in the chunk
+     * @param parser    the line parser
+     * @return the values, in order
+     */
+    private static <T> List<T> parseChunk(ByteBuffer chunk, int firstLine, LineParser<T> parser) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(256);
+        List<T> values = new ArrayList<>();
+        int lineNumber = firstLine;
+        int start = 0;
+        int limit = chunk.limit();
+        while (start < limit) {
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > start && chunk.get(end - 1) == '\r' ? end - 1 : end;
+            chars = decode(decoder, chunk.slice(start, lineEnd - start), chars);
+            values.add(parser.parse(chars, lineNumber++));
+            start = end + 1;
+        }
+        return values;
+    }
+
+    /**
+     * Decodes one line into a reused buffer, growing it if the line does not fit.
+     *
+     * @param decoder the UTF-8 decoder
+     * @param bytes   the line
+     * @param chars   the buffer to reuse
+     * @return the buffer holding the line, ready to read
+     */
+    private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars) {
+        if (chars.capacity() < bytes.remaining()) {
+            chars = CharBuffer.allocate(Math.max(bytes.remaining(), chars.capacity() * 2));
+        }
+        chars.clear();
+        decoder.reset();
+        // UTF-8 never needs more chars than bytes and bad input is replaced, so one call does it
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        return chars.flip();
+    }
+
+    /**
+     * Waits for a task and rethrows its exception as it was thrown.
+     *
+     * @param <T>    the type of result
+     * @param future the task
+     * @return the result
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
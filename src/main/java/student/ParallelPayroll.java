@@ -0,0 +1,176 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs payroll for a batch of time cards on several threads.
+ * <p>
+ * Time cards are partitioned by employee, and every card for one employee is applied in
+ * file order by a single task, so each employee's year-to-date totals are only touched by
+ * one thread at a time. Pay stubs are placed back at the position of their time card, so
+ * the result is in the same order the sequential loop produces.
+ * </p>
+ */
+public class ParallelPayroll {
+    /** Number of tasks created per thread, so uneven employees still balance out. */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /** Executor the payroll tasks run on. */
+    private final Executor executor;
+    /** Number of threads behind the executor, used to size the partitions. */
+    private final int parallelism;
+
+    /**
+     * Creates a parallel payroll runner.
+     *
+     * @param executor    the executor to run payroll tasks on, such as a {@code ForkJoinPool}
+     * @param parallelism the number of threads the executor runs
+     * @throws IllegalArgumentException if the executor is null or parallelism is less than 1
+     */
+    public ParallelPayroll(Executor executor, int parallelism) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Pays one time card.
+     */
+    @FunctionalInterface
+    private interface CardTask {
+        /**
+         * Runs payroll for a card.
+         *
+         * @param employee the employee the card belongs to
+         * @param card     the position of the card
+         */
+        void pay(IEmployee employee, int card);
+    }
+
+    /**
+     * Runs payroll for every time card that matches an employee.
+     * Null cards, cards with negative hours, and cards for unknown employees are skipped,
+     * the same as the sequential loop in {@link PayrollGenerator}.
+     *
+     * @param registry  the employees
+     * @param timeCards the time cards, in file order
+     * @return the pay stubs, in time card order
+     */
+    public List<IPayStub> run(EmployeeSource registry, List<ITimeCard> timeCards) {
+        IPayStub[] stubs = new IPayStub[timeCards.size()];
+        forEachCard(registry, timeCards, (employee, card) ->
+                stubs[card] = employee.runPayroll(timeCards.get(card).getHoursWorked()));
+
+        List<IPayStub> payStubs = new ArrayList<>(stubs.length);
+        for (IPayStub stub : stubs) {
+            if (stub != null) {
+                payStubs.add(stub);
+            }
+        }
+        return payStubs;
+    }
+
+    /**
+     * Runs payroll for every time card that matches an employee, filling in a pay stub buffer
+     * instead of creating a {@code PayStub} per card. Row {@code i} of the buffer holds the pay
+     * stub of card {@code i}, and is empty if the card was skipped.
+     *
+     * @param registry  the employees
+     * @param timeCards the time cards, in file order
+     * @return the pay stubs, one row per time card
+     */
+    public PayStubBuffer runBuffered(EmployeeSource registry, List<ITimeCard> timeCards) {
+        PayStubBuffer stubs = new PayStubBuffer(timeCards.size());
+        stubs.setSize(timeCards.size());
+        forEachCard(registry, timeCards, (employee, card) ->
+                stubs.payAt(card, employee, timeCards.get(card).getHoursWorked()));
+        return stubs;
+    }
+
+    /**
+     * Partitions the time cards by employee and runs a task for every card that matches an
+     * employee, on the executor. Each employee's cards run in order on one thread.
+     *
+     * @param registry  the employees
+     * @param timeCards the time cards, in file order
+     * @param task      pays one card
+     */
+    private void forEachCard(EmployeeSource registry, List<ITimeCard> timeCards, CardTask task) {
+        int cardCount = timeCards.size();
+
+        // give every employee with at least one card a dense slot number
+        Map<IEmployee, Integer> slots = new IdentityHashMap<>();
+        List<IEmployee> slotEmployees = new ArrayList<>();
+        int[] cardSlots = new int[cardCount];
+        for (int i = 0; i < cardCount; i++) {
+            ITimeCard timeCard = timeCards.get(i);
+            IEmployee employee = timeCard == null || timeCard.getHoursWorked() < 0
+                    ? null : registry.get(timeCard);
+            if (employee == null) {
+                cardSlots[i] = -1;
+                continue;
+            }
+            Integer slot = slots.get(employee);
+            if (slot == null) {
+                slot = slotEmployees.size();
+                slots.put(employee, slot);
+                slotEmployees.add(employee);
+            }
+            cardSlots[i] = slot;
+        }
+
+        // counting sort of card positions by slot, stable so each employee keeps card order
+        int slotCount = slotEmployees.size();
+        int[] slotStart = new int[slotCount + 1];
+        for (int slot : cardSlots) {
+            if (slot >= 0) {
+                slotStart[slot + 1]++;
+            }
+        }
+        for (int s = 0; s < slotCount; s++) {
+            slotStart[s + 1] += slotStart[s];
+        }
+        int[] order = new int[slotStart[slotCount]];
+        int[] fill = Arrays.copyOf(slotStart, slotCount);
+        for (int i = 0; i < cardCount; i++) {
+            if (cardSlots[i] >= 0) {
+                order[fill[cardSlots[i]]++] = i;
+            }
+        }
+
+        int tasks = Math.max(1, Math.min(slotCount, parallelism * TASKS_PER_THREAD));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            int fromSlot = (int) ((long) slotCount * t / tasks);
+            int toSlot = (int) ((long) slotCount * (t + 1) / tasks);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int s = fromSlot; s < toSlot; s++) {
+                    IEmployee employee = slotEmployees.get(s);
+                    for (int k = slotStart[s]; k < slotStart[s + 1]; k++) {
+                        task.pay(employee, order[k]);
+                    }
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -79,20 +79,84 @@ public class PayStub implements IPayStub {
         return taxes.doubleValue();
     }
 
+    /**
+     * Returns the employee this pay stub is for.
+     *
+     * @return The employee
+     */
+    public IEmployee getEmployee() {
+        return employee;
+    }
+
+    /**
+     * Returns the exact net pay amount.
+     *
+     * @return The net pay amount as a BigDecimal
+     */
+    public BigDecimal getPayBD() {
+        return netPay;
+    }
+
+    /**
+     * Returns the exact taxes paid amount.
+     *
+     * @return The taxes paid amount as a BigDecimal
+     */
+    public BigDecimal getTaxesPaidBD() {
+        return taxes;
+    }
+
+    /**
+     * Returns the exact year-to-date earnings captured when this pay stub was created.
+     *
+     * @return The YTD earnings as of this pay period, as a BigDecimal
+     */
+    public BigDecimal getYTDEarningsBD() {
+        return ytdEarnings;
+    }
+
+    /**
+     * Returns the exact year-to-date taxes paid captured when this pay stub was created.
+     *
+     * @return The YTD taxes paid as of this pay period, as a BigDecimal
+     */
+    public BigDecimal getYTDTaxesPaidBD() {
+        return ytdTaxesPaid;
+    }
+
+    /**
+     * Returns the year-to-date earnings captured when this pay stub was created.
+     *
+     * @return The YTD earnings as of this pay period
+     */
+    public double getYTDEarnings() {
+        return ytdEarnings.doubleValue();
+    }
+
+    /**
+     * Returns the year-to-date taxes paid captured when this pay stub was created.
+     *
+     * @return The YTD taxes paid as of this pay period
+     */
+    public double getYTDTaxesPaid() {
+        return ytdTaxesPaid.doubleValue();
+    }
+
     /**
      * Converts the pay stub information to a CSV format string.
+     * The YTD values are the ones captured with this pay stub, so they stay consistent with
+     * each other even if the employee is paid again later.
      *
      * @return A CSV string containing employee name, pay amount, taxes paid, YTD earnings, and YTD taxes
      */
     @Override
     public String toCSV() {
-        return String.format(
-                "%s,%.2f,%.2f,%.2f,%.2f",
-                employee.getName(),
-                getPay(),
-                getTaxesPaid(),
-                employee.getYTDEarnings(),
-                employee.getYTDTaxesPaid()
-        );
+        return CsvEmitter.local().begin()
+                .field(employee.getName())
+                .money(netPay)
+                .money(taxes)
+                .money(ytdEarnings)
+                .money(ytdTaxesPaid)
+                .toString();
     }
 }
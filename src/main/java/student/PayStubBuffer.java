@@ -0,0 +1,313 @@
+package student;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A reusable batch of pay stubs held in primitive columns.
+ * <p>
+ * Payroll fills in a row in place instead of creating a {@link PayStub} with four
+ * {@code BigDecimal}s, so a run keeps a few arrays alive instead of one object graph per pay
+ * stub. A sequential run fills the buffer, writes it out and clears it for the next batch; a
+ * parallel run sizes it to the time cards and fills each card's row from its own thread.
+ * </p>
+ * <p>
+ * Amounts are kept in micro-dollars. The rare pay stub whose amounts have more than six
+ * decimal places, which only happens with hours that have many decimal places, is kept as
+ * the {@code PayStub} payroll returned. {@link #get(int)} gives {@link IPayStub} views of the
+ * rows; a view is only valid until the buffer is cleared.
+ * </p>
+ */
+public final class PayStubBuffer {
+    /** Default number of pay stubs per batch. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Employee of each row, null for an empty row. */
+    private final IEmployee[] employees;
+    /** Net pay of each row, in micro-dollars. */
+    private final long[] netMicros;
+    /** Taxes of each row, in micro-dollars. */
+    private final long[] taxMicros;
+    /** YTD earnings after each row, in micro-dollars. */
+    private final long[] ytdEarningsMicros;
+    /** YTD taxes paid after each row, in micro-dollars. */
+    private final long[] ytdTaxesMicros;
+    /** Pay stubs whose amounts do not fit micro-dollars, null for most rows. */
+    private final IPayStub[] exact;
+    /** Number of rows in use. */
+    private int size;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity the most pay stubs the buffer holds
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public PayStubBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.employees = new IEmployee[capacity];
+        this.netMicros = new long[capacity];
+        this.taxMicros = new long[capacity];
+        this.ytdEarningsMicros = new long[capacity];
+        this.ytdTaxesMicros = new long[capacity];
+        this.exact = new IPayStub[capacity];
+    }
+
+    /**
+     * Runs payroll for an employee and adds the pay stub as the next row.
+     *
+     * @param employee    the employee
+     * @param hoursWorked the hours worked
+     * @return true if a pay stub was added, false if the hours are negative
+     * @throws IllegalStateException if the buffer is full
+     */
+    public boolean pay(IEmployee employee, double hoursWorked) {
+        if (hoursWorked < 0) {
+            return false;
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Pay stub buffer is full.");
+        }
+        payAt(size++, employee, hoursWorked);
+        return true;
+    }
+
+    /**
+     * Runs payroll for an employee into a given row. Rows are independent, so different
+     * threads may fill different rows.
+     *
+     * @param row         the row, below {@link #size()}
+     * @param employee    the employee
+     * @param hoursWorked the hours worked, not negative
+     */
+    void payAt(int row, IEmployee employee, double hoursWorked) {
+        // subclasses may override runPayroll, so only the plain classes are filled in place
+        Class<?> type = employee.getClass();
+        if (type == HourlyEmployee.class || type == SalaryEmployee.class) {
+            ((EmployeeBigDecimal) employee).runPayroll(hoursWorked, this, row);
+        } else if (employee instanceof EmployeeView) {
+            ((EmployeeView) employee).runPayroll(hoursWorked, this, row);
+        } else {
+            set(row, employee.runPayroll(hoursWorked));
+        }
+    }
+
+    /**
+     * Puts this many empty rows in the buffer, to be filled with {@link #payAt}.
+     *
+     * @param rows the number of rows
+     * @throws IllegalArgumentException if the rows do not fit
+     */
+    void setSize(int rows) {
+        if (rows < 0 || rows > capacity()) {
+            throw new IllegalArgumentException("Cannot hold " + rows + " pay stubs.");
+        }
+        size = rows;
+    }
+
+    /**
+     * Fills in a row from amounts in micro-dollars.
+     *
+     * @param row          the row
+     * @param employee     the employee
+     * @param net          net pay
+     * @param taxes        taxes
+     * @param ytdEarnings  YTD earnings after this pay stub
+     * @param ytdTaxesPaid YTD taxes paid after this pay stub
+     */
+    void set(int row, IEmployee employee, long net, long taxes, long ytdEarnings,
+            long ytdTaxesPaid) {
+        employees[row] = employee;
+        netMicros[row] = net;
+        taxMicros[row] = taxes;
+        ytdEarningsMicros[row] = ytdEarnings;
+        ytdTaxesMicros[row] = ytdTaxesPaid;
+        exact[row] = null;
+    }
+
+    /**
+     * Fills in a row from micro-dollar pay amounts and exact YTD totals.
+     *
+     * @param row          the row
+     * @param employee     the employee
+     * @param net          net pay in micro-dollars
+     * @param taxes        taxes in micro-dollars
+     * @param ytdEarnings  YTD earnings after this pay stub
+     * @param ytdTaxesPaid YTD taxes paid after this pay stub
+     */
+    void set(int row, IEmployee employee, long net, long taxes, BigDecimal ytdEarnings,
+            BigDecimal ytdTaxesPaid) {
+        try {
+            set(row, employee, net, taxes, Money.toMicros(ytdEarnings),
+                    Money.toMicros(ytdTaxesPaid));
+        } catch (ArithmeticException e) {
+            set(row, new PayStub(employee, Money.fromMicros(net), Money.fromMicros(taxes),
+                    ytdEarnings, ytdTaxesPaid));
+        }
+    }
+
+    /**
+     * Fills in a row from a pay stub, keeping the pay stub itself only if its amounts do not
+     * fit micro-dollars.
+     *
+     * @param row     the row
+     * @param payStub the pay stub, or null to leave the row empty
+     */
+    void set(int row, IPayStub payStub) {
+        if (payStub instanceof PayStub) {
+            PayStub stub = (PayStub) payStub;
+            try {
+                set(row, stub.getEmployee(), Money.toMicros(stub.getPayBD()),
+                        Money.toMicros(stub.getTaxesPaidBD()),
+                        Money.toMicros(stub.getYTDEarningsBD()),
+                        Money.toMicros(stub.getYTDTaxesPaidBD()));
+                return;
+            } catch (ArithmeticException e) {
+                // more than six decimal places, keep the exact amounts below
+            }
+        }
+        employees[row] = null;
+        exact[row] = payStub;
+    }
+
+    /**
+     * Gets the pay stub in a row.
+     *
+     * @param row the row
+     * @return a view of the pay stub, or null if the row is empty
+     * @throws IndexOutOfBoundsException if the row is not below {@link #size()}
+     */
+    public IPayStub get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Pay stub " + row + " of " + size);
+        }
+        if (exact[row] != null) {
+            return exact[row];
+        }
+        return employees[row] == null ? null : new PayStubView(this, row);
+    }
+
+    /**
+     * Writes every pay stub as a line of the pay stub CSV file, in row order, skipping empty
+     * rows.
+     *
+     * @param out where to write
+     * @return the number of pay stubs written
+     * @throws IOException if writing fails
+     */
+    public int writeCSV(LineWriter out) throws IOException {
+        int written = 0;
+        for (int row = 0; row < size; row++) {
+            if (exact[row] != null) {
+                out.writeLine(exact[row].toCSV());
+                written++;
+            } else if (employees[row] != null) {
+                out.writeLine(emit(row).buffer());
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Checks if a row holds no pay stub, because its time card was skipped.
+     *
+     * @param row the row, below {@link #size()}
+     * @return true if the row is empty
+     */
+    boolean isEmpty(int row) {
+        return employees[row] == null && exact[row] == null;
+    }
+
+    /**
+     * Formats a row the same way {@link PayStub#toCSV()} does.
+     *
+     * @param row the row, holding amounts in micro-dollars
+     * @return the emitter holding the line
+     */
+    CsvEmitter emit(int row) {
+        return CsvEmitter.local().begin()
+                .field(employees[row].getName())
+                .micros(netMicros[row])
+                .micros(taxMicros[row])
+                .micros(ytdEarningsMicros[row])
+                .micros(ytdTaxesMicros[row]);
+    }
+
+    /**
+     * Empties the buffer for the next batch.
+     */
+    public void clear() {
+        Arrays.fill(employees, 0, size, null);
+        Arrays.fill(exact, 0, size, null);
+        size = 0;
+    }
+
+    /** @return the number of rows in use, including empty rows. */
+    public int size() {
+        return size;
+    }
+
+    /** @return the most pay stubs the buffer holds. */
+    public int capacity() {
+        return employees.length;
+    }
+
+    /** @return true if no more pay stubs can be added. */
+    public boolean isFull() {
+        return size == employees.length;
+    }
+
+    /**
+     * Gets the employee of a row.
+     *
+     * @param row the row
+     * @return the employee of a row
+     */
+    IEmployee employeeOf(int row) {
+        return employees[row];
+    }
+
+    /**
+     * Gets the net pay of a row.
+     *
+     * @param row the row
+     * @return net pay in micro-dollars
+     */
+    long netMicrosOf(int row) {
+        return netMicros[row];
+    }
+
+    /**
+     * Gets the taxes of a row.
+     *
+     * @param row the row
+     * @return taxes in micro-dollars
+     */
+    long taxMicrosOf(int row) {
+        return taxMicros[row];
+    }
+
+    /**
+     * Gets the YTD earnings after a row.
+     *
+     * @param row the row
+     * @return YTD earnings in micro-dollars
+     */
+    long ytdEarningsMicrosOf(int row) {
+        return ytdEarningsMicros[row];
+    }
+
+    /**
+     * Gets the YTD taxes paid after a row.
+     *
+     * @param row the row
+     * @return YTD taxes paid in micro-dollars
+     */
+    long ytdTaxesMicrosOf(int row) {
+        return ytdTaxesMicros[row];
+    }
+}
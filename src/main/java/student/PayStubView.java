@@ -0,0 +1,82 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * A lightweight {@code IPayStub} view of one row of a {@link PayStubBuffer}.
+ * <p>
+ * A view only holds the buffer and the row index, and reads the amounts from the buffer's
+ * columns, so it gives the same results as the {@link PayStub} payroll would have returned.
+ * It shows whatever is in the row, so it is only valid until the buffer is cleared.
+ * </p>
+ */
+public final class PayStubView implements IPayStub {
+    /** The buffer holding the data. */
+    private final PayStubBuffer buffer;
+    /** The row of this pay stub. */
+    private final int row;
+
+    /**
+     * Creates a view of a buffer row.
+     *
+     * @param buffer the buffer
+     * @param row    the row
+     */
+    PayStubView(PayStubBuffer buffer, int row) {
+        this.buffer = buffer;
+        this.row = row;
+    }
+
+    /** @return the row of this pay stub in its buffer. */
+    public int getRow() {
+        return row;
+    }
+
+    /** @return the employee this pay stub is for. */
+    public IEmployee getEmployee() {
+        return buffer.employeeOf(row);
+    }
+
+    /** @return the net pay amount as a double. */
+    @Override
+    public double getPay() {
+        return buffer.netMicrosOf(row) / (double) Money.MICROS_PER_DOLLAR;
+    }
+
+    /** @return the taxes paid amount as a double. */
+    @Override
+    public double getTaxesPaid() {
+        return buffer.taxMicrosOf(row) / (double) Money.MICROS_PER_DOLLAR;
+    }
+
+    /** @return the exact net pay amount. */
+    public BigDecimal getPayBD() {
+        return Money.fromMicros(buffer.netMicrosOf(row));
+    }
+
+    /** @return the exact taxes paid amount. */
+    public BigDecimal getTaxesPaidBD() {
+        return Money.fromMicros(buffer.taxMicrosOf(row));
+    }
+
+    /** @return the exact year-to-date earnings as of this pay period. */
+    public BigDecimal getYTDEarningsBD() {
+        return Money.fromMicros(buffer.ytdEarningsMicrosOf(row));
+    }
+
+    /** @return the exact year-to-date taxes paid as of this pay period. */
+    public BigDecimal getYTDTaxesPaidBD() {
+        return Money.fromMicros(buffer.ytdTaxesMicrosOf(row));
+    }
+
+    /**
+     * Converts the pay stub information to a CSV format string.
+     * Format: "employee_name,net_pay,taxes,ytd_earnings,ytd_taxes_paid"
+     *
+     * @return the CSV string
+     */
+    @Override
+    public String toCSV() {
+        return buffer.emit(row).toString();
+    }
+}
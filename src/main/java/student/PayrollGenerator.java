@@ -1,8 +1,13 @@
 package student;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Main driver for the PayrollGenerator program.
@@ -49,20 +54,71 @@ public final class PayrollGenerator {
     public static void main(String[] args) {
         Arguments arguments = Arguments.process(args); // leave this, and make sure you use it on
                                                        // reading/writing files!
+        if (arguments.getManifestFile() != null) {
+            if (!runManifest(arguments)) {
+                System.exit(1);
+            }
+        } else {
+            run(arguments);
+        }
+    }
+
+    /**
+     * Runs payroll for one set of files, recording run metrics. The metrics are registered
+     * with JMX while the run goes, and written to the metrics file at the end if one is given.
+     * 
+     * @param arguments the files and options
+     * @return true if the pay stubs were written and the new YTD totals saved
+     */
+    private static boolean run(Arguments arguments) {
+        RunMetrics metrics = new RunMetrics();
+        metrics.register(arguments.getEmployeeFile());
+        try {
+            return run(arguments, metrics);
+        } finally {
+            metrics.finish();
+            if (arguments.getMetricsFile() != null) {
+                FileUtil.writeFile(arguments.getMetricsFile(), metrics.toCSVLines(), false);
+            }
+        }
+    }
 
+    /**
+     * Runs payroll for one set of files.
+     * 
+     * @param arguments the files and options
+     * @param metrics   the metrics of this run
+     * @return true if the pay stubs were written and the new YTD totals saved
+     */
+    private static boolean run(Arguments arguments, RunMetrics metrics) {
         // you are free to modify this code, or use it as a basis for your code
         // depends on how you want to implement the program
+        if (arguments.getProjectionFile() != null) {
+            return project(arguments, metrics);
+        }
 
-        List<String> employeeLines = FileUtil.readFileToList(arguments.getEmployeeFile());
-        List<String> timeCards = FileUtil.readFileToList(arguments.getTimeCards());
-
-        List<IEmployee> employees = employeeLines.stream().map(Builder::buildEmployeeFromCSV)
-                .collect(Collectors.toList());
-
-        List<ITimeCard> timeCardList = timeCards.stream().map(Builder::buildTimeCardFromCSV)
-                .collect(Collectors.toList());
-
-        List<IPayStub> payStubs = new LinkedList<>();
+        // lazy runs only build the employees the time cards name
+        List<IEmployee> employees = null;
+        LazyEmployeeFile lazyEmployees = null;
+        LazyEmployeeSnapshot snapshotEmployees = null;
+        if (arguments.isLazy()) {
+            long lap = metrics.now();
+            try {
+                lazyEmployees = LazyEmployeeFile.open(Path.of(arguments.getEmployeeFile()));
+            } catch (IOException e) {
+                System.err.println("Error reading employee file: " + e.getMessage());
+                return false;
+            }
+            metrics.lap(RunMetrics.Stage.READ, lap);
+            metrics.addBytesRead(sizeOf(arguments.getEmployeeFile()));
+        } else {
+            snapshotEmployees = openSnapshot(arguments.getEmployeeFile(),
+                    arguments.getSnapshotFile(), metrics);
+            if (snapshotEmployees == null) {
+                employees = loadEmployees(arguments.getEmployeeFile(),
+                        arguments.getSnapshotFile(), arguments.getThreads(), metrics);
+            }
+        }
 
         // now we suggest looping through the timeCardList and for each timecard, find
         // the matching employee and generate a new paystub object. Then add that
@@ -74,35 +130,633 @@ public final class PayrollGenerator {
         // amount
         // is 0.
 
-        for (ITimeCard timeCard : timeCardList) {
-            if (timeCard == null || timeCard.getHoursWorked() < 0) {
-                continue;
+        // index the employees once so each time card is matched with a hash lookup
+        EmployeeSource registry = employees != null ? new EmployeeRegistry(employees)
+                : snapshotEmployees != null ? snapshotEmployees : lazyEmployees;
+        metrics.addEmployeesLoaded(registry.size());
+        if (!applyTaxFile(arguments.getTaxFile(), registry)) {
+            return false;
+        }
+
+        // YTD changes from earlier journaled runs are not in the employee file yet
+        Path employeeFile = Path.of(arguments.getEmployeeFile());
+        Path journalFile = YtdJournal.pathFor(arguments.getEmployeeFile());
+        long lap = metrics.now();
+        try {
+            YtdJournal.replay(journalFile, employeeFile, registry);
+        } catch (IOException e) {
+            System.err.println("Error reading journal: " + e.getMessage());
+            return false; // paying from stale YTD totals would be wrong
+        }
+        metrics.lap(RunMetrics.Stage.READ, lap);
+
+        // pay stubs are written as they are produced, so they are never all held in memory
+        LineWriter payStubOut = FileUtil.openWriter(arguments.getPayrollFile(), true);
+        if (payStubOut == null) {
+            return false; // nothing was paid, so leave the employee file alone
+        }
+        YtdJournal journal = null;
+        if (arguments.isJournal()) {
+            try {
+                journal = YtdJournal.open(journalFile, employeeFile);
+            } catch (IOException e) {
+                System.err.println("Error opening journal: " + e.getMessage());
+                closeQuietly(payStubOut);
+                return false;
             }
-            IEmployee employee = employees.stream()
-                    .filter(e -> e.getID().equals(timeCard.getEmployeeID()))
-                    .findFirst()
-                    .orElse(null);
+        }
+        YtdJournal ytdJournal = journal;
 
-            if (employee == null) {
-                continue;
+        // sequential runs stream the time cards, so only the employee table has to fit in
+        // memory; parallel runs parse the whole time card file in chunks across the threads;
+        // pipelined runs stream batches through a thread per stage
+        metrics.addBytesRead(sizeOf(arguments.getTimeCards()));
+        try (payStubOut; ytdJournal) {
+            payStubOut.writeLine(FileUtil.PAY_STUB_HEADER);
+            if (arguments.isPipeline()) {
+                new PayrollPipeline(PayrollPipeline.DEFAULT_BATCH_SIZE,
+                        PayrollPipeline.DEFAULT_BATCHES).run(registry, arguments.getTimeCards(),
+                                arguments.isAggregate(), payStubOut, ytdJournal, metrics);
+            } else if (arguments.getThreads() > 1) {
+                PayStubBuffer payStubs = runParallel(registry, arguments.getTimeCards(),
+                        arguments.getThreads(), arguments.isAggregate(), metrics);
+                flush(payStubs, payStubOut, ytdJournal, metrics, metrics.now());
+            } else {
+                writeSequential(registry, arguments.getTimeCards(), arguments.isAggregate(),
+                        payStubOut, ytdJournal, metrics);
+            }
+            // the journal only keeps the run once every pay stub is written; if anything
+            // above throws, closing it drops the records this run appended
+            payStubOut.flush();
+            if (ytdJournal != null) {
+                ytdJournal.commit();
             }
+        } catch (IOException e) {
+            // the pay stubs are incomplete, so don't record the new YTD totals either
+            System.err.println("Error writing to file: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.addBytesWritten(payStubOut.getBytesWritten());
+        }
 
-            IPayStub payStub = employee.runPayroll(timeCard.getHoursWorked());
-            payStubs.add(payStub);
+        // in journal mode the employee file is only rewritten when the journal gets large
+        if (ytdJournal != null && !arguments.isCompact()
+                && ytdJournal.size() < YtdJournal.DEFAULT_COMPACT_BYTES) {
+            return true;
         }
 
         // now save out employees to a new file
+        lap = metrics.now();
+        if (!writeEmployees(arguments.getEmployeeFile(), registry, metrics)) {
+            return false;
+        }
+        try {
+            YtdJournal.discard(journalFile);
+        } catch (IOException e) {
+            // harmless: the journal no longer matches the new employee file
+            System.err.println("Error deleting journal: " + e.getMessage());
+        }
+        if (arguments.getSnapshotFile() != null && employees != null) {
+            writeSnapshot(arguments.getSnapshotFile(), employees, employeeFile);
+        } else if (snapshotEmployees != null) {
+            writeSnapshot(arguments.getSnapshotFile(), snapshotEmployees, employeeFile);
+        }
+        metrics.lap(RunMetrics.Stage.WRITE, lap);
+        return true;
+    }
+
+    /**
+     * Projects every employee's YTD totals to the projection file instead of running payroll.
+     * The employee file is only read. Each employee is expected to work the total hours of
+     * their time cards every period; hourly employees without a time card are projected at
+     * zero hours. Employees go into an {@link EmployeeTable}, except those with amounts a
+     * table cannot hold, such as fractions of a cent, which are built as employee objects.
+     * 
+     * @param arguments the files and options
+     * @param metrics   the metrics of this run
+     * @return true if the projection file was written
+     */
+    private static boolean project(Arguments arguments, RunMetrics metrics) {
+        long lap = metrics.now();
+        List<String> employeeLines = FileUtil.readFileToList(arguments.getEmployeeFile());
+        lap = metrics.lap(RunMetrics.Stage.READ, lap);
+        EmployeeTable table = new EmployeeTable(employeeLines.size());
+        List<IEmployee> employees = new ArrayList<>(employeeLines.size());
+        CsvCursor cursor = new CsvCursor();
+        for (int i = 0; i < employeeLines.size(); i++) {
+            String line = employeeLines.get(i);
+            try {
+                employees.add(table.get(table.addFromCSV(cursor.reset(line, i + 2))));
+            } catch (IllegalArgumentException e) {
+                // the builder keeps every decimal place, and reports lines that are invalid
+                employees.add(Builder.buildEmployeeFromCSV(line, i + 2));
+            }
+        }
+        EmployeeRegistry registry = new EmployeeRegistry(employees);
+        lap = metrics.lap(RunMetrics.Stage.PARSE, lap);
+        metrics.addEmployeesLoaded(registry.size());
+        metrics.addBytesRead(sizeOf(arguments.getEmployeeFile()));
+        if (!applyTaxFile(arguments.getTaxFile(), registry)) {
+            return false;
+        }
+        try {
+            YtdJournal.replay(YtdJournal.pathFor(arguments.getEmployeeFile()),
+                    Path.of(arguments.getEmployeeFile()), registry);
+        } catch (IOException e) {
+            System.err.println("Error reading journal: " + e.getMessage());
+            return false;
+        }
+
+        // the registry was built from the list, so its indexes are the list positions
+        double[] expectedHours = new double[employees.size()];
+        TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+        lap = metrics.now();
+        try (Stream<String> timeCards = FileUtil.streamLines(arguments.getTimeCards())) {
+            int lineNumber = 1;
+            for (String line : (Iterable<String>) timeCards::iterator) {
+                ITimeCard timeCard = Builder.buildTimeCardFromCSV(line, ++lineNumber,
+                        registry.getIds());
+                metrics.addTimeCardsRead(1);
+                if (!aggregator.add(timeCard)) {
+                    skipped(timeCard, metrics);
+                }
+            }
+        }
+        for (ITimeCard total : aggregator.getTotals()) {
+            expectedHours[registry.indexOf(total)] = total.getHoursWorked();
+        }
+        metrics.addBytesRead(sizeOf(arguments.getTimeCards()));
+        lap = metrics.lap(RunMetrics.Stage.JOIN, lap);
+
+        PayrollProjection projection = new PayrollProjection(employees, expectedHours,
+                arguments.getPeriods());
+        LineWriter out = FileUtil.openWriter(arguments.getProjectionFile(), true);
+        if (out == null) {
+            return false;
+        }
+        try (out) {
+            out.writeLine(PayrollProjection.PROJECTION_HEADER);
+            projection.writeCSV(out);
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.addBytesWritten(out.getBytesWritten());
+        }
+        metrics.lap(RunMetrics.Stage.WRITE, lap);
+        return true;
+    }
+
+    /**
+     * Loads a tax bracket file, annualized over the salary pay periods, and gives it to every
+     * employee.
+     * 
+     * @param taxFile   the tax bracket file, or null to keep the flat tax rate
+     * @param employees the employees
+     * @return false if the file could not be loaded
+     */
+    private static boolean applyTaxFile(String taxFile, EmployeeSource employees) {
+        if (taxFile == null) {
+            return true;
+        }
+        try {
+            employees.setTaxPolicy(TaxBrackets.load(taxFile, TaxBrackets.Method.ANNUALIZED,
+                    (int) FixedPointPayroll.PAY_PERIODS_PER_YEAR));
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error reading tax table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs payroll for every tenant in the manifest file, inside this JVM. The options apply
+     * to every tenant, except the snapshot file, which cannot be shared between tenants.
+     * 
+     * @param arguments the manifest file and options
+     * @return true if every tenant's run succeeded
+     */
+    private static boolean runManifest(Arguments arguments) {
+        List<ManifestRunner.Tenant> tenants;
+        try {
+            tenants = ManifestRunner.readManifest(arguments.getManifestFile());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading manifest: " + e.getMessage());
+            return false;
+        }
+        if (arguments.getSnapshotFile() != null) {
+            System.err.println("Ignoring snapshot file, it cannot be shared between tenants");
+        }
+
+        ManifestRunner runner = new ManifestRunner(Runtime.getRuntime().availableProcessors());
+        List<ManifestRunner.Outcome> outcomes = runner.runAll(tenants,
+                tenant -> run(arguments.forTenant(tenant)));
+        int failed = 0;
+        for (ManifestRunner.Outcome outcome : outcomes) {
+            if (!outcome.isSucceeded()) {
+                failed++;
+                System.err.println("Payroll failed for " + outcome.getTenant()
+                        + (outcome.getError() != null ? ": " + outcome.getError() : ""));
+            }
+        }
+        System.out.println("Ran payroll for " + outcomes.size() + " tenants, " + failed
+                + " failed.");
+        return failed == 0;
+    }
+
+    /**
+     * Opens the employee snapshot, if one is given and it was made from the current employee
+     * file. Only the IDs are read; each employee is built from the mapped snapshot when it is
+     * first looked up.
+     * 
+     * @param employeeFile the employee file name
+     * @param snapshotFile the snapshot file name, or null
+     * @param metrics      the metrics of this run
+     * @return the employees in the snapshot, or null if the CSV has to be parsed
+     */
+    private static LazyEmployeeSnapshot openSnapshot(String employeeFile, String snapshotFile,
+            RunMetrics metrics) {
+        if (snapshotFile == null || !Files.exists(Path.of(snapshotFile))) {
+            return null;
+        }
+        long lap = metrics.now();
+        try {
+            EmployeeSnapshot snapshot = EmployeeSnapshot.map(Path.of(snapshotFile));
+            if (!snapshot.isCurrent(Path.of(employeeFile))) {
+                return null;
+            }
+            LazyEmployeeSnapshot employees = new LazyEmployeeSnapshot(snapshot);
+            metrics.lap(RunMetrics.Stage.READ, lap);
+            metrics.addBytesRead(sizeOf(snapshotFile));
+            return employees;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ignoring employee snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the employee CSV. If a snapshot file is given, it is brought up to date for the
+     * next run.
+     * 
+     * @param employeeFile the employee file name
+     * @param snapshotFile the snapshot file name, or null to skip writing one
+     * @param threads      the number of threads to parse the CSV on
+     * @param metrics      the metrics of this run
+     * @return the employees, in file order
+     */
+    private static List<IEmployee> loadEmployees(String employeeFile, String snapshotFile,
+            int threads, RunMetrics metrics) {
+        Path csv = Path.of(employeeFile);
+        long lap = metrics.now();
+        List<IEmployee> employees;
+        if (threads > 1) {
+            employees = readParallel(employeeFile, Builder::buildEmployeeFromCSV, threads,
+                    metrics);
+            lap = metrics.lap(RunMetrics.Stage.PARSE, lap);
+        } else {
+            List<String> employeeLines = FileUtil.readFileToList(employeeFile);
+            lap = metrics.lap(RunMetrics.Stage.READ, lap);
+
+            // line 1 of each file is the header, so data starts on line 2
+            employees = new ArrayList<>(employeeLines.size());
+            for (int i = 0; i < employeeLines.size(); i++) {
+                employees.add(Builder.buildEmployeeFromCSV(employeeLines.get(i), i + 2));
+            }
+            lap = metrics.lap(RunMetrics.Stage.PARSE, lap);
+        }
+        metrics.addBytesRead(sizeOf(employeeFile));
+        if (snapshotFile != null) {
+            writeSnapshot(snapshotFile, employees, csv);
+            metrics.lap(RunMetrics.Stage.WRITE, lap);
+        }
+        return employees;
+    }
+
+    /**
+     * Gets the size of a file, for the bytes read metric.
+     * 
+     * @param file the file name
+     * @return the size in bytes, or 0 if it cannot be read
+     */
+    private static long sizeOf(String file) {
+        try {
+            return Files.size(Path.of(file));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Writes the employee snapshot. Failing to write it is not an error, the next run just
+     * parses the CSV again.
+     * 
+     * @param snapshotFile the snapshot file name
+     * @param employees    the employees
+     * @param employeeFile the employee CSV file the snapshot matches
+     */
+    private static void writeSnapshot(String snapshotFile, List<IEmployee> employees,
+            Path employeeFile) {
+        try {
+            EmployeeSnapshot.write(Path.of(snapshotFile), employees, employeeFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error writing employee snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the employee snapshot from the employees a run was served from. Failing to write
+     * it is not an error, the next run just parses the CSV again.
+     * 
+     * @param snapshotFile the snapshot file name
+     * @param employees    the employees
+     * @param employeeFile the employee CSV file the snapshot matches
+     */
+    private static void writeSnapshot(String snapshotFile, LazyEmployeeSnapshot employees,
+            Path employeeFile) {
+        try {
+            employees.writeSnapshot(Path.of(snapshotFile), employeeFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error writing employee snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs payroll on the time cards in order, streaming the time card file, a pay stub
+     * buffer's worth of cards at a time. Each batch is read, parsed, joined, paid and written
+     * in turn, and the stage times and card count are added to the metrics once per batch,
+     * as {@link PayrollPipeline} does, instead of once per card. When aggregating, the cards
+     * are summed per employee first and each employee is paid once, after the whole file is
+     * read.
+     * 
+     * @param registry     the employees
+     * @param timeCardFile the time card file name
+     * @param aggregate    if true, sum each employee's cards before running payroll
+     * @param payStubOut   where to write the pay stubs
+     * @param journal      the YTD journal, or null if not journaling
+     * @param metrics      the metrics of this run
+     * @throws IOException if writing fails
+     */
+    private static void writeSequential(EmployeeSource registry, String timeCardFile,
+            boolean aggregate, LineWriter payStubOut, YtdJournal journal, RunMetrics metrics)
+            throws IOException {
+        TimeCardAggregator aggregator = aggregate ? new TimeCardAggregator(registry) : null;
+        PayStubBuffer payStubs = new PayStubBuffer(PayStubBuffer.DEFAULT_CAPACITY);
+        String[] lines = new String[payStubs.capacity()];
+        ITimeCard[] cards = new ITimeCard[payStubs.capacity()];
+        IEmployee[] employees = new IEmployee[payStubs.capacity()];
+        IdDictionary ids = registry.getIds();
+        try (Stream<String> timeCards = FileUtil.streamLines(timeCardFile)) {
+            Iterator<String> iterator = timeCards.iterator();
+            int lineNumber = 1;
+            while (true) {
+                long lap = metrics.now();
+                int count = 0;
+                while (count < lines.length && iterator.hasNext()) {
+                    lines[count++] = iterator.next();
+                }
+                if (count == 0) {
+                    break;
+                }
+                lap = metrics.lap(RunMetrics.Stage.READ, lap);
+                for (int i = 0; i < count; i++) {
+                    cards[i] = Builder.buildTimeCardFromCSV(lines[i], ++lineNumber, ids);
+                }
+                metrics.addTimeCardsRead(count);
+                lap = metrics.lap(RunMetrics.Stage.PARSE, lap);
+                if (aggregator != null) {
+                    for (int i = 0; i < count; i++) {
+                        if (!aggregator.add(cards[i])) {
+                            skipped(cards[i], metrics);
+                        }
+                    }
+                    metrics.lap(RunMetrics.Stage.JOIN, lap);
+                } else {
+                    payBatch(registry, cards, employees, count, payStubs, payStubOut, journal,
+                            metrics, lap);
+                }
+            }
+        }
+        if (aggregator != null) {
+            long lap = metrics.now();
+            int count = 0;
+            for (ITimeCard total : aggregator.getTotals()) {
+                cards[count++] = total;
+                if (count == cards.length) {
+                    lap = payBatch(registry, cards, employees, count, payStubs, payStubOut,
+                            journal, metrics, lap);
+                    count = 0;
+                }
+            }
+            payBatch(registry, cards, employees, count, payStubs, payStubOut, journal, metrics,
+                    lap);
+        }
+    }
+
+    /**
+     * Counts a time card that was not paid, by the reason it was skipped.
+     * 
+     * @param timeCard the time card, null if it had negative hours
+     * @param metrics  the metrics of this run
+     */
+    private static void skipped(ITimeCard timeCard, RunMetrics metrics) {
+        if (timeCard == null || timeCard.getHoursWorked() < 0) {
+            metrics.negativeHoursSkipped();
+        } else {
+            metrics.unknownEmployeeSkipped();
+        }
+    }
+
+    /**
+     * Runs payroll for a batch of time cards and writes out their pay stubs. Cards that are
+     * null, have negative hours or belong to an unknown employee are skipped.
+     * 
+     * @param registry   the employees
+     * @param cards      the time cards
+     * @param employees  receives the employee of each card
+     * @param count      the number of cards in the batch, at most the buffer's capacity
+     * @param payStubs   the empty pay stub buffer
+     * @param payStubOut where to write the pay stubs
+     * @param journal    the YTD journal, or null if not journaling
+     * @param metrics    the metrics of this run
+     * @param lap        the end of the previous metrics lap
+     * @return the end of the last metrics lap
+     * @throws IOException if writing fails
+     */
+    private static long payBatch(EmployeeSource registry, ITimeCard[] cards,
+            IEmployee[] employees, int count, PayStubBuffer payStubs, LineWriter payStubOut,
+            YtdJournal journal, RunMetrics metrics, long lap) throws IOException {
+        for (int i = 0; i < count; i++) {
+            ITimeCard timeCard = cards[i];
+            employees[i] = timeCard == null || timeCard.getHoursWorked() < 0
+                    ? null : registry.get(timeCard);
+            if (employees[i] == null) {
+                skipped(timeCard, metrics);
+            }
+        }
+        lap = metrics.lap(RunMetrics.Stage.JOIN, lap);
+
+        for (int i = 0; i < count; i++) {
+            if (employees[i] != null) {
+                payStubs.pay(employees[i], cards[i].getHoursWorked());
+            }
+        }
+        lap = metrics.lap(RunMetrics.Stage.PAYROLL, lap);
+        return flush(payStubs, payStubOut, journal, metrics, lap);
+    }
+
+    /**
+     * Writes the pay stubs in a buffer, records them in the journal, and empties the buffer.
+     * 
+     * @param payStubs   the pay stub buffer
+     * @param payStubOut where to write the pay stubs
+     * @param journal    the YTD journal, or null if not journaling
+     * @param metrics    the metrics of this run
+     * @param lap        the end of the previous metrics lap
+     * @return the end of this metrics lap
+     * @throws IOException if writing fails
+     */
+    private static long flush(PayStubBuffer payStubs, LineWriter payStubOut, YtdJournal journal,
+            RunMetrics metrics, long lap) throws IOException {
+        metrics.addPayStubsWritten(payStubs.writeCSV(payStubOut));
+        if (journal != null) {
+            for (int row = 0; row < payStubs.size(); row++) {
+                IPayStub payStub = payStubs.get(row);
+                if (payStub != null) {
+                    journal.record(payStub);
+                }
+            }
+        }
+        payStubs.clear();
+        return metrics.lap(RunMetrics.Stage.WRITE, lap);
+    }
+
+    /**
+     * Closes a writer after an earlier error, reporting any failure.
+     *
+     * @param writer the writer
+     */
+    private static void closeQuietly(LineWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + e.getMessage());
+        }
+    }
 
-        employeeLines = employees.stream().map(IEmployee::toCSV).collect(Collectors.toList());
-        employeeLines.add(0, FileUtil.EMPLOYEE_HEADER);
-        FileUtil.writeFile(arguments.getEmployeeFile(), employeeLines);
+    /**
+     * Writes the employee file, one line at a time. The file is replaced atomically, so a
+     * crash while writing leaves the previous employee file intact, and the previous version
+     * is kept as a .bak file.
+     * 
+     * @param employeeFile the employee file name
+     * @param employees    the employees to write
+     * @param metrics      the metrics of this run
+     * @return true if the file was written
+     */
+    private static boolean writeEmployees(String employeeFile, EmployeeSource employees,
+            RunMetrics metrics) {
+        AtomicLineWriter employeeOut = FileUtil.openAtomicWriter(employeeFile, 1);
+        if (employeeOut == null) {
+            return false;
+        }
+        try (employeeOut) {
+            employeeOut.writeLine(FileUtil.EMPLOYEE_HEADER);
+            employees.writeCSV(employeeOut);
+            employeeOut.commit();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.addBytesWritten(employeeOut.getBytesWritten());
+        }
+    }
 
-        // now save out the pay stubs
-        List<String> payStubLines = payStubs.stream().filter(x -> x != null).map(IPayStub::toCSV)
-                .collect(Collectors.toList());
-        payStubLines.add(0, FileUtil.PAY_STUB_HEADER);
-        FileUtil.writeFile(arguments.getPayrollFile(), payStubLines);
+    /**
+     * Runs payroll for all time cards on a fork-join pool. Cards are partitioned by employee,
+     * so the pay stubs come out in the same order as the sequential loop.
+     *
+     * @param registry     the employees
+     * @param timeCardFile the time card file name
+     * @param threads      the number of worker threads
+     * @param aggregate    if true, sum each employee's cards before running payroll
+     * @param metrics      the metrics of this run
+     * @return the pay stubs, one row per time card
+     */
+    private static PayStubBuffer runParallel(EmployeeSource registry, String timeCardFile,
+            int threads, boolean aggregate, RunMetrics metrics) {
+        long lap = metrics.now();
+        IdDictionary ids = registry.getIds();
+        List<ITimeCard> timeCardList = readParallel(timeCardFile,
+                (line, lineNumber) -> Builder.buildTimeCardFromCSV(line, lineNumber, ids), threads,
+                metrics);
+        lap = metrics.lap(RunMetrics.Stage.PARSE, lap);
+        metrics.addTimeCardsRead(timeCardList.size());
+        if (aggregate) {
+            TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+            for (ITimeCard timeCard : timeCardList) {
+                if (!aggregator.add(timeCard)) {
+                    skipped(timeCard, metrics);
+                }
+            }
+            timeCardList = aggregator.getTotals();
+            lap = metrics.lap(RunMetrics.Stage.JOIN, lap);
+        }
 
+        ForkJoinPool pool = newPool(threads, metrics);
+        PayStubBuffer payStubs;
+        try {
+            payStubs = new ParallelPayroll(pool, threads).runBuffered(registry, timeCardList);
+        } finally {
+            metrics.countWorkers();
+            pool.shutdown();
+        }
+        for (int row = 0; row < payStubs.size(); row++) {
+            if (payStubs.isEmpty(row)) {
+                skipped(timeCardList.get(row), metrics);
+            }
+        }
+        metrics.lap(RunMetrics.Stage.PAYROLL, lap);
+        return payStubs;
+    }
+
+    /**
+     * Parses a CSV file on a fork-join pool, in chunks.
+     *
+     * @param <T>     the type of value
+     * @param file    the file name
+     * @param parser  the line parser
+     * @param threads the number of worker threads
+     * @param metrics the metrics of this run
+     * @return one value per line after the header, in file order, or an empty list if the
+     *         file cannot be read
+     */
+    private static <T> List<T> readParallel(String file, ParallelCsvReader.LineParser<T> parser,
+            int threads, RunMetrics metrics) {
+        ForkJoinPool pool = newPool(threads, metrics);
+        try {
+            return new ParallelCsvReader(pool, threads).read(Path.of(file), parser);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            metrics.countWorkers();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates a fork-join pool whose worker threads are added to the run's metrics, so the
+     * bytes they allocate are counted.
+     *
+     * @param threads the number of worker threads
+     * @param metrics the metrics of this run
+     * @return the pool
+     */
+    private static ForkJoinPool newPool(int threads, RunMetrics metrics) {
+        return new ForkJoinPool(threads, pool -> metrics.addWorker(
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool)), null, false);
     }
 
     /**
@@ -120,6 +774,42 @@ public final class PayrollGenerator {
         /** sets the timeCards argument. */
         private String timeCards = DEFAULT_TIME_CARD_FILE;
 
+        /** sets the number of payroll threads, 1 runs payroll sequentially. */
+        private int threads = 1;
+
+        /** if true, YTD changes go to a journal instead of rewriting the employee file. */
+        private boolean journal;
+
+        /** if true, the journal is compacted into the employee file after this run. */
+        private boolean compact;
+
+        /** sets the employee snapshot file, null if no snapshot is used. */
+        private String snapshotFile;
+
+        /** if true, time cards are summed per employee and each employee is paid once. */
+        private boolean aggregate;
+
+        /** if true, only the employees named in the time cards are built. */
+        private boolean lazy;
+
+        /** if true, the time cards are read, parsed, paid and written by concurrent stages. */
+        private boolean pipeline;
+
+        /** sets the tenant manifest file, null to run a single set of files. */
+        private String manifestFile;
+
+        /** sets the run metrics summary file, null if no summary is written. */
+        private String metricsFile;
+
+        /** sets the tax bracket file, null for the flat tax rate. */
+        private String taxFile;
+
+        /** sets the YTD projection file, null to run payroll instead. */
+        private String projectionFile;
+
+        /** sets the number of pay periods to project. */
+        private int periods = (int) FixedPointPayroll.PAY_PERIODS_PER_YEAR;
+
         /**
          * Constructor for Arguments. Setup as private, so builder has to be used.
          * 
@@ -156,6 +846,143 @@ public final class PayrollGenerator {
             return timeCards;
         }
 
+        /**
+         * Gets the number of payroll threads.
+         * 
+         * @return the number of threads, 1 for sequential payroll
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Checks if YTD changes are journaled.
+         * 
+         * @return true to append YTD changes to a journal instead of rewriting the employee file
+         */
+        public boolean isJournal() {
+            return journal;
+        }
+
+        /**
+         * Checks if the journal should be compacted after this run.
+         * 
+         * @return true to write the employee file and remove the journal
+         */
+        public boolean isCompact() {
+            return compact;
+        }
+
+        /**
+         * Gets the employee snapshot file.
+         * 
+         * @return the name of the snapshot file, or null if no snapshot is used
+         */
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        /**
+         * Checks if time cards are summed per employee before payroll.
+         * 
+         * @return true to pay each employee once for the total of their time cards
+         */
+        public boolean isAggregate() {
+            return aggregate;
+        }
+
+        /**
+         * Checks if employees are built on demand.
+         * 
+         * @return true to build only the employees the time cards name
+         */
+        public boolean isLazy() {
+            return lazy;
+        }
+
+        /**
+         * Checks if payroll runs as a pipeline of concurrent stages.
+         * 
+         * @return true to read, parse, pay and write the time cards on a thread each
+         */
+        public boolean isPipeline() {
+            return pipeline;
+        }
+
+        /**
+         * Gets the tenant manifest file.
+         * 
+         * @return the name of the manifest file, or null to run a single set of files
+         */
+        public String getManifestFile() {
+            return manifestFile;
+        }
+
+        /**
+         * Gets the run metrics summary file.
+         * 
+         * @return the name of the metrics file, or null if no summary is written
+         */
+        public String getMetricsFile() {
+            return metricsFile;
+        }
+
+        /**
+         * Gets the tax bracket file.
+         * 
+         * @return the name of the tax bracket file, or null for the flat tax rate
+         */
+        public String getTaxFile() {
+            return taxFile;
+        }
+
+        /**
+         * Gets the YTD projection file.
+         * 
+         * @return the name of the projection file, or null to run payroll
+         */
+        public String getProjectionFile() {
+            return projectionFile;
+        }
+
+        /**
+         * Gets the number of pay periods to project.
+         * 
+         * @return the number of periods, 24 unless given
+         */
+        public int getPeriods() {
+            return periods;
+        }
+
+        /**
+         * Copies these arguments for one tenant of a manifest.
+         * 
+         * @param tenant the tenant
+         * @return the same options with the tenant's files and no snapshot or manifest; a
+         *         metrics summary or projection goes next to the tenant's pay stub file
+         */
+        public Arguments forTenant(ManifestRunner.Tenant tenant) {
+            Arguments copy = new Arguments();
+            copy.employeeFile = tenant.getEmployeeFile();
+            copy.timeCards = tenant.getTimeCardFile();
+            copy.payrollFile = tenant.getPayrollFile();
+            copy.threads = threads;
+            copy.journal = journal;
+            copy.compact = compact;
+            copy.aggregate = aggregate;
+            copy.lazy = lazy;
+            copy.pipeline = pipeline;
+            copy.taxFile = taxFile;
+            copy.periods = periods;
+            if (projectionFile != null) {
+                copy.projectionFile = tenant.getPayrollFile() + ".projection.csv";
+            }
+            if (metricsFile != null) {
+                copy.metricsFile = tenant.getPayrollFile() + ".metrics.csv";
+            }
+            return copy;
+        }
+
         /**
          * Prints the help message.
          */
@@ -169,6 +996,30 @@ public final class PayrollGenerator {
                     "  -t time_cards_file  Input file containing time card information. Default is time_cards.csv");
             System.out.println(
                     "  -o payroll_file   Output file containing payroll information. Default is pay_stubs.csv");
+            System.out.println(
+                    "  -p threads        Parse input and run payroll on this many threads. Default is 1");
+            System.out.println(
+                    "  -j                Append YTD changes to employee_file.journal instead of rewriting the employee file");
+            System.out.println(
+                    "  -c                Compact the journal into the employee file after this run");
+            System.out.println(
+                    "  -s snapshot_file  Load employees from this binary snapshot while it matches the employee file");
+            System.out.println(
+                    "  -a                Sum each employee's time cards and pay them once, with overtime over the total");
+            System.out.println(
+                    "  -l                Only build employees named in the time cards, copy other lines unchanged");
+            System.out.println(
+                    "  -i                Read, parse, pay and write time cards concurrently in batches (instead of -p)");
+            System.out.println(
+                    "  -m manifest_file  Run every employee_file,time_card_file,payroll_file line of this CSV in one JVM");
+            System.out.println(
+                    "  -r metrics_file   Write stage timings and counters to this CSV file; with -m, to payroll_file.metrics.csv");
+            System.out.println(
+                    "  -x tax_file       Tax pay with the table,threshold,rate brackets of this CSV instead of the flat rate");
+            System.out.println(
+                    "  -y projection_file  Write projected YTD totals per employee and period instead of running payroll");
+            System.out.println(
+                    "  -n periods        Pay periods to project with -y, at the time card hours every period. Default is 24");
             System.out.println("  -h                Print this help message");
         }
 
@@ -205,6 +1056,72 @@ public final class PayrollGenerator {
                         arguments.printHelp();
                         System.exit(1);
                     }
+                } else if (args[i].equals("-p")) {
+                    if (i + 1 < args.length && args[i + 1].matches("[1-9][0-9]*")) {
+                        arguments.threads = Integer.parseInt(args[i + 1]);
+                    } else {
+                        System.out.println("Missing or invalid argument for -p option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-s")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.snapshotFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -s option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-m")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.manifestFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -m option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-r")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.metricsFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -r option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-x")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.taxFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -x option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-y")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.projectionFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -y option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-n")) {
+                    if (i + 1 < args.length && args[i + 1].matches("[1-9][0-9]{0,3}")) {
+                        arguments.periods = Integer.parseInt(args[i + 1]);
+                    } else {
+                        System.out.println("Missing or invalid argument for -n option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-a")) {
+                    arguments.aggregate = true;
+                } else if (args[i].equals("-l")) {
+                    arguments.lazy = true;
+                } else if (args[i].equals("-i")) {
+                    arguments.pipeline = true;
+                } else if (args[i].equals("-j")) {
+                    arguments.journal = true;
+                } else if (args[i].equals("-c")) {
+                    arguments.compact = true;
                 } else if (args[i].equals("-h")) {
                     arguments.printHelp();
                     System.exit(0);
@@ -0,0 +1,404 @@
+package student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Runs payroll for a time card file as a pipeline of stages on their own threads.
+ * <p>
+ * A reader stage reads batches of time card lines, a parser stage turns them into time cards,
+ * a payroll stage matches the cards to employees and fills in the batch's pay stubs, and a
+ * writer stage writes and journals them. The stages run at the same time, so reading and
+ * writing the files overlaps with parsing and payroll, and a run takes about as long as its
+ * slowest stage instead of the sum of all of them.
+ * </p>
+ * <p>
+ * A fixed number of batches circulate through bounded queues: the reader takes an empty batch
+ * from the free queue and the writer puts it back once written, so a stage that falls behind
+ * holds up the ones before it instead of letting batches pile up in memory. Every stage is a
+ * single thread and batches stay in file order, so each employee's cards are paid in file
+ * order and the pay stubs come out the same as a sequential run.
+ * </p>
+ * <p>
+ * The metrics of a pipelined run are recorded by the stage threads, each into its own stage,
+ * so the stage times add up to more than the elapsed time.
+ * </p>
+ */
+public final class PayrollPipeline {
+    /** Default number of time cards per batch. */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    /** Default number of batches in the pipeline at once. */
+    public static final int DEFAULT_BATCHES = 8;
+    /** Number of stage threads. */
+    private static final int STAGES = 4;
+
+    /**
+     * A batch of time cards and their pay stubs, reused for the whole run.
+     */
+    private static final class Batch {
+        /** Time card lines. */
+        private final String[] lines;
+        /** Parsed time cards, null for a card with negative hours. */
+        private final ITimeCard[] cards;
+        /** Pay stubs of the batch. */
+        private final PayStubBuffer payStubs;
+        /** Line number of the first line. */
+        private int firstLine;
+        /** Number of lines in use. */
+        private int size;
+        /** True for the final batch of the run. */
+        private boolean last;
+
+        /**
+         * Creates an empty batch.
+         *
+         * @param capacity the most time cards in the batch
+         */
+        Batch(int capacity) {
+            this.lines = new String[capacity];
+            this.cards = new ITimeCard[capacity];
+            this.payStubs = new PayStubBuffer(capacity);
+        }
+    }
+
+    /** Most time cards per batch. */
+    private final int batchSize;
+    /** Number of batches in the pipeline at once. */
+    private final int batches;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param batchSize the most time cards per batch
+     * @param batches   the number of batches in the pipeline at once, at least 2 so the stages
+     *                  can overlap
+     * @throws IllegalArgumentException if batchSize is less than 1 or batches is less than 2
+     */
+    public PayrollPipeline(int batchSize, int batches) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        if (batches < 2) {
+            throw new IllegalArgumentException("Pipeline needs at least 2 batches.");
+        }
+        this.batchSize = batchSize;
+        this.batches = batches;
+    }
+
+    /**
+     * Runs payroll for every time card in a file and writes the pay stubs. Cards that are
+     * null, have negative hours or belong to an unknown employee are skipped, the same as the
+     * sequential run. When aggregating, the payroll stage sums the cards per employee and pays
+     * each employee once after the whole file is read; reading and parsing still overlap.
+     *
+     * @param registry     the employees; the parser stage only reads their IDs
+     * @param timeCardFile the time card file name
+     * @param aggregate    if true, sum each employee's cards before running payroll
+     * @param payStubOut   where to write the pay stubs, only used by the writer stage
+     * @param journal      the YTD journal, or null if not journaling
+     * @param metrics      the metrics of this run
+     * @throws IOException if reading or writing fails
+     */
+    public void run(EmployeeSource registry, String timeCardFile, boolean aggregate,
+            LineWriter payStubOut, YtdJournal journal, RunMetrics metrics) throws IOException {
+        BlockingQueue<Batch> free = new ArrayBlockingQueue<>(batches);
+        BlockingQueue<Batch> read = new ArrayBlockingQueue<>(batches);
+        BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(batches);
+        BlockingQueue<Batch> paid = new ArrayBlockingQueue<>(batches);
+        for (int i = 0; i < batches; i++) {
+            free.add(new Batch(batchSize));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(STAGES, task -> {
+            Thread thread = new Thread(task, "payroll-pipeline");
+            thread.setDaemon(true);
+            return metrics.addWorker(thread);
+        });
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(stage(() -> read(timeCardFile, free, read, metrics)));
+            stages.submit(stage(() -> parse(registry.getIds(), read, parsed, metrics)));
+            stages.submit(stage(() -> pay(registry, aggregate, parsed, free, paid, metrics)));
+            stages.submit(stage(() -> write(paid, free, payStubOut, journal, metrics)));
+            for (int i = 0; i < STAGES; i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Payroll pipeline interrupted.", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            // a failed stage leaves the others waiting on their queues
+            metrics.countWorkers();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The work of one stage.
+     */
+    @FunctionalInterface
+    private interface Stage {
+        /**
+         * Runs the stage until the last batch has gone through it.
+         *
+         * @throws IOException          if reading or writing fails
+         * @throws InterruptedException if another stage failed
+         */
+        void run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Wraps a stage as a task for the executor.
+     *
+     * @param stage the stage
+     * @return the task
+     */
+    private static Callable<Void> stage(Stage stage) {
+        return () -> {
+            stage.run();
+            return null;
+        };
+    }
+
+    /**
+     * Reader stage: reads the time card lines into batches.
+     *
+     * @param timeCardFile the time card file name
+     * @param free         empty batches
+     * @param out          batches of lines
+     * @param metrics      the metrics of this run
+     * @throws InterruptedException if another stage failed
+     */
+    private static void read(String timeCardFile, BlockingQueue<Batch> free,
+            BlockingQueue<Batch> out, RunMetrics metrics) throws InterruptedException {
+        try (Stream<String> timeCards = FileUtil.streamLines(timeCardFile)) {
+            Iterator<String> lines = timeCards.iterator();
+            int lineNumber = 2; // line 1 is the header
+            boolean last = false;
+            while (!last) {
+                Batch batch = free.take();
+                long lap = metrics.now();
+                batch.firstLine = lineNumber;
+                batch.size = 0;
+                while (batch.size < batch.lines.length && lines.hasNext()) {
+                    batch.lines[batch.size++] = lines.next();
+                }
+                lineNumber += batch.size;
+                last = !lines.hasNext();
+                batch.last = last;
+                metrics.lap(RunMetrics.Stage.READ, lap);
+                out.put(batch);
+            }
+        }
+    }
+
+    /**
+     * Parser stage: turns each batch of lines into time cards, resolving their employee IDs.
+     *
+     * @param ids     the employee IDs, or null to keep them as strings
+     * @param in      batches of lines
+     * @param out     batches of time cards
+     * @param metrics the metrics of this run
+     * @throws InterruptedException if another stage failed
+     */
+    private static void parse(IdDictionary ids, BlockingQueue<Batch> in,
+            BlockingQueue<Batch> out, RunMetrics metrics) throws InterruptedException {
+        boolean last;
+        do {
+            Batch batch = in.take();
+            last = batch.last; // the batch may be reused as soon as it is passed on
+            long lap = metrics.now();
+            for (int i = 0; i < batch.size; i++) {
+                batch.cards[i] = Builder.buildTimeCardFromCSV(batch.lines[i], batch.firstLine + i,
+                        ids);
+                batch.lines[i] = null;
+            }
+            metrics.addTimeCardsRead(batch.size);
+            metrics.lap(RunMetrics.Stage.PARSE, lap);
+            out.put(batch);
+        } while (!last);
+    }
+
+    /**
+     * Payroll stage: pays each batch of time cards into its pay stubs. When aggregating, the
+     * cards are summed instead and the totals are paid into fresh batches at the end.
+     *
+     * @param registry  the employees
+     * @param aggregate if true, sum each employee's cards before running payroll
+     * @param in        batches of time cards
+     * @param free      empty batches, where aggregated batches go back to
+     * @param out       batches of pay stubs
+     * @param metrics   the metrics of this run
+     * @throws InterruptedException if another stage failed
+     */
+    private static void pay(EmployeeSource registry, boolean aggregate, BlockingQueue<Batch> in,
+            BlockingQueue<Batch> free, BlockingQueue<Batch> out, RunMetrics metrics)
+            throws InterruptedException {
+        TimeCardAggregator aggregator = aggregate ? new TimeCardAggregator(registry) : null;
+        Batch batch;
+        boolean last;
+        do {
+            batch = in.take();
+            last = batch.last; // the batch may be reused as soon as it is passed on
+            long lap = metrics.now();
+            if (aggregator == null) {
+                batch.payStubs.clear();
+                for (int i = 0; i < batch.size; i++) {
+                    lap = pay(registry, batch.cards[i], batch.payStubs, metrics, lap);
+                }
+                clearCards(batch);
+                out.put(batch);
+                continue;
+            }
+            for (int i = 0; i < batch.size; i++) {
+                if (!aggregator.add(batch.cards[i])) {
+                    skipped(batch.cards[i], metrics);
+                }
+            }
+            metrics.lap(RunMetrics.Stage.JOIN, lap);
+            clearCards(batch);
+            if (!last) {
+                free.put(batch);
+            }
+        } while (!last);
+
+        if (aggregator != null) {
+            // the last batch is still held here, and goes out after the totals to end the run
+            batch.last = false;
+            Batch current = free.take();
+            current.payStubs.clear();
+            long lap = metrics.now();
+            for (ITimeCard total : aggregator.getTotals()) {
+                if (current.payStubs.isFull()) {
+                    out.put(current);
+                    current = free.take();
+                    current.payStubs.clear();
+                }
+                lap = pay(registry, total, current.payStubs, metrics, lap);
+            }
+            out.put(current);
+            batch.payStubs.clear();
+            batch.last = true;
+            out.put(batch);
+        }
+    }
+
+    /**
+     * Pays one time card into a pay stub buffer that is not full.
+     *
+     * @param registry the employees
+     * @param timeCard the time card, null if it had negative hours
+     * @param payStubs the pay stubs
+     * @param metrics  the metrics of this run
+     * @param lap      the end of the previous metrics lap
+     * @return the end of the last metrics lap
+     */
+    private static long pay(EmployeeSource registry, ITimeCard timeCard, PayStubBuffer payStubs,
+            RunMetrics metrics, long lap) {
+        if (timeCard == null || timeCard.getHoursWorked() < 0) {
+            metrics.negativeHoursSkipped();
+            return lap;
+        }
+        IEmployee employee = registry.get(timeCard);
+        lap = metrics.lap(RunMetrics.Stage.JOIN, lap);
+        if (employee == null) {
+            metrics.unknownEmployeeSkipped();
+            return lap;
+        }
+        payStubs.pay(employee, timeCard.getHoursWorked());
+        return metrics.lap(RunMetrics.Stage.PAYROLL, lap);
+    }
+
+    /**
+     * Counts a time card the aggregator did not take, by the reason it was skipped.
+     *
+     * @param timeCard the time card, null if it had negative hours
+     * @param metrics  the metrics of this run
+     */
+    private static void skipped(ITimeCard timeCard, RunMetrics metrics) {
+        if (timeCard == null || timeCard.getHoursWorked() < 0) {
+            metrics.negativeHoursSkipped();
+        } else {
+            metrics.unknownEmployeeSkipped();
+        }
+    }
+
+    /**
+     * Drops a batch's time cards once they are paid.
+     *
+     * @param batch the batch
+     */
+    private static void clearCards(Batch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            batch.cards[i] = null;
+        }
+    }
+
+    /**
+     * Writer stage: writes and journals each batch of pay stubs, then frees the batch.
+     *
+     * @param in         batches of pay stubs
+     * @param free       where written batches go back to
+     * @param payStubOut where to write the pay stubs
+     * @param journal    the YTD journal, or null if not journaling
+     * @param metrics    the metrics of this run
+     * @throws IOException          if writing fails
+     * @throws InterruptedException if another stage failed
+     */
+    private static void write(BlockingQueue<Batch> in, BlockingQueue<Batch> free,
+            LineWriter payStubOut, YtdJournal journal, RunMetrics metrics)
+            throws IOException, InterruptedException {
+        boolean last;
+        do {
+            Batch batch = in.take();
+            last = batch.last;
+            long lap = metrics.now();
+            PayStubBuffer payStubs = batch.payStubs;
+            metrics.addPayStubsWritten(payStubs.writeCSV(payStubOut));
+            if (journal != null) {
+                for (int row = 0; row < payStubs.size(); row++) {
+                    journal.record(payStubs.get(row));
+                }
+            }
+            payStubs.clear();
+            metrics.lap(RunMetrics.Stage.WRITE, lap);
+            if (!last) {
+                free.put(batch);
+            }
+        } while (!last);
+    }
+
+    /**
+     * Turns the failure of a stage back into the exception the stage threw.
+     *
+     * @param cause the failure
+     * @return the IOException to throw
+     */
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,292 @@
+package student;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Projects every employee's YTD earnings and taxes over the coming pay periods, without
+ * changing the employees.
+ * <p>
+ * Each employee is assumed to work the same expected hours every period; salaried employees
+ * are paid their salary over {@link FixedPointPayroll#PAY_PERIODS_PER_YEAR} periods whatever
+ * the hours. For an {@link EmployeeView}, the pay of one period is worked out once from the
+ * {@link EmployeeTable} columns with {@link FixedPointPayroll}. When the employee's tax does not
+ * depend on the YTD totals, every period pays the same, so the curve is the starting totals
+ * plus a multiple of one period and is filled in closed form; while every row of the table has
+ * the flat tax, that one period is worked out for all rows at once by {@link BatchPayroll}
+ * when the projection is created. Otherwise, such as with
+ * {@link TaxBrackets.Method#CUMULATIVE} brackets, the periods are stepped through on local
+ * {@code long}s. Employees a table cannot hold, such as those paid fractions of a cent, are
+ * given as {@link EmployeeBigDecimal} objects instead; they, hours with more than four decimal
+ * places and amounts too large for a {@code long} fall back to paying a copy of the employee
+ * period by period.
+ * </p>
+ */
+public final class PayrollProjection {
+    /** Header line of a projection file. */
+    public static final String PROJECTION_HEADER = "employee_id,period,ytd_earnings,ytd_taxes_paid";
+
+    /** The employees, which are only read. */
+    private final IEmployee[] employees;
+    /** Expected hours per period of each employee. */
+    private final double[] expectedHours;
+    /** {@link #expectedHours} in ten-thousandths, or {@link FixedPointPayroll#NOT_EXACT}. */
+    private final long[] scaledHours;
+    /** Number of periods projected. */
+    private final int periods;
+    /** The table whose rows were paid in one batch, or null if none was. */
+    private final EmployeeTable batchTable;
+    /** Net pay of one period per row of {@link #batchTable}, or -1 if the row was not paid. */
+    private final long[] batchNet;
+    /** Taxes of one period per row of {@link #batchTable}. */
+    private final long[] batchTaxes;
+
+    /**
+     * Creates a projection of every row of a table.
+     *
+     * @param table         the employees
+     * @param expectedHours expected hours per period of each row of the table
+     * @param periods       the number of pay periods to project
+     * @throws IllegalArgumentException if the hours do not match the rows, some are negative,
+     *                                  or periods is below 1
+     */
+    public PayrollProjection(EmployeeTable table, double[] expectedHours, int periods) {
+        this(table.asList(), expectedHours, periods);
+    }
+
+    /**
+     * Creates a projection of employees that are table rows or standalone employees.
+     *
+     * @param employees     the employees, each an {@link EmployeeView} or an
+     *                      {@link EmployeeBigDecimal}
+     * @param expectedHours expected hours per period of each employee
+     * @param periods       the number of pay periods to project
+     * @throws IllegalArgumentException if the hours do not match the employees, some are
+     *                                  negative, periods is below 1, or an employee is of
+     *                                  another kind
+     */
+    public PayrollProjection(List<IEmployee> employees, double[] expectedHours, int periods) {
+        if (expectedHours.length != employees.size()) {
+            throw new IllegalArgumentException("Expected hours for " + expectedHours.length
+                    + " employees, but there are " + employees.size() + ".");
+        }
+        if (periods < 1) {
+            throw new IllegalArgumentException("Periods must be at least 1.");
+        }
+        this.employees = employees.toArray(new IEmployee[0]);
+        for (IEmployee employee : this.employees) {
+            if (!(employee instanceof EmployeeView) && !(employee instanceof EmployeeBigDecimal)) {
+                throw new IllegalArgumentException("Cannot project employee "
+                        + (employee == null ? null : employee.getID()) + ".");
+            }
+        }
+        this.expectedHours = expectedHours.clone();
+        this.scaledHours = new long[expectedHours.length];
+        for (int index = 0; index < expectedHours.length; index++) {
+            if (!(expectedHours[index] >= 0)) {
+                throw new IllegalArgumentException("Expected hours cannot be negative for "
+                        + this.employees[index].getID() + ".");
+            }
+            scaledHours[index] = FixedPointPayroll.toScaledHours(expectedHours[index]);
+        }
+        this.periods = periods;
+
+        // pay one period of every flat-taxed row in one pass over the table columns
+        EmployeeTable table = null;
+        for (IEmployee employee : this.employees) {
+            if (employee instanceof EmployeeView) {
+                table = ((EmployeeView) employee).getTable();
+                break;
+            }
+        }
+        long[] net = null;
+        long[] taxes = null;
+        if (table != null && table.hasFlatTax()) {
+            long[] rowHours = new long[table.size()];
+            Arrays.fill(rowHours, -1);
+            for (int index = 0; index < this.employees.length; index++) {
+                IEmployee employee = this.employees[index];
+                if (employee instanceof EmployeeView
+                        && scaledHours[index] != FixedPointPayroll.NOT_EXACT) {
+                    EmployeeView view = (EmployeeView) employee;
+                    if (view.getTable() == table) {
+                        rowHours[view.getRow()] = scaledHours[index];
+                    }
+                }
+            }
+            net = new long[rowHours.length];
+            taxes = new long[rowHours.length];
+            try {
+                table.payFlatTax(0, rowHours.length, rowHours, net, taxes);
+            } catch (ArithmeticException e) {
+                // too large for a long, project each row on its own below
+                net = null;
+                taxes = null;
+            }
+        }
+        this.batchTable = net != null ? table : null;
+        this.batchNet = net;
+        this.batchTaxes = taxes;
+    }
+
+    /** @return the number of pay periods projected. */
+    public int getPeriods() {
+        return periods;
+    }
+
+    /**
+     * Projects one employee.
+     *
+     * @param index       the employee's index, the same as its table row when projecting a
+     *                    table
+     * @param ytdEarnings receives the YTD earnings after each period, in micro-dollars, at
+     *                    indexes 0 to {@code getPeriods() - 1}
+     * @param ytdTaxes    receives the YTD taxes paid after each period, in micro-dollars
+     * @throws IndexOutOfBoundsException if there is no employee at the index
+     */
+    public void project(int index, long[] ytdEarnings, long[] ytdTaxes) {
+        if (index < 0 || index >= employees.length) {
+            throw new IndexOutOfBoundsException("Employee " + index + " of " + employees.length);
+        }
+        IEmployee employee = employees[index];
+        if (employee instanceof EmployeeView && scaledHours[index] != FixedPointPayroll.NOT_EXACT) {
+            EmployeeView view = (EmployeeView) employee;
+            try {
+                int row = view.getRow();
+                if (view.getTable() == batchTable && batchNet[row] >= 0) {
+                    fillPeriods(batchTable.ytdEarningsMicrosOf(row),
+                            batchTable.ytdTaxesMicrosOf(row), batchNet[row], batchTaxes[row],
+                            ytdEarnings, ytdTaxes);
+                } else {
+                    projectFixedPoint(view.getTable(), row, scaledHours[index], ytdEarnings,
+                            ytdTaxes);
+                }
+                return;
+            } catch (ArithmeticException e) {
+                // too large for a long, pay a copy below
+            }
+        }
+        projectCopy(index, ytdEarnings, ytdTaxes);
+    }
+
+    /**
+     * Projects one table row on scaled {@code long}s.
+     *
+     * @param table       the table
+     * @param row         the employee's row
+     * @param hours       expected hours per period, in ten-thousandths
+     * @param ytdEarnings receives the YTD earnings after each period
+     * @param ytdTaxes    receives the YTD taxes paid after each period
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    private void projectFixedPoint(EmployeeTable table, int row, long hours, long[] ytdEarnings,
+            long[] ytdTaxes) {
+        long gross = table.typeOf(row) == EmployeeType.HOURLY
+                ? FixedPointPayroll.hourlyGrossCents(table.payRateCentsOf(row), hours)
+                : FixedPointPayroll.salaryGrossCents(table.payRateCentsOf(row));
+        long taxable = FixedPointPayroll.taxableCents(gross, table.pretaxCentsOf(row));
+        long earnings = table.ytdEarningsMicrosOf(row);
+        long taxes = table.ytdTaxesMicrosOf(row);
+        TaxPolicy policy = table.taxPolicyOf(row);
+
+        if (!policy.usesYtd()) {
+            long tax = policy.taxMicros(taxable, 0);
+            fillPeriods(earnings, taxes, FixedPointPayroll.netMicros(taxable, tax), tax,
+                    ytdEarnings, ytdTaxes);
+            return;
+        }
+        for (int period = 0; period < periods; period++) {
+            long tax = policy.taxMicros(taxable, Math.addExact(earnings, taxes));
+            earnings = Math.addExact(earnings, FixedPointPayroll.netMicros(taxable, tax));
+            taxes = Math.addExact(taxes, tax);
+            ytdEarnings[period] = earnings;
+            ytdTaxes[period] = taxes;
+        }
+    }
+
+    /**
+     * Fills in the curve of an employee who is paid the same every period.
+     *
+     * @param earnings    the starting YTD earnings
+     * @param taxes       the starting YTD taxes paid
+     * @param net         net pay of one period
+     * @param tax         taxes of one period
+     * @param ytdEarnings receives the YTD earnings after each period
+     * @param ytdTaxes    receives the YTD taxes paid after each period
+     * @throws ArithmeticException if a total does not fit a long
+     */
+    private void fillPeriods(long earnings, long taxes, long net, long tax, long[] ytdEarnings,
+            long[] ytdTaxes) {
+        // the totals only grow, so if the last period fits every period does
+        Math.addExact(earnings, Math.multiplyExact(net, (long) periods));
+        Math.addExact(taxes, Math.multiplyExact(tax, (long) periods));
+        for (int period = 0; period < periods; period++) {
+            ytdEarnings[period] = earnings + net * (period + 1);
+            ytdTaxes[period] = taxes + tax * (period + 1);
+        }
+    }
+
+    /**
+     * Projects one employee by paying a copy of it every period.
+     *
+     * @param index       the employee's index
+     * @param ytdEarnings receives the YTD earnings after each period
+     * @param ytdTaxes    receives the YTD taxes paid after each period
+     */
+    private void projectCopy(int index, long[] ytdEarnings, long[] ytdTaxes) {
+        IEmployee employee = employees[index];
+        EmployeeBigDecimal copy = employee instanceof EmployeeView
+                ? ((EmployeeView) employee).toEmployee() : ((EmployeeBigDecimal) employee).copy();
+        for (int period = 0; period < periods; period++) {
+            copy.runPayroll(expectedHours[index]);
+            YtdSnapshot ytd = copy.getYTD();
+            ytdEarnings[period] = toMicros(ytd.getEarnings());
+            ytdTaxes[period] = toMicros(ytd.getTaxesPaid());
+        }
+    }
+
+    /**
+     * Rounds an amount to micro-dollars, half up.
+     *
+     * @param amount the amount
+     * @return the amount in micro-dollars
+     */
+    private static long toMicros(BigDecimal amount) {
+        return Money.toMicros(amount.setScale(Money.MICRO_SCALE, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Writes the projected curves as lines of a projection file, one line per employee and
+     * period, in employee order. Periods are numbered from 1, the next pay period.
+     *
+     * @param out where to write
+     * @return the number of lines written
+     * @throws IOException if writing fails
+     */
+    public long writeCSV(LineWriter out) throws IOException {
+        long[] ytdEarnings = new long[periods];
+        long[] ytdTaxes = new long[periods];
+        String[] periodNumbers = new String[periods];
+        for (int period = 0; period < periods; period++) {
+            periodNumbers[period] = Integer.toString(period + 1);
+        }
+        long written = 0;
+        for (int index = 0; index < employees.length; index++) {
+            project(index, ytdEarnings, ytdTaxes);
+            String id = employees[index].getID();
+            for (int period = 0; period < periods; period++) {
+                out.writeLine(CsvEmitter.local().begin()
+                        .field(id)
+                        .field(periodNumbers[period])
+                        .micros(ytdEarnings[period])
+                        .micros(ytdTaxes[period])
+                        .buffer());
+            }
+            written += periods;
+        }
+        return written;
+    }
+}
@@ -0,0 +1,414 @@
+package student;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings and counters for one payroll run.
+ * <p>
+ * The run is split into stages: reading files, parsing lines, matching time cards to
+ * employees, running payroll and writing files. Streaming runs move between the stages once
+ * per time card, so a stage is timed with {@link #lap(Stage, long)}, which adds the time since
+ * the previous lap and starts the next one. Stages that a parallel run does together, such as
+ * reading and parsing a file in chunks, are counted as the later stage.
+ * </p>
+ * <p>
+ * The metrics are written by the thread running payroll and may be read at any time, for
+ * example through JMX while the run is going. Allocated bytes are those of the thread running
+ * payroll plus those of the threads started for the run, such as the pool workers of a
+ * parallel run or the stage threads of a pipelined one, once they are counted with
+ * {@link #countWorkers()}.
+ * </p>
+ */
+public final class RunMetrics implements RunMetricsMBean {
+    /** JMX domain the metrics are registered under. */
+    public static final String JMX_DOMAIN = "student";
+
+    /**
+     * A stage of a payroll run.
+     */
+    public enum Stage {
+        /** Reading input files. */
+        READ,
+        /** Parsing CSV lines. */
+        PARSE,
+        /** Matching time cards to employees. */
+        JOIN,
+        /** Running payroll. */
+        PAYROLL,
+        /** Writing output files. */
+        WRITE
+    }
+
+    /** Nanoseconds spent in each stage. */
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    /** Start of the run, from {@link System#nanoTime()}. */
+    private final long startNanos;
+    /** Bytes the running thread had allocated at the start, or -1 if not supported. */
+    private final long startAllocated;
+    /** The thread running payroll. */
+    private final long threadId;
+    /** Threads started for the run and not counted yet. */
+    private final Queue<Thread> workers = new ConcurrentLinkedQueue<>();
+    /** Bytes allocated by the worker threads counted so far. */
+    private final AtomicLong workersAllocated = new AtomicLong();
+
+    /** End of the run, 0 while it is going. */
+    private volatile long endNanos;
+    /** Bytes allocated by the running thread during the run, set when it finishes. */
+    private volatile long allocated = -1;
+    /** Employees loaded. */
+    private volatile long employeesLoaded;
+    /** Time card lines read. */
+    private volatile long timeCardsRead;
+    /** Pay stubs written. */
+    private volatile long payStubsWritten;
+    /** Time cards skipped for negative hours. */
+    private volatile long negativeHoursSkipped;
+    /** Time cards skipped for an unknown employee. */
+    private volatile long unknownEmployeesSkipped;
+    /** Bytes of input read. */
+    private volatile long bytesRead;
+    /** Bytes of output written. */
+    private volatile long bytesWritten;
+
+    /**
+     * Starts the metrics of a run on the current thread.
+     */
+    public RunMetrics() {
+        this.threadId = Thread.currentThread().getId();
+        this.startAllocated = allocatedBytes(threadId);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the previous lap to a stage.
+     *
+     * @param stage the stage that just ran
+     * @param since the end of the previous lap, from {@link #lap(Stage, long)} or {@link #now()}
+     * @return the end of this lap, to pass to the next one
+     */
+    public long lap(Stage stage, long since) {
+        long now = System.nanoTime();
+        stageNanos.addAndGet(stage.ordinal(), now - since);
+        return now;
+    }
+
+    /** @return the current time, to start the first lap with. */
+    public long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the employees loaded.
+     *
+     * @param count the number of employees
+     */
+    public void addEmployeesLoaded(long count) {
+        employeesLoaded += count;
+    }
+
+    /**
+     * Records time card lines read.
+     *
+     * @param count the number of lines
+     */
+    public void addTimeCardsRead(long count) {
+        timeCardsRead += count;
+    }
+
+    /**
+     * Records pay stubs written.
+     *
+     * @param count the number of pay stubs
+     */
+    public void addPayStubsWritten(long count) {
+        payStubsWritten += count;
+    }
+
+    /** Records a time card skipped for negative hours. */
+    public void negativeHoursSkipped() {
+        negativeHoursSkipped++;
+    }
+
+    /** Records a time card skipped because no employee has its ID. */
+    public void unknownEmployeeSkipped() {
+        unknownEmployeesSkipped++;
+    }
+
+    /**
+     * Records bytes read from an input file.
+     *
+     * @param bytes the number of bytes
+     */
+    public void addBytesRead(long bytes) {
+        bytesRead += bytes;
+    }
+
+    /**
+     * Records bytes written to an output file.
+     *
+     * @param bytes the number of bytes
+     */
+    public void addBytesWritten(long bytes) {
+        bytesWritten += bytes;
+    }
+
+    /**
+     * Adds a thread started for this run, such as a pool worker, so the bytes it allocates
+     * are counted by the next {@link #countWorkers()}.
+     *
+     * @param <T>    the type of thread
+     * @param worker the thread, not started yet
+     * @return the thread
+     */
+    public <T extends Thread> T addWorker(T worker) {
+        workers.add(worker);
+        return worker;
+    }
+
+    /**
+     * Adds the bytes allocated by the worker threads added so far to the allocated bytes of
+     * the run. Call it when their work is done but before they end, such as just before
+     * shutting their pool down, since a thread that has ended no longer reports what it
+     * allocated.
+     */
+    public void countWorkers() {
+        List<Thread> counted = new ArrayList<>();
+        for (Thread worker = workers.poll(); worker != null; worker = workers.poll()) {
+            counted.add(worker);
+        }
+        long[] ids = new long[counted.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = counted.get(i).getId();
+        }
+        workersAllocated.addAndGet(allocatedBytes(ids));
+    }
+
+    /**
+     * Ends the run, fixing the elapsed time and allocated bytes. Only the first call counts.
+     */
+    public void finish() {
+        if (endNanos != 0) {
+            return;
+        }
+        allocated = allocatedSinceStart();
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the time spent in a stage.
+     *
+     * @param stage the stage
+     * @return the time in milliseconds
+     */
+    public long getStageMillis(Stage stage) {
+        return stageNanos.get(stage.ordinal()) / 1_000_000L;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000L;
+    }
+
+    @Override
+    public long getReadMillis() {
+        return getStageMillis(Stage.READ);
+    }
+
+    @Override
+    public long getParseMillis() {
+        return getStageMillis(Stage.PARSE);
+    }
+
+    @Override
+    public long getJoinMillis() {
+        return getStageMillis(Stage.JOIN);
+    }
+
+    @Override
+    public long getPayrollMillis() {
+        return getStageMillis(Stage.PAYROLL);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return getStageMillis(Stage.WRITE);
+    }
+
+    @Override
+    public long getEmployeesLoaded() {
+        return employeesLoaded;
+    }
+
+    @Override
+    public long getTimeCardsRead() {
+        return timeCardsRead;
+    }
+
+    @Override
+    public long getPayStubsWritten() {
+        return payStubsWritten;
+    }
+
+    @Override
+    public long getNegativeHoursSkipped() {
+        return negativeHoursSkipped;
+    }
+
+    @Override
+    public long getUnknownEmployeesSkipped() {
+        return unknownEmployeesSkipped;
+    }
+
+    @Override
+    public double getTimeCardsPerSecond() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        long nanos = Math.max(1, end - startNanos);
+        return timeCardsRead * 1e9 / nanos;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        if (endNanos != 0) {
+            return allocated;
+        }
+        return allocatedSinceStart();
+    }
+
+    /**
+     * Works out the bytes allocated by the running thread and the counted workers so far.
+     *
+     * @return the allocated bytes, or -1 if the JVM does not support it
+     */
+    private long allocatedSinceStart() {
+        long now = allocatedBytes(threadId);
+        return now < 0 || startAllocated < 0 ? -1 : now - startAllocated + workersAllocated.get();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return endNanos != 0;
+    }
+
+    /**
+     * Lists the metrics as {@code metric,value} CSV lines, with a header, for the summary
+     * file.
+     *
+     * @return the lines
+     */
+    public List<String> toCSVLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add("metric,value");
+        lines.add("elapsed_ms," + getElapsedMillis());
+        for (Stage stage : Stage.values()) {
+            lines.add(stage.name().toLowerCase(Locale.ROOT) + "_ms," + getStageMillis(stage));
+        }
+        lines.add("employees_loaded," + employeesLoaded);
+        lines.add("time_cards_read," + timeCardsRead);
+        lines.add("pay_stubs_written," + payStubsWritten);
+        lines.add("negative_hours_skipped," + negativeHoursSkipped);
+        lines.add("unknown_employees_skipped," + unknownEmployeesSkipped);
+        lines.add("time_cards_per_second," + String.format(Locale.ROOT, "%.1f",
+                getTimeCardsPerSecond()));
+        lines.add("bytes_read," + bytesRead);
+        lines.add("bytes_written," + bytesWritten);
+        lines.add("allocated_bytes," + getAllocatedBytes());
+        return lines;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, replacing the metrics of an
+     * earlier run with the same name. Failing to register is reported and otherwise ignored.
+     *
+     * @param name the run name, such as the employee file name
+     * @return the object name, or null if the metrics could not be registered
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=PayrollRun,name="
+                    + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            synchronized (RunMetrics.class) {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(this, objectName);
+            }
+            return objectName;
+        } catch (JMException e) {
+            System.err.println("Error registering run metrics: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the bytes a thread has allocated so far.
+     *
+     * @param threadId the thread
+     * @return the allocated bytes, or -1 if the JVM does not support it
+     */
+    private static long allocatedBytes(long threadId) {
+        com.sun.management.ThreadMXBean threads = allocationBean();
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * Reads the bytes some threads have allocated so far, in one call.
+     *
+     * @param threadIds the threads
+     * @return the total allocated bytes of the threads that are still alive, or 0 if the JVM
+     *         does not support it
+     */
+    private static long allocatedBytes(long[] threadIds) {
+        com.sun.management.ThreadMXBean threads = allocationBean();
+        if (threads == null || threadIds.length == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threadIds)) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the thread bean if it can report allocated bytes.
+     *
+     * @return the bean, or null if the JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported()
+                    && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads;
+            }
+        }
+        return null;
+    }
+}
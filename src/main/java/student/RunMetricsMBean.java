@@ -0,0 +1,54 @@
+package student;
+
+/**
+ * The JMX view of a payroll run's {@link RunMetrics}. Times are in milliseconds.
+ */
+public interface RunMetricsMBean {
+    /** @return wall time of the run so far, or of the whole run once it finished. */
+    long getElapsedMillis();
+
+    /** @return time spent reading input files. */
+    long getReadMillis();
+
+    /** @return time spent parsing CSV lines. */
+    long getParseMillis();
+
+    /** @return time spent matching time cards to employees. */
+    long getJoinMillis();
+
+    /** @return time spent running payroll. */
+    long getPayrollMillis();
+
+    /** @return time spent writing output files. */
+    long getWriteMillis();
+
+    /** @return the number of employees loaded. */
+    long getEmployeesLoaded();
+
+    /** @return the number of time card lines read. */
+    long getTimeCardsRead();
+
+    /** @return the number of pay stubs written. */
+    long getPayStubsWritten();
+
+    /** @return the number of time cards skipped for negative hours. */
+    long getNegativeHoursSkipped();
+
+    /** @return the number of time cards skipped because no employee has their ID. */
+    long getUnknownEmployeesSkipped();
+
+    /** @return the number of time cards read per second of wall time. */
+    double getTimeCardsPerSecond();
+
+    /** @return the bytes of input files read. */
+    long getBytesRead();
+
+    /** @return the bytes of output files written. */
+    long getBytesWritten();
+
+    /** @return the bytes allocated by the thread running the run, or -1 if not supported. */
+    long getAllocatedBytes();
+
+    /** @return true once the run has finished. */
+    boolean isFinished();
+}
@@ -66,4 +66,16 @@ public class SalaryEmployee extends EmployeeBigDecimal {
     public BigDecimal calculateGrossPay(double hoursWorked) {
         return getPayRateBD().divide(PAY_PERIODS_PER_YEAR, 2, RoundingMode.HALF_UP);
     }
+
+    /**
+     * Calculates gross pay in cents with {@code long} arithmetic, matching
+     * {@link #calculateGrossPay(double)} exactly.
+     *
+     * @param hoursWorked Not used for salaried employees.
+     * @return The gross pay for one pay period in cents.
+     */
+    @Override
+    protected long calculateGrossPayCents(double hoursWorked) {
+        return FixedPointPayroll.salaryGrossCents(getPayRateCents());
+    }
 }
@@ -0,0 +1,324 @@
+package student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A progressive tax policy made of one or more bracket tables, such as a federal and a state
+ * table, compiled into flat arrays.
+ * <p>
+ * Tables are read from a CSV file with the header {@code table,threshold,rate}. Each line
+ * starts a bracket: the table name, the annual income in dollars where the bracket starts,
+ * and the rate in percent above it. Every table starts at 0 and lists its thresholds in
+ * increasing order:
+ * </p>
+ * <pre>
+ *     table,threshold,rate
+ *     federal,0,10
+ *     federal,11600,12
+ *     state,0,4.5
+ * </pre>
+ * <p>
+ * Taxes from all tables are added up, so the tables are merged into one sorted threshold
+ * array holding the combined rate of each bracket and the total tax owed at its threshold.
+ * Taxing an income is then a binary search for its bracket plus one multiply-add, with no
+ * walk over the tables. Amounts are held as micro-dollars, rates as basis points, and taxes
+ * as micro-dollars times basis points, so everything is exact until the final rounding to
+ * micro-dollars, half up.
+ * </p>
+ */
+public final class TaxBrackets implements TaxPolicy {
+    /** Header line of a tax table file. */
+    public static final String TAX_TABLE_HEADER = "table,threshold,rate";
+    /** Number of fields in a tax table line. */
+    private static final int TAX_TABLE_FIELDS = 3;
+    /** Decimal places of a threshold in dollars. */
+    private static final int THRESHOLD_SCALE = 2;
+    /** Decimal places of a rate in percent, so the rate is read in basis points. */
+    private static final int RATE_SCALE = 2;
+    /** Decimal places of a tax held in micro-dollars times basis points. */
+    private static final int TAX_UNIT_SCALE = Money.MICRO_SCALE + 4;
+
+    /**
+     * How a period's taxable pay is turned into annual income for the brackets.
+     */
+    public enum Method {
+        /**
+         * The period's pay times the pay periods per year is taxed, and the tax is divided
+         * back by the pay periods.
+         */
+        ANNUALIZED,
+        /**
+         * The brackets apply to the year's pay so far: the period is taxed the difference
+         * between the tax on the year-to-date taxable pay with and without it.
+         */
+        CUMULATIVE
+    }
+
+    /** Start of each bracket in micro-dollars, sorted, the first one 0. */
+    private final long[] thresholds;
+    /** Combined rate of each bracket in basis points. */
+    private final long[] rates;
+    /** Total tax owed at the start of each bracket, in micro-dollars times basis points. */
+    private final long[] baseTaxes;
+    /** {@link #thresholds} in dollars, for the {@code BigDecimal} form. */
+    private final BigDecimal[] thresholdAmounts;
+    /** {@link #rates} as fractions, for the {@code BigDecimal} form. */
+    private final BigDecimal[] rateAmounts;
+    /** {@link #baseTaxes} in dollars, for the {@code BigDecimal} form. */
+    private final BigDecimal[] baseTaxAmounts;
+    /** How the period's pay becomes annual income. */
+    private final Method method;
+    /** Pay periods per year, for {@link Method#ANNUALIZED}. */
+    private final long payPeriods;
+    /** Names of the tables, for messages. */
+    private final List<String> tableNames;
+
+    /**
+     * Compiles bracket tables.
+     *
+     * @param tables     each table's brackets in increasing order, as pairs of threshold in
+     *                   cents and rate in basis points
+     * @param method     how the period's pay becomes annual income
+     * @param payPeriods pay periods per year
+     */
+    private TaxBrackets(Map<String, List<long[]>> tables, Method method, int payPeriods) {
+        TreeSet<Long> starts = new TreeSet<>();
+        for (List<long[]> table : tables.values()) {
+            for (long[] bracket : table) {
+                starts.add(bracket[0]);
+            }
+        }
+        int count = starts.size();
+        this.thresholds = new long[count];
+        this.rates = new long[count];
+        this.baseTaxes = new long[count];
+        int i = 0;
+        for (long startCents : starts) {
+            thresholds[i] = Math.multiplyExact(startCents, Money.MICROS_PER_CENT);
+            for (List<long[]> table : tables.values()) {
+                rates[i] += rateAt(table, startCents);
+            }
+            if (i > 0) {
+                baseTaxes[i] = Math.addExact(baseTaxes[i - 1],
+                        Math.multiplyExact(thresholds[i] - thresholds[i - 1], rates[i - 1]));
+            }
+            i++;
+        }
+
+        this.thresholdAmounts = new BigDecimal[count];
+        this.rateAmounts = new BigDecimal[count];
+        this.baseTaxAmounts = new BigDecimal[count];
+        for (i = 0; i < count; i++) {
+            thresholdAmounts[i] = Money.fromMicros(thresholds[i]);
+            rateAmounts[i] = BigDecimal.valueOf(rates[i], 4);
+            baseTaxAmounts[i] = BigDecimal.valueOf(baseTaxes[i], TAX_UNIT_SCALE);
+        }
+        this.method = method;
+        this.payPeriods = payPeriods;
+        this.tableNames = List.copyOf(tables.keySet());
+    }
+
+    /**
+     * Finds the rate of a table at an income.
+     *
+     * @param table       the table's brackets in increasing order
+     * @param incomeCents the income in cents
+     * @return the rate in basis points
+     */
+    private static long rateAt(List<long[]> table, long incomeCents) {
+        long rate = 0;
+        for (long[] bracket : table) {
+            if (bracket[0] > incomeCents) {
+                break;
+            }
+            rate = bracket[1];
+        }
+        return rate;
+    }
+
+    /**
+     * Reads bracket tables from a tax table file.
+     *
+     * @param file       the tax table file name
+     * @param method     how the period's pay becomes annual income
+     * @param payPeriods pay periods per year
+     * @return the compiled tables
+     * @throws IllegalArgumentException if the file has no brackets or a line is invalid
+     */
+    public static TaxBrackets load(String file, Method method, int payPeriods) {
+        List<String> lines = FileUtil.readFileToList(file);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("No tax brackets in " + file + ".");
+        }
+        return fromCSV(lines, method, payPeriods);
+    }
+
+    /**
+     * Compiles bracket tables from the lines of a tax table file.
+     *
+     * @param lines      the lines after the header
+     * @param method     how the period's pay becomes annual income
+     * @param payPeriods pay periods per year
+     * @return the compiled tables
+     * @throws IllegalArgumentException if there are no brackets, a line is invalid, a table
+     *                                  does not start at 0 or its thresholds do not increase
+     */
+    public static TaxBrackets fromCSV(List<String> lines, Method method, int payPeriods) {
+        if (method == null) {
+            throw new IllegalArgumentException("Tax method cannot be null.");
+        }
+        if (payPeriods < 1) {
+            throw new IllegalArgumentException("Pay periods must be at least 1.");
+        }
+        Map<String, List<long[]>> tables = new LinkedHashMap<>();
+        CsvCursor cursor = new CsvCursor();
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNumber = i + 2; // line 1 is the header
+            cursor.reset(lines.get(i), lineNumber);
+            if (cursor.isBlank()) {
+                continue;
+            }
+            if (cursor.countFields() != TAX_TABLE_FIELDS) {
+                throw new IllegalArgumentException("Invalid tax table format. Expected "
+                        + TAX_TABLE_FIELDS + " fields at line " + lineNumber + ".");
+            }
+            cursor.next();
+            String name = cursor.fieldAsString();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Missing table name "
+                        + cursor.describePosition());
+            }
+            long thresholdCents;
+            long rate;
+            try {
+                cursor.next();
+                thresholdCents = cursor.fieldAsScaledLong(THRESHOLD_SCALE);
+                cursor.next();
+                rate = cursor.fieldAsScaledLong(RATE_SCALE);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Invalid tax bracket "
+                        + cursor.describePosition() + ": " + e.getMessage(), e);
+            }
+            if (rate < 0 || rate > FixedPointPayroll.BASIS_POINTS) {
+                throw new IllegalArgumentException("Tax rate must be from 0 to 100 percent "
+                        + cursor.describePosition() + ".");
+            }
+
+            List<long[]> table = tables.computeIfAbsent(name, key -> new ArrayList<>());
+            long previous = table.isEmpty() ? -1 : table.get(table.size() - 1)[0];
+            if (table.isEmpty() ? thresholdCents != 0 : thresholdCents <= previous) {
+                throw new IllegalArgumentException("Table " + name + " must start at 0 and"
+                        + " increase, at line " + lineNumber + ".");
+            }
+            table.add(new long[] {thresholdCents, rate});
+        }
+        if (tables.isEmpty()) {
+            throw new IllegalArgumentException("No tax brackets.");
+        }
+        return new TaxBrackets(tables, method, payPeriods);
+    }
+
+    /**
+     * Finds the bracket an income falls in.
+     *
+     * @param incomeMicros the income in micro-dollars, not negative
+     * @return the index of the bracket
+     */
+    private int bracketOf(long incomeMicros) {
+        int found = Arrays.binarySearch(thresholds, incomeMicros);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * Works out the annual tax on an income with one multiply-add.
+     *
+     * @param incomeMicros the income in micro-dollars, not negative
+     * @return the tax in micro-dollars times basis points
+     * @throws ArithmeticException if the tax does not fit a long
+     */
+    long annualTaxUnits(long incomeMicros) {
+        int i = bracketOf(incomeMicros);
+        return Math.addExact(baseTaxes[i],
+                Math.multiplyExact(incomeMicros - thresholds[i], rates[i]));
+    }
+
+    /**
+     * Works out the annual tax on an income, exactly.
+     *
+     * @param income the income in dollars, not negative
+     * @return the tax in dollars
+     */
+    BigDecimal annualTax(BigDecimal income) {
+        int low = 0;
+        int high = thresholdAmounts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (thresholdAmounts[mid].compareTo(income) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return baseTaxAmounts[low].add(income.subtract(thresholdAmounts[low])
+                .multiply(rateAmounts[low]));
+    }
+
+    @Override
+    public long taxMicros(long taxableCents, long ytdTaxableMicros) {
+        long taxable = Math.multiplyExact(taxableCents, Money.MICROS_PER_CENT);
+        if (method == Method.ANNUALIZED) {
+            long units = annualTaxUnits(Math.multiplyExact(taxable, payPeriods));
+            return Money.divideHalfUp(units, FixedPointPayroll.BASIS_POINTS * payPeriods);
+        }
+        long before = Math.max(0L, ytdTaxableMicros);
+        long units = annualTaxUnits(Math.addExact(before, taxable)) - annualTaxUnits(before);
+        return Money.divideHalfUp(units, FixedPointPayroll.BASIS_POINTS);
+    }
+
+    @Override
+    public BigDecimal tax(BigDecimal taxable, BigDecimal ytdTaxable) {
+        if (method == Method.ANNUALIZED) {
+            BigDecimal periods = BigDecimal.valueOf(payPeriods);
+            return annualTax(taxable.multiply(periods))
+                    .divide(periods, Money.MICRO_SCALE, RoundingMode.HALF_UP);
+        }
+        BigDecimal before = ytdTaxable.max(BigDecimal.ZERO);
+        return annualTax(before.add(taxable)).subtract(annualTax(before))
+                .setScale(Money.MICRO_SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public boolean usesYtd() {
+        return method == Method.CUMULATIVE;
+    }
+
+    /** @return how the period's pay becomes annual income. */
+    public Method getMethod() {
+        return method;
+    }
+
+    /** @return pay periods per year. */
+    public int getPayPeriods() {
+        return (int) payPeriods;
+    }
+
+    /** @return the number of brackets after merging the tables. */
+    public int getBracketCount() {
+        return thresholds.length;
+    }
+
+    /** @return a short description. */
+    @Override
+    public String toString() {
+        return "brackets " + tableNames + " " + method.name().toLowerCase(Locale.ROOT) + ", "
+                + thresholds.length + " brackets";
+    }
+}
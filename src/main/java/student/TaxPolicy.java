@@ -0,0 +1,45 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * Works out the taxes on one pay period's taxable pay.
+ * <p>
+ * Every employee has a tax policy, {@link #FLAT} unless another one is set, so different
+ * employees can be taxed by different tables. A policy has two forms of the same calculation:
+ * a fast one on scaled {@code long}s for the fixed-point payroll path, and an exact
+ * {@code BigDecimal} one for amounts with fractions of a cent. Both must give the same taxes
+ * for the same whole-cent amounts. Policies are immutable and shared between employees and
+ * threads.
+ * </p>
+ */
+public interface TaxPolicy {
+    /** The flat 22.65% tax the payroll has always used. */
+    TaxPolicy FLAT = new FlatTax();
+
+    /**
+     * Works out the taxes with scaled {@code long} arithmetic.
+     *
+     * @param taxableCents     the period's taxable pay in cents, not negative
+     * @param ytdTaxableMicros the taxable pay of earlier periods this year in micro-dollars, only
+     *                         used if {@link #usesYtd()}
+     * @return the taxes in micro-dollars
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    long taxMicros(long taxableCents, long ytdTaxableMicros);
+
+    /**
+     * Works out the taxes with {@code BigDecimal} arithmetic.
+     *
+     * @param taxable    the period's taxable pay, not negative
+     * @param ytdTaxable the taxable pay of earlier periods this year, only used if
+     *                   {@link #usesYtd()}, otherwise may be null
+     * @return the taxes
+     */
+    BigDecimal tax(BigDecimal taxable, BigDecimal ytdTaxable);
+
+    /** @return true if the taxes depend on the taxable pay of earlier periods. */
+    default boolean usesYtd() {
+        return false;
+    }
+}
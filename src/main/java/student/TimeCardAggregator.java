@@ -0,0 +1,122 @@
+package student;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sums the hours of every time card per employee, so payroll runs once per employee and pay
+ * period instead of once per punch.
+ * <p>
+ * Running payroll on each daily card applies the 40 hour overtime threshold to each card on
+ * its own, so a week of 10 hour days never earns overtime. After aggregating, the threshold
+ * applies to the whole period, and each employee gets one pay stub.
+ * </p>
+ * <p>
+ * Totals are kept in arrays indexed by the employee's position in the
+ * {@link EmployeeSource}, with hours held as exact ten-thousandths in a {@code long}, so
+ * adding a card allocates nothing. Cards that are null, have negative hours, or belong to an
+ * unknown employee are skipped, the same as the payroll loop does.
+ * </p>
+ */
+public class TimeCardAggregator {
+    /** The employees. */
+    private final EmployeeSource registry;
+    /** Hours per employee, in ten-thousandths. */
+    private final long[] scaledHours;
+    /** Hours per employee that have more than four decimal places. */
+    private final double[] inexactHours;
+    /** Employee IDs by index, set when their first card is seen, null before that. */
+    private final String[] ids;
+    /** Employee indexes in the order their first card was seen. */
+    private int[] order = new int[16];
+    /** Number of employees with at least one card. */
+    private int count;
+
+    /**
+     * Creates an empty aggregator.
+     *
+     * @param registry the employees cards are matched against
+     * @throws IllegalArgumentException if the registry is null
+     */
+    public TimeCardAggregator(EmployeeSource registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Registry cannot be null.");
+        }
+        this.registry = registry;
+        this.scaledHours = new long[registry.size()];
+        this.inexactHours = new double[registry.size()];
+        this.ids = new String[registry.size()];
+    }
+
+    /**
+     * Adds the hours of one time card to its employee's total.
+     *
+     * @param timeCard the time card, may be null
+     * @return true if the card was counted, false if it was skipped
+     */
+    public boolean add(ITimeCard timeCard) {
+        if (timeCard == null || timeCard.getHoursWorked() < 0) {
+            return false;
+        }
+        int index = registry.indexOf(timeCard);
+        if (index < 0) {
+            return false;
+        }
+        double hours = timeCard.getHoursWorked();
+        long scaled = FixedPointPayroll.toScaledHours(hours);
+        if (scaled != FixedPointPayroll.NOT_EXACT) {
+            scaledHours[index] = Math.addExact(scaledHours[index], scaled);
+        } else {
+            inexactHours[index] += hours;
+        }
+        if (ids[index] == null) {
+            ids[index] = timeCard.getEmployeeID();
+            if (count == order.length) {
+                order = Arrays.copyOf(order, count * 2);
+            }
+            order[count++] = index;
+        }
+        return true;
+    }
+
+    /**
+     * Adds every time card.
+     *
+     * @param timeCards the time cards
+     * @return the number of cards counted
+     */
+    public int addAll(Iterable<? extends ITimeCard> timeCards) {
+        int added = 0;
+        for (ITimeCard timeCard : timeCards) {
+            if (add(timeCard)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /** @return the number of employees with at least one card. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets one time card per employee holding their total hours.
+     *
+     * @return the totals, in the order each employee's first card was seen
+     */
+    public List<ITimeCard> getTotals() {
+        List<ITimeCard> totals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = order[i];
+            BigDecimal hours = BigDecimal.valueOf(scaledHours[index], 4);
+            if (inexactHours[index] != 0) {
+                hours = hours.add(BigDecimal.valueOf(inexactHours[index]));
+            }
+            totals.add(new TimeCard(ids[index], hours));
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,413 @@
+package student;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An append-only journal of year-to-date changes, so a payroll run only writes the employees
+ * it paid instead of rewriting the whole employee file.
+ * <p>
+ * Each pay stub adds one {@code employeeId,earningsDelta,taxesDelta} line. When the employees
+ * are loaded, {@link #replay(Path, Path, EmployeeSource)} adds the deltas back onto them.
+ * Compacting is simply writing the employee file as usual and then deleting the journal.
+ * </p>
+ * <p>
+ * The employee file stores YTD totals rounded to the cent, so a rewrite rounds every paid
+ * employee once per run. To end up with exactly the same file, closing the journal adds one
+ * more record per paid employee holding that rounding difference.
+ * </p>
+ * <p>
+ * The first line of the journal records the size and modification time of the employee file
+ * it belongs to. Once the employee file is rewritten, an old journal no longer matches and is
+ * ignored, so a crash between writing the employee file and deleting the journal can never
+ * add the same deltas twice.
+ * </p>
+ * <p>
+ * A run's records only count once {@link #commit()} has synced them and ended them with a
+ * commit marker. Closing a journal that was not committed cuts the run's records off again,
+ * and records left behind by a crash are never applied and are cut off before the next run
+ * appends to the journal, so a failed run adds nothing at all.
+ * </p>
+ */
+public final class YtdJournal implements Closeable {
+    /** Start of the first line of every journal. */
+    public static final String HEADER_PREFIX = "#ytd-journal,";
+    /** Line ending the records of every committed run. */
+    public static final String COMMIT_MARKER = "#commit";
+    /** Journal size in bytes at which the employee file should be compacted. */
+    public static final long DEFAULT_COMPACT_BYTES = 16L << 20;
+    /** Buffer size for appending; records are small, so a modest buffer is plenty. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Number of fields in a journal record. */
+    private static final int RECORD_FIELDS = 3;
+
+    /** The open journal. */
+    private final LineWriter out;
+    /** Size of the journal before this writer appended to it. */
+    private final long initialSize;
+    /** Size of the journal when the last run was committed. */
+    private long committedSize;
+    /** Reused builder for records. */
+    private final StringBuilder record = new StringBuilder(64);
+    /** The YTD totals after the latest pay stub of every employee paid, by ID. */
+    private final Map<String, YtdSnapshot> latest = new LinkedHashMap<>();
+
+    /**
+     * Creates a journal appending to an open channel.
+     *
+     * @param channel     the journal channel, positioned at its end
+     * @param initialSize the bytes already in the journal
+     */
+    private YtdJournal(FileChannel channel, long initialSize) {
+        this.out = new LineWriter(channel, BUFFER_SIZE);
+        this.initialSize = initialSize;
+        this.committedSize = initialSize;
+    }
+
+    /**
+     * Gets the journal that goes with an employee file.
+     *
+     * @param employeeFile the employee file name
+     * @return the journal path, the employee file name followed by {@code .journal}
+     */
+    public static Path pathFor(String employeeFile) {
+        return Path.of(employeeFile + ".journal");
+    }
+
+    /**
+     * Opens a journal for appending. A journal that belongs to an older version of the
+     * employee file is started over, and records of a run that was never committed are
+     * dropped.
+     *
+     * @param journal      the journal file
+     * @param employeeFile the employee file the deltas apply to
+     * @return the journal
+     * @throws IOException if the journal cannot be opened
+     */
+    public static YtdJournal open(Path journal, Path employeeFile) throws IOException {
+        String header = header(employeeFile);
+        boolean append = header.equals(readHeader(journal));
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        YtdJournal result;
+        try {
+            // drop the records of a run that failed, then carry on after the last committed one
+            long length = append ? committed(channel).length : 0;
+            channel.truncate(length);
+            channel.position(length);
+            result = new YtdJournal(channel, length);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (result.initialSize == 0) {
+            result.out.writeLine(header);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the deltas in a journal onto the employees.
+     *
+     * @param journal      the journal file
+     * @param employeeFile the employee file the employees were loaded from
+     * @param registry     the loaded employees
+     * @return the number of records applied, 0 if there is no journal or it is out of date
+     * @throws IOException if the journal cannot be read, or a record has more decimal places
+     *                     than an {@link EmployeeTable} row holds
+     */
+    public static int replay(Path journal, Path employeeFile, EmployeeSource registry)
+            throws IOException {
+        String header = readHeader(journal);
+        if (header == null) {
+            return 0;
+        }
+        if (!header.equals(header(employeeFile))) {
+            System.err.println("Ignoring out of date journal: " + journal);
+            return 0;
+        }
+        Committed committed;
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            committed = committed(channel);
+            if (committed.length < channel.size()) {
+                System.err.println("Ignoring journal records after line " + committed.lines
+                        + " from a run that did not finish");
+            }
+        }
+        CsvCursor cursor = new CsvCursor();
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            int lineNumber = 1;
+            while (lineNumber < committed.lines) {
+                String line = reader.readLine();
+                if (COMMIT_MARKER.equals(line)) {
+                    lineNumber++;
+                    continue;
+                }
+                cursor.reset(line, ++lineNumber);
+                if (cursor.isBlank()) {
+                    continue;
+                }
+                if (cursor.countFields() != RECORD_FIELDS) {
+                    System.err.println("Skipping incomplete journal record at line " + lineNumber);
+                    continue;
+                }
+                cursor.next();
+                IEmployee employee = registry.get(cursor.fieldAsString());
+                BigDecimal earnings;
+                BigDecimal taxes;
+                try {
+                    cursor.next();
+                    earnings = cursor.fieldAsDecimal();
+                    cursor.next();
+                    taxes = cursor.fieldAsDecimal();
+                } catch (NumberFormatException e) {
+                    System.err.println("Skipping invalid journal record " + cursor.describePosition());
+                    continue;
+                }
+                if (employee == null) {
+                    System.err.println("Skipping journal record for unknown employee at line "
+                            + lineNumber);
+                    continue;
+                }
+                try {
+                    apply(employee, earnings, taxes);
+                } catch (ArithmeticException e) {
+                    // skipping the record would leave the YTD totals wrong, so stop the run
+                    throw new IOException("Journal record at line " + lineNumber
+                            + " has more than six decimal places, which employees loaded from a"
+                            + " snapshot cannot hold; run without the snapshot to apply it", e);
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Deletes a journal once its deltas are in the employee file.
+     *
+     * @param journal the journal file
+     * @throws IOException if it cannot be deleted
+     */
+    public static void discard(Path journal) throws IOException {
+        Files.deleteIfExists(journal);
+    }
+
+    /**
+     * Appends the deltas of one pay stub.
+     *
+     * @param payStub the pay stub, as returned by {@link IEmployee#runPayroll(double)} or
+     *                {@link PayStubBuffer#get(int)}
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the pay stub does not carry exact amounts
+     */
+    public void record(IPayStub payStub) throws IOException {
+        String id;
+        YtdSnapshot after;
+        if (payStub instanceof PayStub) {
+            PayStub stub = (PayStub) payStub;
+            id = stub.getEmployee().getID();
+            record(id, stub.getPayBD(), stub.getTaxesPaidBD());
+            after = new YtdSnapshot(stub.getYTDEarningsBD(), stub.getYTDTaxesPaidBD());
+        } else if (payStub instanceof PayStubView) {
+            PayStubView stub = (PayStubView) payStub;
+            id = stub.getEmployee().getID();
+            record(id, stub.getPayBD(), stub.getTaxesPaidBD());
+            after = new YtdSnapshot(stub.getYTDEarningsBD(), stub.getYTDTaxesPaidBD());
+        } else {
+            throw new IllegalArgumentException("Cannot journal pay stub type: " + payStub);
+        }
+        latest.put(id, after);
+    }
+
+    /**
+     * Appends one delta record.
+     *
+     * @param employeeId the employee ID
+     * @param earnings   amount added to YTD earnings
+     * @param taxes      amount added to YTD taxes paid
+     * @throws IOException if writing fails
+     */
+    public void record(String employeeId, BigDecimal earnings, BigDecimal taxes) throws IOException {
+        record.setLength(0);
+        record.append(employeeId).append(',').append(earnings.toPlainString())
+                .append(',').append(taxes.toPlainString());
+        out.writeLine(record);
+    }
+
+    /** @return the size of the journal in bytes, including records not yet flushed. */
+    public long size() {
+        return initialSize + out.getBytesWritten();
+    }
+
+    /**
+     * Writes buffered records and syncs them to disk.
+     *
+     * @throws IOException if writing fails
+     */
+    public void sync() throws IOException {
+        out.flush();
+        out.channel().force(false);
+    }
+
+    /**
+     * Records the rounding to the cent a rewrite of the employee file would apply, syncs the
+     * run's records, and then ends them with a commit marker so they are replayed.
+     *
+     * @throws IOException if writing fails, in which case the run is not committed
+     */
+    public void commit() throws IOException {
+        for (Map.Entry<String, YtdSnapshot> entry : latest.entrySet()) {
+            BigDecimal earnings = roundingOf(entry.getValue().getEarnings());
+            BigDecimal taxes = roundingOf(entry.getValue().getTaxesPaid());
+            if (earnings.signum() != 0 || taxes.signum() != 0) {
+                record(entry.getKey(), earnings, taxes);
+            }
+        }
+        latest.clear();
+        // the records must be on disk before a marker that says they are
+        sync();
+        out.writeLine(COMMIT_MARKER);
+        sync();
+        committedSize = size();
+    }
+
+    /**
+     * Closes the journal. Records added since the last {@link #commit()} belong to a run that
+     * failed, so they are cut off again.
+     *
+     * @throws IOException if truncating or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (size() > committedSize) {
+                latest.clear();
+                out.flush();
+                out.channel().truncate(committedSize);
+                out.channel().force(false);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Works out the change rounding a total to the cent makes.
+     *
+     * @param total the total
+     * @return the rounded total minus the total
+     */
+    private static BigDecimal roundingOf(BigDecimal total) {
+        return total.setScale(2, RoundingMode.HALF_UP).subtract(total);
+    }
+
+    /**
+     * Adds deltas to one employee.
+     *
+     * @param employee the employee
+     * @param earnings amount added to YTD earnings
+     * @param taxes    amount added to YTD taxes paid
+     * @throws ArithmeticException if a table row cannot hold the amounts exactly
+     */
+    private static void apply(IEmployee employee, BigDecimal earnings, BigDecimal taxes) {
+        if (employee instanceof EmployeeBigDecimal) {
+            ((EmployeeBigDecimal) employee).addToYTD(earnings, taxes);
+        } else if (employee instanceof EmployeeView) {
+            EmployeeView view = (EmployeeView) employee;
+            view.getTable().addToYTD(view.getRow(), Money.toMicros(earnings), Money.toMicros(taxes));
+        } else {
+            throw new IllegalArgumentException("Cannot replay journal onto employee type: "
+                    + employee.getClass().getName());
+        }
+    }
+
+    /**
+     * Builds the header identifying a version of the employee file.
+     *
+     * @param employeeFile the employee file
+     * @return the header line
+     * @throws IOException if the file attributes cannot be read
+     */
+    private static String header(Path employeeFile) throws IOException {
+        long size = Files.exists(employeeFile) ? Files.size(employeeFile) : 0;
+        long modified = Files.exists(employeeFile)
+                ? Files.getLastModifiedTime(employeeFile).toMillis() : 0;
+        return HEADER_PREFIX + size + "," + modified;
+    }
+
+    /**
+     * Reads the first line of a journal.
+     *
+     * @param journal the journal file
+     * @return the header, or null if there is no journal
+     * @throws IOException if the journal cannot be read
+     */
+    private static String readHeader(Path journal) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the end of the last committed run: the line after the last commit marker, or the
+     * header line if no run was committed. Only lines ending in a newline count.
+     *
+     * @param channel the journal
+     * @return the length and the number of lines up to the end of the last committed run
+     * @throws IOException if the journal cannot be read
+     */
+    private static Committed committed(FileChannel channel) throws IOException {
+        byte[] marker = COMMIT_MARKER.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+        Committed committed = new Committed();
+        long position = 0;
+        int lines = 0;
+        int matched = 0; // bytes of the current line that match the marker, or -1
+        int read;
+        while ((read = channel.read(chunk, position)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = chunk.get(i);
+                if (b == '\n') {
+                    lines++;
+                    if (lines == 1 || matched == marker.length) {
+                        committed.length = position + i + 1;
+                        committed.lines = lines;
+                    }
+                    matched = 0;
+                } else if (matched >= 0 && matched < marker.length && b == marker[matched]) {
+                    matched++;
+                } else if (b != '\r' || matched != marker.length) {
+                    matched = -1;
+                }
+            }
+            position += read;
+            chunk.clear();
+        }
+        return committed;
+    }
+
+    /** Where the last committed run of a journal ends. */
+    private static final class Committed {
+        /** Bytes up to and including the last committed line. */
+        private long length;
+        /** Number of lines up to and including the last committed line. */
+        private int lines;
+    }
+}
@@ -0,0 +1,49 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * An immutable pair of year-to-date (YTD) totals for one employee.
+ * <p>
+ * Employees swap in a new snapshot on every payroll run instead of updating the two totals
+ * separately, so readers always see earnings and taxes from the same run.
+ * </p>
+ */
+public final class YtdSnapshot {
+    /** Year-to-date (YTD) earnings. */
+    private final BigDecimal earnings;
+    /** Year-to-date (YTD) taxes paid. */
+    private final BigDecimal taxesPaid;
+
+    /**
+     * Creates a snapshot of the given totals.
+     *
+     * @param earnings  year-to-date earnings
+     * @param taxesPaid year-to-date taxes paid
+     */
+    public YtdSnapshot(BigDecimal earnings, BigDecimal taxesPaid) {
+        this.earnings = earnings;
+        this.taxesPaid = taxesPaid;
+    }
+
+    /** @return Year-to-date earnings. */
+    public BigDecimal getEarnings() {
+        return earnings;
+    }
+
+    /** @return Year-to-date taxes paid. */
+    public BigDecimal getTaxesPaid() {
+        return taxesPaid;
+    }
+
+    /**
+     * Creates the snapshot that follows one pay period.
+     *
+     * @param netPay net pay for the period
+     * @param taxes  taxes for the period
+     * @return a new snapshot with both amounts added
+     */
+    public YtdSnapshot add(BigDecimal netPay, BigDecimal taxes) {
+        return new YtdSnapshot(earnings.add(netPay), taxesPaid.add(taxes));
+    }
+}
@@ -9,13 +9,23 @@
  */
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import student.Builder;
+import student.IEmployee;
 import student.PayrollGenerator;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class TestPayrollGenerator {
 
@@ -51,4 +61,315 @@ public class TestPayrollGenerator {
 
     }
 
+    @Test
+    public void testFinalPayStubParallel() throws IOException {
+        Path employees = tempDir.resolve("employees_parallel.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path payStubs = tempDir.resolve("paystubs_parallel.csv");
+
+        String[] args = { "-e", employees.toString(), "-t", "resources/time_cards.csv",
+                "-o", payStubs.toString(), "-p", "4" };
+
+        PayrollGenerator.main(args);
+
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        assertEquals(expectedPayStubs, Files.readString(payStubs));
+    }
+
+    @Test
+    public void testFinalPayStubPipeline() throws IOException {
+        Path employees = tempDir.resolve("employees_pipeline.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path payStubs = tempDir.resolve("paystubs_pipeline.csv");
+
+        String[] args = { "-e", employees.toString(), "-t", "resources/time_cards.csv",
+                "-o", payStubs.toString(), "-i" };
+
+        PayrollGenerator.main(args);
+
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        assertEquals(expectedPayStubs, Files.readString(payStubs));
+    }
+
+    /**
+     * The sample has one card per employee, so aggregating must not change the pay stubs,
+     * sequentially or in parallel.
+     */
+    @Test
+    public void testAggregateOneCardPerEmployee() throws IOException {
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        for (String threads : new String[] { "1", "4" }) {
+            Path employees = tempDir.resolve("employees_aggregate" + threads + ".csv");
+            Files.copy(Paths.get("resources/employees.csv"), employees);
+            Path payStubs = tempDir.resolve("paystubs_aggregate" + threads + ".csv");
+
+            PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                    "resources/time_cards.csv", "-o", payStubs.toString(), "-a", "-p", threads });
+
+            assertEquals(expectedPayStubs, Files.readString(payStubs));
+        }
+    }
+
+    /**
+     * Lazy runs must pay the same, and only change the lines of employees that were paid.
+     */
+    @Test
+    public void testLazyEmployees() throws IOException {
+        Path employees = tempDir.resolve("employees_lazy.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path timeCards = tempDir.resolve("time_cards_lazy.csv");
+        Files.write(timeCards, java.util.List.of("employee_id,hours_worked", "s193,60"));
+        Path payStubs = tempDir.resolve("paystubs_lazy.csv");
+
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                timeCards.toString(), "-o", payStubs.toString(), "-l" });
+
+        java.util.List<String> before = Files.readAllLines(Paths.get("resources/employees.csv"));
+        java.util.List<String> after = Files.readAllLines(employees);
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            if (i == 2) {
+                assertEquals("SALARY,Nami,s193,200000.00,1000.00,22689.33,6644.00", after.get(i));
+            } else {
+                assertEquals(before.get(i), after.get(i));
+            }
+        }
+
+        Path allEmployees = tempDir.resolve("employees_lazy_all.csv");
+        Files.copy(Paths.get("resources/employees.csv"), allEmployees);
+        Path fullStubs = tempDir.resolve("paystubs_lazy_full.csv");
+        PayrollGenerator.main(new String[] { "-e", allEmployees.toString(), "-t",
+                "resources/time_cards.csv", "-o", fullStubs.toString(), "-l", "-j" });
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        assertEquals(expectedPayStubs, Files.readString(fullStubs));
+    }
+
+    /**
+     * Runs two tenants from a manifest in one JVM; each must get the same pay stubs as a
+     * single run, and a tenant with a missing employee file must not stop the others.
+     */
+    @Test
+    public void testManifest() throws IOException {
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        StringBuilder manifest = new StringBuilder("employee_file,time_card_file,payroll_file\n");
+        manifest.append(tempDir.resolve("missing_tenant.csv")).append(",resources/time_cards.csv,")
+                .append(tempDir.resolve("paystubs_missing_tenant.csv")).append('\n');
+        for (int tenant = 1; tenant <= 2; tenant++) {
+            Path employees = tempDir.resolve("employees_tenant" + tenant + ".csv");
+            Files.copy(Paths.get("resources/employees.csv"), employees);
+            manifest.append(employees).append(",resources/time_cards.csv,")
+                    .append(tempDir.resolve("paystubs_tenant" + tenant + ".csv")).append('\n');
+        }
+        Path manifestFile = tempDir.resolve("manifest.csv");
+        Files.writeString(manifestFile, manifest);
+
+        PayrollGenerator.main(new String[] { "-m", manifestFile.toString() });
+
+        for (int tenant = 1; tenant <= 2; tenant++) {
+            assertEquals(expectedPayStubs,
+                    Files.readString(tempDir.resolve("paystubs_tenant" + tenant + ".csv")));
+        }
+    }
+
+    /**
+     * Runs payroll with a metrics file; the counters must add up to the lines of the files.
+     */
+    @Test
+    public void testMetrics() throws IOException {
+        Path employees = tempDir.resolve("employees_metrics.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path payStubs = tempDir.resolve("paystubs_metrics.csv");
+        Path metricsFile = tempDir.resolve("metrics.csv");
+
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                "resources/time_cards.csv", "-o", payStubs.toString(), "-r",
+                metricsFile.toString() });
+
+        Map<String, String> metrics = new HashMap<>();
+        for (String line : Files.readAllLines(metricsFile)) {
+            String[] parts = line.split(",");
+            metrics.put(parts[0], parts[1]);
+        }
+        long timeCards = Files.readAllLines(Paths.get("resources/time_cards.csv")).size() - 1;
+        long written = Files.readAllLines(payStubs).size() - 1;
+        assertEquals(String.valueOf(timeCards), metrics.get("time_cards_read"));
+        assertEquals(String.valueOf(written), metrics.get("pay_stubs_written"));
+        assertEquals(timeCards, written + Long.parseLong(metrics.get("negative_hours_skipped"))
+                + Long.parseLong(metrics.get("unknown_employees_skipped")));
+        assertEquals(String.valueOf(Files.readAllLines(employees).size() - 1),
+                metrics.get("employees_loaded"));
+        assertEquals(String.valueOf(Files.size(payStubs) + Files.size(employees)),
+                metrics.get("bytes_written"));
+    }
+
+    /**
+     * Runs payroll with a tax table holding only the flat rate; the pay stubs must not change.
+     */
+    @Test
+    public void testFlatTaxTable() throws IOException {
+        Path employees = tempDir.resolve("employees_tax.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path payStubs = tempDir.resolve("paystubs_tax.csv");
+        Path taxFile = tempDir.resolve("tax_table.csv");
+        Files.writeString(taxFile, "table,threshold,rate\nflat,0,22.65\n");
+
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                "resources/time_cards.csv", "-o", payStubs.toString(), "-x",
+                taxFile.toString() });
+
+        String expectedPayStubs = Files
+                .readString(Paths.get("resources/original/pay_stubs_solution_to_original.csv"));
+        assertEquals(expectedPayStubs, Files.readString(payStubs));
+    }
+
+    /**
+     * Projects three periods; the employee file must not change and no pay stubs are written.
+     */
+    @Test
+    public void testProjection() throws IOException {
+        Path employees = tempDir.resolve("employees_projection.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path payStubs = tempDir.resolve("paystubs_projection.csv");
+        Path projection = tempDir.resolve("projection.csv");
+
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                "resources/time_cards.csv", "-o", payStubs.toString(), "-y",
+                projection.toString(), "-n", "3" });
+
+        assertEquals(Files.readString(Paths.get("resources/employees.csv")),
+                Files.readString(employees));
+        assertFalse(Files.exists(payStubs));
+        long employeeCount = Files.readAllLines(employees).size() - 1;
+        assertEquals(employeeCount * 3 + 1, Files.readAllLines(projection).size());
+        assertEquals("employee_id,period,ytd_earnings,ytd_taxes_paid",
+                Files.readAllLines(projection).get(0));
+    }
+
+    /**
+     * Projects an employee paid fractions of a cent, which an employee table cannot hold; the
+     * projection must match paying the employee every period.
+     */
+    @Test
+    public void testProjectionFractionsOfACent() throws IOException {
+        Path employees = tempDir.resolve("employees_projection_fraction.csv");
+        String content = Files.readString(Paths.get("resources/employees.csv"))
+                .replace("HOURLY,Luffy,s192,30.00,", "HOURLY,Luffy,s192,30.005,");
+        Files.writeString(employees, content);
+        Path projection = tempDir.resolve("projection_fraction.csv");
+
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                "resources/time_cards.csv", "-o", tempDir.resolve("unused.csv").toString(),
+                "-y", projection.toString(), "-n", "2" });
+
+        IEmployee luffy = Builder.buildEmployeeFromCSV("HOURLY,Luffy,s192,30.005,0,20000,4530");
+        luffy.runPayroll(45);
+        luffy.runPayroll(45);
+        String[] paid = luffy.toCSV().split(",");
+        List<String> lines = Files.readAllLines(projection);
+        assertEquals((Files.readAllLines(employees).size() - 1) * 2 + 1, lines.size());
+        String[] last = lines.get(2).split(",");
+        assertEquals("s192", last[0]);
+        assertEquals("2", last[1]);
+        assertEquals(Double.parseDouble(paid[5]), Double.parseDouble(last[2]), 0.000001);
+        assertEquals(Double.parseDouble(paid[6]), Double.parseDouble(last[3]), 0.000001);
+    }
+
+    /**
+     * Runs payroll with a snapshot; the second run loads the employees from it, and both runs
+     * must match runs that parse the CSV.
+     */
+    @Test
+    public void testSnapshot() throws IOException {
+        Path plain = tempDir.resolve("employees_plain_snap.csv");
+        Files.copy(Paths.get("resources/employees.csv"), plain);
+        Path withSnapshot = tempDir.resolve("employees_snap.csv");
+        Files.copy(Paths.get("resources/employees.csv"), withSnapshot);
+        Path snapshot = tempDir.resolve("employees.snap");
+        Path plainStubs = tempDir.resolve("paystubs_plain_snap.csv");
+        Path snapshotStubs = tempDir.resolve("paystubs_snap.csv");
+
+        for (int run = 0; run < 2; run++) {
+            PayrollGenerator.main(new String[] { "-e", plain.toString(), "-t",
+                    "resources/time_cards.csv", "-o", plainStubs.toString() });
+            PayrollGenerator.main(new String[] { "-e", withSnapshot.toString(), "-t",
+                    "resources/time_cards.csv", "-o", snapshotStubs.toString(), "-s",
+                    snapshot.toString() });
+            assertEquals(Files.readString(plainStubs), Files.readString(snapshotStubs));
+            assertEquals(Files.readString(plain), Files.readString(withSnapshot));
+            assertTrue(Files.exists(snapshot));
+        }
+    }
+
+    /**
+     * Runs payroll twice in journal mode, then compacts, and checks the employee file ends up
+     * the same as after two ordinary runs.
+     */
+    @Test
+    public void testJournalThenCompact() throws IOException {
+        Path plain = tempDir.resolve("employees_plain.csv");
+        Files.copy(Paths.get("resources/employees.csv"), plain);
+        Path journaled = tempDir.resolve("employees_journaled.csv");
+        Files.copy(Paths.get("resources/employees.csv"), journaled);
+        Path journal = Paths.get(journaled + ".journal");
+        Path payStubs = tempDir.resolve("paystubs_journal.csv");
+
+        for (int run = 0; run < 2; run++) {
+            PayrollGenerator.main(new String[] { "-e", plain.toString(), "-t",
+                    "resources/time_cards.csv", "-o", payStubs.toString() });
+            PayrollGenerator.main(new String[] { "-e", journaled.toString(), "-t",
+                    "resources/time_cards.csv", "-o", payStubs.toString(), "-j" });
+            assertEquals(Files.readString(Paths.get("resources/employees.csv")),
+                    Files.readString(journaled));
+        }
+        String secondRunStubs = Files.readString(payStubs);
+
+        PayrollGenerator.main(new String[] { "-e", journaled.toString(), "-t",
+                "resources/time_cards.csv", "-o", payStubs.toString(), "-j", "-c" });
+        PayrollGenerator.main(new String[] { "-e", plain.toString(), "-t",
+                "resources/time_cards.csv", "-o", payStubs.toString() });
+
+        assertEquals(Files.readString(plain), Files.readString(journaled));
+        assertFalse(Files.exists(journal));
+        assertNotEquals(secondRunStubs, Files.readString(payStubs));
+    }
+
+    /**
+     * Runs payroll in journal mode on time cards that end with a bad line, after a full buffer
+     * of pay stubs has been journaled, and checks the failed run adds nothing to the YTD totals.
+     */
+    @Test
+    public void testJournalFailedRunAddsNothing() throws IOException {
+        Path employees = tempDir.resolve("employees_failed_run.csv");
+        Files.copy(Paths.get("resources/employees.csv"), employees);
+        Path timeCards = tempDir.resolve("time_cards_failed_run.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("employee_id,hours_worked");
+        for (int i = 0; i < 5000; i++) {
+            lines.add("s192,10");
+        }
+        lines.add("s192,ten");
+        Files.write(timeCards, lines);
+        Path payStubs = tempDir.resolve("paystubs_failed_run.csv");
+
+        assertThrows(IllegalArgumentException.class, () -> PayrollGenerator.main(new String[] {
+            "-e", employees.toString(), "-t", timeCards.toString(), "-o", payStubs.toString(),
+            "-j" }));
+
+        // compacting after an empty run must write the same file as an empty plain run
+        Path plain = tempDir.resolve("employees_failed_run_plain.csv");
+        Files.copy(Paths.get("resources/employees.csv"), plain);
+        Path noTimeCards = tempDir.resolve("time_cards_none.csv");
+        Files.write(noTimeCards, List.of("employee_id,hours_worked"));
+        PayrollGenerator.main(new String[] { "-e", employees.toString(), "-t",
+                noTimeCards.toString(), "-o", payStubs.toString(), "-j", "-c" });
+        PayrollGenerator.main(new String[] { "-e", plain.toString(), "-t",
+                noTimeCards.toString(), "-o", payStubs.toString() });
+        assertEquals(Files.readString(plain), Files.readString(employees));
+    }
+
 }
@@ -0,0 +1,141 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AtomicLineWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes the given lines and commits them.
+     *
+     * @param file    the target file
+     * @param backups number of backups to keep
+     * @param lines   the lines
+     * @throws IOException if writing fails
+     */
+    private static void replace(Path file, int backups, String... lines) throws IOException {
+        try (AtomicLineWriter writer = AtomicLineWriter.open(file, backups)) {
+            for (String line : lines) {
+                writer.writeLine(line);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Lists the file names in the temp directory.
+     *
+     * @return the names
+     * @throws IOException if the directory cannot be read
+     */
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void commit_ReplacesTarget() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        Files.write(file, List.of("old"));
+
+        replace(file, 1, "header", "new");
+
+        assertEquals(List.of("header", "new"), Files.readAllLines(file));
+        assertEquals(List.of("old"), Files.readAllLines(tempDir.resolve("employees.csv.bak")));
+        assertEquals(List.of("employees.csv", "employees.csv.bak"), fileNames());
+    }
+
+    /**
+     * Tests that a writer closed without a commit, as after a failure, leaves the target
+     * exactly as it was and removes its temporary file.
+     */
+    @Test
+    void close_WithoutCommitKeepsTarget() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        Files.write(file, List.of("old"));
+
+        try (AtomicLineWriter writer = AtomicLineWriter.open(file, 1)) {
+            writer.writeLine("half written");
+            writer.flush();
+        }
+
+        assertEquals(List.of("old"), Files.readAllLines(file));
+        assertEquals(List.of("employees.csv"), fileNames());
+    }
+
+    @Test
+    void commit_RollsBackups() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        for (int version = 1; version <= 5; version++) {
+            replace(file, 3, "version " + version);
+        }
+
+        assertEquals(List.of("version 5"), Files.readAllLines(file));
+        assertEquals(List.of("version 4"), Files.readAllLines(tempDir.resolve("employees.csv.bak")));
+        assertEquals(List.of("version 3"), Files.readAllLines(tempDir.resolve("employees.csv.bak.1")));
+        assertEquals(List.of("version 2"), Files.readAllLines(tempDir.resolve("employees.csv.bak.2")));
+        assertEquals(4, fileNames().size());
+    }
+
+    @Test
+    void commit_NoBackup() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        replace(file, 0, "first");
+        replace(file, 0, "second");
+
+        assertEquals(List.of("second"), Files.readAllLines(file));
+        assertEquals(List.of("employees.csv"), fileNames());
+    }
+
+    /**
+     * Tests that identical content leaves the target and its backup alone.
+     */
+    @Test
+    void commit_UnchangedSkipsRewrite() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        replace(file, 1, "first");
+        replace(file, 1, "same");
+        replace(file, 1, "same");
+
+        assertEquals(List.of("same"), Files.readAllLines(file));
+        assertEquals(List.of("first"), Files.readAllLines(tempDir.resolve("employees.csv.bak")));
+        assertEquals(2, fileNames().size());
+    }
+
+    @Test
+    void commit_Twice() throws IOException {
+        try (AtomicLineWriter writer = AtomicLineWriter.open(tempDir.resolve("a.csv"), 0)) {
+            writer.commit();
+            assertThrows(IllegalStateException.class, writer::commit);
+        }
+    }
+
+    @Test
+    void commit_KeepsPermissions() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        Files.write(file, List.of("old"));
+        assumeTrue(Files.getFileAttributeView(file, PosixFileAttributeView.class) != null);
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+
+        replace(file, 1, "new");
+
+        assertEquals(List.of("new"), Files.readAllLines(file));
+        assertEquals("rw-r--r--",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+    }
+}
@@ -0,0 +1,113 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BatchPayrollTest {
+
+    private static final int ROWS = 1003;
+    private static final byte SALARY = (byte) EmployeeType.SALARY.ordinal();
+
+    private final byte[] types = new byte[ROWS];
+    private final long[] rates = new long[ROWS];
+    private final long[] pretax = new long[ROWS];
+    private final long[] hours = new long[ROWS];
+
+    /**
+     * Fills the columns with random employees, including rows without a time card, overtime,
+     * deductions above the gross pay and odd cents that round.
+     *
+     * @param seed the random seed
+     */
+    private void fill(long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < ROWS; i++) {
+            boolean hourly = random.nextBoolean();
+            types[i] = hourly ? BatchPayroll.HOURLY : SALARY;
+            rates[i] = hourly ? random.nextInt(20_000) : random.nextInt(30_000_000);
+            pretax[i] = random.nextInt(10) == 0 ? random.nextInt(1_000_000) : random.nextInt(50_000);
+            hours[i] = random.nextInt(10) == 0 ? -1 : random.nextInt(1_000_000);
+        }
+    }
+
+    @Test
+    void vector_MatchesScalar() {
+        assumeVector();
+        for (long seed = 0; seed < 20; seed++) {
+            fill(seed);
+            assertSameResults(0, ROWS);
+            assertSameResults(3, ROWS - 5);
+        }
+    }
+
+    @Test
+    void vector_LargeAmountsUseScalarLoop() {
+        assumeVector();
+        fill(42);
+        rates[10] = 1L << 40; // would overflow a lane's multiply, but fits the exact one
+        hours[10] = 10 * FixedPointPayroll.HOURS_SCALE;
+        pretax[500] = -(1L << 45);
+        hours[500] = 0;
+        assertSameResults(0, ROWS);
+
+        rates[20] = Long.MAX_VALUE / 2;
+        hours[20] = 50 * FixedPointPayroll.HOURS_SCALE;
+        types[20] = BatchPayroll.HOURLY;
+        long[] out = new long[ROWS];
+        assertThrows(ArithmeticException.class, () -> BatchPayroll.vectorKernel().compute(0,
+                ROWS, types, rates, pretax, hours, out, new long[ROWS]));
+    }
+
+    @Test
+    void compute_MatchesEmployees() {
+        fill(7);
+        long[] net = new long[ROWS];
+        long[] taxes = new long[ROWS];
+        int paid = BatchPayroll.compute(0, ROWS, types, rates, pretax, hours, net, taxes);
+
+        int expectedPaid = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (hours[i] < 0) {
+                assertEquals(-1, net[i]);
+                assertEquals(-1, taxes[i]);
+                continue;
+            }
+            expectedPaid++;
+            long gross = types[i] == BatchPayroll.HOURLY
+                    ? FixedPointPayroll.hourlyGrossCents(rates[i], hours[i])
+                    : FixedPointPayroll.salaryGrossCents(rates[i]);
+            long taxable = FixedPointPayroll.taxableCents(gross, pretax[i]);
+            assertEquals(FixedPointPayroll.taxMicros(taxable), taxes[i]);
+            assertEquals(FixedPointPayroll.netMicros(taxable, taxes[i]), net[i]);
+        }
+        assertEquals(expectedPaid, paid);
+    }
+
+    /**
+     * Checks that the vector kernel gives the same results as the scalar loop over a range.
+     *
+     * @param from first row
+     * @param to   last row, exclusive
+     */
+    private void assertSameResults(int from, int to) {
+        long[] expectedNet = new long[ROWS];
+        long[] expectedTaxes = new long[ROWS];
+        long[] net = new long[ROWS];
+        long[] taxes = new long[ROWS];
+        int expectedPaid = BatchPayroll.computeScalar(from, to, types, rates, pretax, hours,
+                expectedNet, expectedTaxes);
+        assertEquals(expectedPaid, BatchPayroll.vectorKernel().compute(from, to, types, rates,
+                pretax, hours, net, taxes));
+        assertArrayEquals(expectedNet, net);
+        assertArrayEquals(expectedTaxes, taxes);
+    }
+
+    /** Skips a test when the tests run without the Vector API module, see -Pvector. */
+    private static void assumeVector() {
+        assumeTrue(BatchPayroll.isVectorized());
+    }
+}
@@ -83,6 +83,18 @@ class BuilderTest {
         assertTrue(exception.getMessage().contains("Invalid number format"));
     }
 
+    @Test
+    void buildEmployeeFromCSV_ReportsLineAndField() {
+        String invalidCsv = "SALARY,Jane Smith,E456,72000.00,30000.00,oops,300.00";
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            Builder.buildEmployeeFromCSV(invalidCsv, 12);
+        });
+
+        assertTrue(exception.getMessage().contains("Invalid number format"));
+        assertTrue(exception.getMessage().contains("at line 12, field 6"));
+    }
+
     /**
      * Tests the buildTimeCardFromCSV method with valid inputs.
      */
@@ -120,4 +132,38 @@ class BuilderTest {
 
         assertTrue(exception.getMessage().contains("Invalid number format"));
     }
+
+    @Test
+    void buildTimeCardFromCSV_ReportsLineAndField() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            Builder.buildTimeCardFromCSV("E123,INVALID", 7);
+        });
+
+        assertTrue(exception.getMessage().contains("at line 7, field 2"));
+    }
+
+    @Test
+    void buildTimeCardFromCSV_NegativeHours() {
+        assertNull(Builder.buildTimeCardFromCSV("E123,-1"));
+    }
+
+    /**
+     * Tests that known IDs are resolved to their key and unknown IDs stay strings.
+     */
+    @Test
+    void buildTimeCardFromCSV_ResolvesIds() {
+        IdDictionary ids = new IdDictionary(2);
+        ids.add("E100");
+        ids.add("E123");
+
+        ITimeCard known = Builder.buildTimeCardFromCSV(" E123 ,40", 2, ids);
+        ITimeCard unknown = Builder.buildTimeCardFromCSV("E999,8", 3, ids);
+
+        assertEquals(1, ((IndexedTimeCard) known).getKey());
+        assertEquals("E123", known.getEmployeeID());
+        assertEquals(40.0, known.getHoursWorked());
+        assertInstanceOf(TimeCard.class, unknown);
+        assertEquals("E999", unknown.getEmployeeID());
+        assertNull(Builder.buildTimeCardFromCSV("E123,-1", 4, ids));
+    }
 }
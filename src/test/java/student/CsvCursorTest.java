@@ -0,0 +1,104 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvCursorTest {
+
+    private CsvCursor cursor;
+
+    @BeforeEach
+    void setUp() {
+        cursor = new CsvCursor();
+    }
+
+    /**
+     * Tests that fields are walked in order and trimmed.
+     */
+    @Test
+    void next_TrimsFields() {
+        cursor.reset(" HOURLY , Luffy ,s192", 2);
+
+        assertTrue(cursor.next());
+        assertTrue(cursor.fieldEqualsIgnoreCase("hourly"));
+        assertTrue(cursor.next());
+        assertEquals("Luffy", cursor.fieldAsString());
+        assertTrue(cursor.next());
+        assertEquals("s192", cursor.fieldAsString());
+        assertEquals(2, cursor.getFieldIndex());
+        assertFalse(cursor.next());
+    }
+
+    /**
+     * Tests that fields are counted the same way String.split(",") counts them.
+     */
+    @Test
+    void countFields_MatchesSplit() {
+        String[] lines = {"a,b,c", "a,b,,", "a,,b", ",a", ",,,", "a", "a, ", " , "};
+        for (String line : lines) {
+            assertEquals(line.split(",").length, cursor.reset(line, 0).countFields(), line);
+        }
+    }
+
+    /**
+     * Tests that numbers are parsed to the same value and scale as the BigDecimal constructor.
+     */
+    @Test
+    void fieldAsDecimal_MatchesConstructor() {
+        String[] values = {"30.00", "0", "200000", "-5.0", "+12.5", ".5", "5.", "0.2265",
+            "1e3", "123456789012345678901234.5"};
+        for (String value : values) {
+            cursor.reset(value, 0).next();
+            assertEquals(new BigDecimal(value), cursor.fieldAsDecimal(), value);
+        }
+    }
+
+    @Test
+    void fieldAsDecimal_Invalid() {
+        for (String value : new String[] {"INVALID", "", "-", ".", "1.2.3", "4 5"}) {
+            cursor.reset(value, 0).next();
+            assertThrows(NumberFormatException.class, () -> cursor.fieldAsDecimal(), value);
+        }
+    }
+
+    @Test
+    void fieldAsScaledLong() {
+        cursor.reset("30.00,200000, -12.5,1.230,1.234", 0);
+        cursor.next();
+        assertEquals(3000, cursor.fieldAsScaledLong(2));
+        cursor.next();
+        assertEquals(20000000, cursor.fieldAsScaledLong(2));
+        cursor.next();
+        assertEquals(-12500000, cursor.fieldAsScaledLong(6));
+        cursor.next();
+        assertEquals(123, cursor.fieldAsScaledLong(2));
+        cursor.next();
+        assertThrows(ArithmeticException.class, () -> cursor.fieldAsScaledLong(2));
+
+        cursor.reset("1e3", 0).next();
+        assertThrows(NumberFormatException.class, () -> cursor.fieldAsScaledLong(2));
+    }
+
+    @Test
+    void reset_CharArray() {
+        char[] chars = "xxs193,60xx".toCharArray();
+        cursor.reset(chars, 2, 7, 5);
+
+        assertEquals(2, cursor.countFields());
+        cursor.next();
+        assertEquals("s193", cursor.fieldAsString());
+        cursor.next();
+        assertEquals(new BigDecimal("60"), cursor.fieldAsDecimal());
+        assertEquals("at line 5, field 2", cursor.describePosition());
+    }
+
+    @Test
+    void isBlank() {
+        assertTrue(cursor.reset(" \t", 0).isBlank());
+        assertFalse(cursor.reset(" a ", 0).isBlank());
+    }
+}
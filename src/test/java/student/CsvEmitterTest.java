@@ -0,0 +1,74 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvEmitterTest {
+
+    @Test
+    void line_JoinsFields() {
+        String line = new CsvEmitter().begin().field("HOURLY").field("Luffy").cents(3000)
+                .money(new BigDecimal("0")).micros(21_102_240_000L).toString();
+
+        assertEquals("HOURLY,Luffy,30.00,0.00,21102.24", line);
+    }
+
+    @Test
+    void begin_ReusesBuffer() {
+        CsvEmitter emitter = new CsvEmitter();
+        emitter.begin().field("first").field("line");
+        assertEquals("second,0.05", emitter.begin().field("second").cents(5).toString());
+    }
+
+    /**
+     * Tests that money is rounded half up, ties included.
+     */
+    @Test
+    void money_RoundsHalfUp() {
+        StringBuilder out = new StringBuilder();
+        CsvEmitter.appendMoney(out, new BigDecimal("1302.375")).append(' ');
+        CsvEmitter.appendMoney(out, new BigDecimal("1302.374999")).append(' ');
+        CsvEmitter.appendMoney(out, new BigDecimal("-2.005")).append(' ');
+        CsvEmitter.appendMoney(out, new BigDecimal("-0.001")).append(' ');
+        CsvEmitter.appendMicros(out, 1_532_275_000L);
+
+        assertEquals("1302.38 1302.37 -2.01 -0.00 1532.28", out.toString());
+    }
+
+    /**
+     * Tests that output is identical to String.format("%.2f") for amounts at micro-dollar
+     * precision, in the range a double holds exactly enough.
+     */
+    @Test
+    void money_MatchesFormat() {
+        Random random = new Random(9);
+        for (int i = 0; i < 100_000; i++) {
+            long micros = (long) (random.nextDouble() * 1_000_000_000_000_000L) - 10_000_000_000L;
+            if (i % 4 == 0) {
+                micros = micros / 10_000 * 10_000 + 5_000; // exact tie at the third decimal
+            }
+            BigDecimal value = BigDecimal.valueOf(micros, 6);
+            String expected = String.format("%.2f", value.doubleValue());
+
+            assertEquals(expected, CsvEmitter.appendMoney(new StringBuilder(), value).toString());
+            assertEquals(expected, CsvEmitter.appendMicros(new StringBuilder(), micros).toString());
+        }
+    }
+
+    /**
+     * Tests that amounts too large for a double to hold to the cent are printed exactly.
+     */
+    @Test
+    void money_LargeAmountsExact() {
+        assertEquals("12345678901234567.13",
+                CsvEmitter.appendMoney(new StringBuilder(), new BigDecimal("12345678901234567.125"))
+                        .toString());
+        assertEquals("123456789012345678901.00",
+                CsvEmitter.appendMoney(new StringBuilder(), new BigDecimal("123456789012345678901"))
+                        .toString());
+    }
+}
@@ -0,0 +1,165 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes an employee file.
+     *
+     * @param lines the lines after the header
+     * @return the file
+     * @throws IOException if writing fails
+     */
+    private Path employees(String... lines) throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        StringBuilder content = new StringBuilder(FileUtil.EMPLOYEE_HEADER).append('\n');
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        Files.writeString(file, content);
+        return file;
+    }
+
+    /**
+     * Tests that a second request is served from the cache and gets fresh, unpaid employees.
+     */
+    @Test
+    void open_ServesRepeatRequestsFromCache() throws IOException {
+        EmployeeCache cache = new EmployeeCache(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami,s193,200000,1000,17017,4983"), 10);
+
+        LazyEmployeeFile first = cache.open();
+        IEmployee luffy = first.get("s192");
+        assertSame(luffy, first.get("s192"));
+        luffy.runPayroll(40);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+
+        LazyEmployeeFile second = cache.open();
+        IEmployee again = second.get("s192");
+        assertNotSame(luffy, again);
+        assertEquals(20000.0, again.getYTDEarnings(), 0.001);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+        assertNull(second.get("x999"));
+    }
+
+    /**
+     * Tests that the least recently used employee is dropped once the cache is full.
+     */
+    @Test
+    void load_EvictsLeastRecentlyUsed() throws IOException {
+        EmployeeCache cache = new EmployeeCache(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami,s193,200000,1000,17017,4983",
+                "HOURLY,Zoro,x101,25.00,0,10000,2265"), 2);
+
+        LazyEmployeeFile request = cache.open();
+        request.get("s192");
+        request.get("s193");
+        cache.open().get("s192"); // s192 is now the most recently used
+        cache.open().get("x101");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        LazyEmployeeFile last = cache.open();
+        last.get("s192");
+        last.get("s193");
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    /**
+     * Tests that requests running at the same time each get their own unpaid employees, and
+     * that every lookup is counted once.
+     */
+    @Test
+    void load_ConcurrentRequests() throws Exception {
+        EmployeeCache cache = new EmployeeCache(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami,s193,200000,1000,17017,4983"), 10);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int r = 0; r < 200; r++) {
+                requests.add(pool.submit(() -> {
+                    LazyEmployeeFile request = cache.open();
+                    IEmployee luffy = request.get("s192");
+                    assertEquals(20000.0, luffy.getYTDEarnings(), 0.001);
+                    luffy.runPayroll(40);
+                    assertEquals(17017.0, request.get("s193").getYTDEarnings(), 0.001);
+                    return null;
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(400, cache.getHits() + cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Tests that changed contents clear the cache, and a mere touch does not.
+     */
+    @Test
+    void open_InvalidatesOnlyWhenContentsChange() throws IOException {
+        Path file = employees("HOURLY,Luffy,s192,30.00,0,20000,4530");
+        EmployeeCache cache = new EmployeeCache(file, 10);
+        cache.open().get("s192");
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+                Files.getLastModifiedTime(file).toMillis() + 5000));
+        cache.open().get("s192");
+        assertEquals(0, cache.getInvalidations());
+        assertEquals(1, cache.getHits());
+
+        employees("HOURLY,Luffy,s192,30.00,0,21000.50,4530");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+                Files.getLastModifiedTime(file).toMillis() + 10000));
+        IEmployee updated = cache.open().get("s192");
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(21000.50, updated.getYTDEarnings(), 0.001);
+    }
+
+    /**
+     * Tests that checksum verification notices a change the size and time would miss.
+     */
+    @Test
+    void open_VerifyChecksumCatchesSameSizeAndTime() throws IOException {
+        Path file = employees("HOURLY,Luffy,s192,30.00,0,20000,4530");
+        FileTime time = Files.getLastModifiedTime(file);
+        EmployeeCache cache = new EmployeeCache(file, 10, true);
+        cache.open().get("s192");
+
+        employees("HOURLY,Luffy,s192,31.00,0,20000,4530");
+        Files.setLastModifiedTime(file, time);
+        assertEquals(31.0, cache.open().get("s192").getPayRate(), 0.001);
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    void constructor_RejectsBadSize() {
+        assertThrows(IllegalArgumentException.class, () -> new EmployeeCache(tempDir, 0));
+    }
+}
@@ -0,0 +1,125 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeRegistryTest {
+
+    private EmployeeRegistry registry;
+    private IEmployee luffy;
+    private IEmployee nami;
+
+    @BeforeEach
+    void setUp() {
+        luffy = new HourlyEmployee("Luffy", "s192", new BigDecimal("30.00"),
+                new BigDecimal("20000"), new BigDecimal("4530"), new BigDecimal("0"));
+        nami = new SalaryEmployee("Nami", "s193", new BigDecimal("200000"),
+                new BigDecimal("17017"), new BigDecimal("4983"), new BigDecimal("1000"));
+        registry = new EmployeeRegistry(List.of(luffy, nami));
+    }
+
+    @Test
+    void get_KnownId() {
+        assertSame(luffy, registry.get("s192"));
+        assertSame(nami, registry.get("s193"));
+    }
+
+    @Test
+    void get_UnknownId() {
+        assertNull(registry.get("x999"));
+        assertFalse(registry.contains("x999"));
+    }
+
+    @Test
+    void get_TimeCard() {
+        assertSame(nami, registry.get(new TimeCard("s193", new BigDecimal("40"))));
+        assertNull(registry.get((ITimeCard) null));
+    }
+
+    /**
+     * Tests that cards resolved against the registry's IDs are joined by key, and cards
+     * resolved against another dictionary fall back to the ID string.
+     */
+    @Test
+    void get_ResolvedTimeCard() {
+        ITimeCard resolved = Builder.buildTimeCardFromCSV("s193,40", 2, registry.getIds());
+        IdDictionary other = new IdDictionary(2);
+        other.add("x999");
+        other.add("s192");
+        ITimeCard foreign = Builder.buildTimeCardFromCSV("s192,40", 2, other);
+
+        assertSame(nami, registry.get(resolved));
+        assertEquals(1, registry.indexOf(resolved));
+        assertSame(luffy, registry.get(foreign));
+        assertEquals(0, registry.indexOf(foreign));
+    }
+
+    @Test
+    void indexOf_MatchesGetEmployees() {
+        assertEquals(0, registry.indexOf("s192"));
+        assertEquals(1, registry.indexOf("s193"));
+        assertEquals(-1, registry.indexOf("x999"));
+    }
+
+    @Test
+    void getEmployees_KeepsOrder() {
+        assertEquals(List.of(luffy, nami), registry.getEmployees());
+        assertEquals(2, registry.size());
+        assertThrows(UnsupportedOperationException.class, () -> registry.getEmployees().clear());
+    }
+
+    /**
+     * Tests that two employees with the same ID are rejected.
+     */
+    @Test
+    void constructor_DuplicateId() {
+        IEmployee copy = new HourlyEmployee("Luffy Copy", "s192", 1.0, 0.0, 0.0, 0.0);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            new EmployeeRegistry(List.of(luffy, copy));
+        });
+
+        assertTrue(exception.getMessage().contains("Duplicate employee ID: s192"));
+    }
+
+    @Test
+    void constructor_NullList() {
+        assertThrows(IllegalArgumentException.class, () -> new EmployeeRegistry(null));
+    }
+
+    /**
+     * Regression check for the join cost. Every employee ID is read once while the index is
+     * built, and a lookup never reads an ID again, so the total work grows linearly with
+     * employees plus time cards instead of with their product.
+     */
+    @Test
+    void join_ScalesLinearly() {
+        for (int size : new int[] {1_000, 10_000, 100_000}) {
+            int[] idReads = new int[1];
+            List<IEmployee> employees = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String id = "e" + i;
+                employees.add(new HourlyEmployee("Employee " + i, id, 20.0, 0.0, 0.0, 0.0) {
+                    @Override
+                    public String getID() {
+                        idReads[0]++;
+                        return id;
+                    }
+                });
+            }
+
+            EmployeeRegistry large = new EmployeeRegistry(employees);
+            for (int i = size - 1; i >= 0; i--) {
+                assertNotNull(large.get("e" + i));
+            }
+
+            assertEquals(size, idReads[0], "each employee ID should be read exactly once");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Copies the sample employee file into the temp directory.
+     *
+     * @return the copy
+     * @throws IOException if copying fails
+     */
+    private Path sampleEmployees() throws IOException {
+        Path csv = tempDir.resolve("employees.csv");
+        Files.copy(Paths.get("resources/employees.csv"), csv);
+        return csv;
+    }
+
+    /**
+     * Tests that converting CSV to a snapshot and back gives what a rewrite of the CSV gives.
+     */
+    @Test
+    void fromCSV_RoundTrip() throws IOException {
+        Path csv = sampleEmployees();
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.fromCSV(csv, snapshotFile);
+
+        Path back = tempDir.resolve("back.csv");
+        EmployeeSnapshot.map(snapshotFile).toCSV(back);
+
+        List<String> expected = new ArrayList<>();
+        expected.add(FileUtil.EMPLOYEE_HEADER);
+        for (String line : FileUtil.readFileToList(csv.toString())) {
+            expected.add(Builder.buildEmployeeFromCSV(line).toCSV());
+        }
+        assertEquals(expected, Files.readAllLines(back));
+    }
+
+    @Test
+    void get_MatchesBuilder() throws IOException {
+        Path csv = sampleEmployees();
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.fromCSV(csv, snapshotFile);
+
+        EmployeeSnapshot snapshot = EmployeeSnapshot.map(snapshotFile);
+        List<String> lines = FileUtil.readFileToList(csv.toString());
+        assertEquals(lines.size(), snapshot.size());
+        for (int i = 0; i < lines.size(); i++) {
+            IEmployee expected = Builder.buildEmployeeFromCSV(lines.get(i));
+            IEmployee actual = snapshot.get(i);
+            assertEquals(expected.getEmployeeType(), actual.getEmployeeType());
+            assertEquals(expected.toCSV(), actual.toCSV());
+            assertEquals(expected.runPayroll(41.5).toCSV(), actual.runPayroll(41.5).toCSV());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(lines.size()));
+    }
+
+    /**
+     * Tests that repeated names share one string table entry and that non-ASCII text survives.
+     */
+    @Test
+    void write_SharesStrings() throws IOException {
+        EmployeeTable table = new EmployeeTable();
+        for (int i = 0; i < 1000; i++) {
+            table.add(EmployeeType.HOURLY, "Zo\u00eb \u4e2d", "e" + i, 2500, 0, 1_000_000, 0);
+        }
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.write(snapshotFile, table, tempDir.resolve("missing.csv"));
+
+        long strings = Files.size(snapshotFile) - EmployeeSnapshot.HEADER_SIZE
+                - 1000L * EmployeeSnapshot.RECORD_SIZE;
+        assertTrue(strings < 1000 * 8, "names should be stored once, was " + strings + " bytes");
+
+        EmployeeTable loaded = EmployeeSnapshot.map(snapshotFile).toTable();
+        assertEquals(1000, loaded.size());
+        assertEquals(table.get(999).toCSV(), loaded.get(999).toCSV());
+    }
+
+    @Test
+    void isCurrent_DetectsChangedCSV() throws IOException {
+        Path csv = sampleEmployees();
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.fromCSV(csv, snapshotFile);
+        assertTrue(EmployeeSnapshot.map(snapshotFile).isCurrent(csv));
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(0));
+        assertFalse(EmployeeSnapshot.map(snapshotFile).isCurrent(csv));
+    }
+
+    @Test
+    void map_RejectsOtherFiles() throws IOException {
+        Path csv = sampleEmployees();
+        assertThrows(IllegalArgumentException.class, () -> EmployeeSnapshot.map(csv));
+
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.fromCSV(csv, snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[7] = 99; // version
+        Files.write(snapshotFile, bytes);
+        assertThrows(IllegalArgumentException.class, () -> EmployeeSnapshot.map(snapshotFile));
+    }
+
+    @Test
+    void fromCSV_RejectsFractionsOfACent() throws IOException {
+        Path csv = tempDir.resolve("employees.csv");
+        Files.write(csv, List.of(FileUtil.EMPLOYEE_HEADER, "HOURLY,Luffy,s192,30.005,0,0,0"));
+        assertThrows(IllegalArgumentException.class,
+                () -> EmployeeSnapshot.fromCSV(csv, tempDir.resolve("employees.snap")));
+    }
+}
@@ -0,0 +1,183 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeTableTest {
+
+    private List<String> lines;
+    private EmployeeTable table;
+
+    @BeforeEach
+    void setUp() {
+        lines = FileUtil.readFileToList("resources/employees.csv");
+        table = EmployeeTable.fromCSV(lines);
+    }
+
+    /**
+     * Tests that views print exactly what the employee objects print.
+     */
+    @Test
+    void views_MatchEmployees() {
+        assertEquals(lines.size(), table.size());
+        for (int i = 0; i < lines.size(); i++) {
+            IEmployee expected = Builder.buildEmployeeFromCSV(lines.get(i));
+            IEmployee view = table.get(i);
+            assertEquals(expected.toCSV(), view.toCSV());
+            assertEquals(expected.getName(), view.getName());
+            assertEquals(expected.getID(), view.getID());
+            assertEquals(expected.getEmployeeType(), view.getEmployeeType());
+            assertEquals(expected.getPayRate(), view.getPayRate());
+            assertEquals(expected.getPretaxDeductions(), view.getPretaxDeductions());
+            assertEquals(expected.getYTDEarnings(), view.getYTDEarnings());
+            assertEquals(expected.getYTDTaxesPaid(), view.getYTDTaxesPaid());
+        }
+    }
+
+    /**
+     * Tests the table against the sample files end to end, through the registry.
+     */
+    @Test
+    void views_ProduceSamplePayStubs() {
+        EmployeeRegistry registry = new EmployeeRegistry(table.asList());
+        List<IPayStub> stubs = new ArrayList<>();
+        for (String line : FileUtil.readFileToList("resources/time_cards.csv")) {
+            ITimeCard timeCard = Builder.buildTimeCardFromCSV(line);
+            IEmployee employee = registry.get(timeCard);
+            if (employee != null) {
+                stubs.add(employee.runPayroll(timeCard.getHoursWorked()));
+            }
+        }
+
+        List<String> expected = FileUtil.readFileToList(
+                "resources/original/pay_stubs_solution_to_original.csv");
+        assertEquals(expected, stubs.stream().map(IPayStub::toCSV).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that the batch run over a range gives the same amounts and totals as paying
+     * each employee object one at a time.
+     */
+    @Test
+    void runPayroll_BatchMatchesEmployees() {
+        double[] hours = {45, 60, -1, 35, 0, 40.25, 12.5, 80, 40};
+        long[] scaled = new long[table.size()];
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = hours[i] < 0 ? -1 : FixedPointPayroll.toScaledHours(hours[i]);
+        }
+        long[] net = new long[table.size()];
+        long[] taxes = new long[table.size()];
+
+        int paid = table.runPayroll(0, 4, scaled, net, taxes)
+                + table.runPayroll(4, table.size(), scaled, net, taxes);
+
+        assertEquals(table.size() - 1, paid);
+        for (int i = 0; i < table.size(); i++) {
+            IEmployee expected = Builder.buildEmployeeFromCSV(lines.get(i));
+            IPayStub stub = expected.runPayroll(hours[i]);
+            if (stub == null) {
+                assertEquals(-1, net[i]);
+            } else {
+                assertEquals(stub.getPay(), Money.fromMicros(net[i]).doubleValue());
+                assertEquals(stub.getTaxesPaid(), Money.fromMicros(taxes[i]).doubleValue());
+            }
+            assertEquals(expected.toCSV(), table.get(i).toCSV());
+        }
+    }
+
+    /**
+     * Tests that paying one period in a batch gives the same amounts as runPayroll, without
+     * changing the YTD columns.
+     */
+    @Test
+    void payFlatTax_LeavesYtdAlone() {
+        long[] scaled = new long[table.size()];
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = i == 2 ? -1 : FixedPointPayroll.toScaledHours(42.5);
+        }
+        long[] net = new long[table.size()];
+        long[] taxes = new long[table.size()];
+        List<String> before = new ArrayList<>();
+        for (int i = 0; i < table.size(); i++) {
+            before.add(table.get(i).toCSV());
+        }
+
+        assertTrue(table.hasFlatTax());
+        assertEquals(table.size() - 1, table.payFlatTax(0, table.size(), scaled, net, taxes));
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(before.get(i), table.get(i).toCSV());
+        }
+        long[] paidNet = new long[table.size()];
+        long[] paidTaxes = new long[table.size()];
+        table.runPayroll(0, table.size(), scaled, paidNet, paidTaxes);
+        assertArrayEquals(paidNet, net);
+        assertArrayEquals(paidTaxes, taxes);
+    }
+
+    @Test
+    void runPayroll_InvalidRange() {
+        long[] empty = new long[table.size()];
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> table.runPayroll(0, table.size() + 1, empty, empty, empty));
+    }
+
+    @Test
+    void view_HoursWithManyDecimals() {
+        HourlyEmployee expected = new HourlyEmployee("Luffy", "s192", new BigDecimal("30.00"),
+                new BigDecimal("20000"), new BigDecimal("4530"), new BigDecimal("0"));
+        IPayStub stub = table.get(0).runPayroll(1.0 / 3);
+
+        assertEquals(expected.runPayroll(1.0 / 3).toCSV(), stub.toCSV());
+        assertEquals(expected.toCSV(), table.get(0).toCSV());
+    }
+
+    @Test
+    void views_UseTaxPolicy() {
+        TaxPolicy brackets = TaxBrackets.fromCSV(List.of("federal,0,10", "federal,5000,30"),
+                TaxBrackets.Method.CUMULATIVE, 24);
+        for (int row = 0; row < table.size(); row++) {
+            EmployeeView view = table.get(row);
+            view.setTaxPolicy(brackets);
+            IEmployee copy = view.toEmployee();
+            assertSame(brackets, ((EmployeeBigDecimal) copy).getTaxPolicy());
+            // two periods, so the second one starts from the YTD totals of the first
+            for (int period = 0; period < 2; period++) {
+                assertEquals(copy.runPayroll(45.0).toCSV(), view.runPayroll(45.0).toCSV());
+            }
+        }
+        assertSame(TaxPolicy.FLAT, EmployeeTable.fromCSV(lines).get(0).getTaxPolicy());
+    }
+
+    @Test
+    void rowOf_AndGrowth() {
+        EmployeeTable small = new EmployeeTable(1);
+        for (int i = 0; i < 100; i++) {
+            small.add(EmployeeType.HOURLY, "Same Name", "e" + i, 2000, 0, 0, 0);
+        }
+        assertEquals(100, small.size());
+        assertEquals(42, small.rowOf("e42"));
+        assertEquals(-1, small.rowOf("nobody"));
+        assertEquals("Same Name", small.get(99).getName());
+        assertEquals(small.get(7), small.get(7));
+    }
+
+    @Test
+    void add_Invalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> table.add(EmployeeType.HOURLY, "Copy", "s192", 100, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> table.add(EmployeeType.HOURLY, "Fraction", "z1", new BigDecimal("20.125"),
+                        BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> EmployeeTable.fromCSV(List.of("HOURLY,A,a1,20.00,0,oops,0")));
+        assertTrue(exception.getMessage().contains("at line 2, field 6"));
+    }
+}
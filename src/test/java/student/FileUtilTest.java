@@ -0,0 +1,125 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that readFileToList drops the header and keeps the rest in order.
+     */
+    @Test
+    void readFileToList_SkipsHeader() throws IOException {
+        Path file = tempDir.resolve("cards.csv");
+        Files.write(file, List.of("employee_id,hours_worked", "s192,45", "s193,60"));
+
+        List<String> lines = FileUtil.readFileToList(file.toString());
+
+        assertEquals(List.of("s192,45", "s193,60"), lines);
+        lines.add("x101,40"); // callers are allowed to modify the list
+    }
+
+    @Test
+    void readFileToList_MissingFile() {
+        assertTrue(FileUtil.readFileToList(tempDir.resolve("missing.csv").toString()).isEmpty());
+    }
+
+    /**
+     * Tests that streamLines skips the header and hands out lines lazily.
+     */
+    @Test
+    void streamLines_SkipsHeader() throws IOException {
+        Path file = tempDir.resolve("cards.csv");
+        Files.write(file, List.of("employee_id,hours_worked", "s192,45", "s193,60"));
+
+        try (Stream<String> lines = FileUtil.streamLines(file.toString())) {
+            Iterator<String> iterator = lines.iterator();
+            assertEquals("s192,45", iterator.next());
+            assertEquals("s193,60", iterator.next());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    /**
+     * Tests a file far larger than the read buffer is streamed completely.
+     */
+    @Test
+    void streamLines_LargerThanBuffer() throws IOException {
+        Path file = tempDir.resolve("large.csv");
+        int count = FileUtil.READ_BUFFER_SIZE; // every line is longer than one char
+        List<String> written = Stream.iterate(0, i -> i + 1).limit(count)
+                .map(i -> "e" + i + ",40").collect(Collectors.toList());
+        written.add(0, "employee_id,hours_worked");
+        Files.write(file, written);
+
+        try (Stream<String> lines = FileUtil.streamLines(file.toString())) {
+            assertEquals(count, lines.count());
+        }
+    }
+
+    @Test
+    void streamLines_MissingFile() {
+        try (Stream<String> lines = FileUtil.streamLines(tempDir.resolve("missing.csv").toString())) {
+            assertEquals(0, lines.count());
+        }
+    }
+
+    /**
+     * Tests that writeFile keeps the old file as a .bak backup.
+     */
+    @Test
+    void writeFile_BacksUpExisting() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        Files.write(file, List.of("old"));
+
+        FileUtil.writeFile(file.toString(), List.of("header", "new"));
+
+        assertEquals(List.of("header", "new"), Files.readAllLines(file));
+        assertEquals(List.of("old"), Files.readAllLines(tempDir.resolve("employees.csv.bak")));
+    }
+
+    @Test
+    void writeFile_NoBackup() throws IOException {
+        Path file = tempDir.resolve("stubs.csv");
+        Files.write(file, List.of("old"));
+
+        FileUtil.writeFile(file.toString(), List.of("new"), false);
+
+        assertEquals(List.of("new"), Files.readAllLines(file));
+        assertFalse(Files.exists(tempDir.resolve("stubs.csv.bak")));
+    }
+
+    /**
+     * Tests writing lines one at a time, past the size of the buffer, with non-ASCII text.
+     */
+    @Test
+    void openWriter_WritesIncrementally() throws IOException {
+        Path file = tempDir.resolve("stubs.csv");
+        List<String> expected = new ArrayList<>();
+        LineWriter writer = FileUtil.openWriter(file.toString(), true);
+        try (writer) {
+            for (int i = 0; i < 100_000; i++) {
+                String line = "Employee \u00e9\u4e2d " + i + ",1.00,2.00";
+                writer.writeLine(line);
+                expected.add(line);
+            }
+        }
+
+        assertEquals(expected, Files.readAllLines(file));
+        assertEquals(Files.size(file), writer.getBytesWritten());
+    }
+}
@@ -0,0 +1,112 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointPayrollTest {
+
+    @Test
+    void toScaledHours() {
+        assertEquals(450_000, FixedPointPayroll.toScaledHours(45.0));
+        assertEquals(375_025, FixedPointPayroll.toScaledHours(37.5025));
+        assertEquals(0, FixedPointPayroll.toScaledHours(0.0));
+        assertEquals(FixedPointPayroll.NOT_EXACT, FixedPointPayroll.toScaledHours(1.0 / 3));
+        assertEquals(FixedPointPayroll.NOT_EXACT, FixedPointPayroll.toScaledHours(Double.NaN));
+        assertEquals(FixedPointPayroll.NOT_EXACT, FixedPointPayroll.toScaledHours(-1.0));
+    }
+
+    @Test
+    void hourlyGrossCents() {
+        // 30.00 an hour, 45 hours: 40 * 30 + 5 * 45 = 1425.00
+        assertEquals(142500, FixedPointPayroll.hourlyGrossCents(3000, 450_000));
+        // 25.55 an hour, 0.0001 hours is 0.002555, rounds to 0.00
+        assertEquals(0, FixedPointPayroll.hourlyGrossCents(2555, 1));
+        assertThrows(ArithmeticException.class,
+                () -> FixedPointPayroll.hourlyGrossCents(Long.MAX_VALUE / 2, 450_000));
+    }
+
+    @Test
+    void salaryGrossCents() {
+        assertEquals(250000, FixedPointPayroll.salaryGrossCents(6_000_000));
+        // 100000.00 / 24 = 4166.666..., rounds to 4166.67
+        assertEquals(416667, FixedPointPayroll.salaryGrossCents(10_000_000));
+    }
+
+    @Test
+    void taxAndNet() {
+        long taxable = FixedPointPayroll.taxableCents(120000, 7500);
+        assertEquals(112500, taxable);
+        assertEquals(254_812_500L, FixedPointPayroll.taxMicros(taxable));
+        assertEquals(870_187_500L, FixedPointPayroll.netMicros(taxable, 254_812_500L));
+        assertEquals(0, FixedPointPayroll.taxableCents(100, 7500));
+    }
+
+    /**
+     * Creates one employee from the random values.
+     *
+     * @param hourly true for an hourly employee
+     * @param values pay rate, YTD earnings, YTD taxes and pretax deductions
+     * @return the employee
+     */
+    private static EmployeeBigDecimal employee(boolean hourly, BigDecimal[] values) {
+        return hourly
+                ? new HourlyEmployee("H", "h1", values[0], values[1], values[2], values[3])
+                : new SalaryEmployee("S", "s1", values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * Proves the fixed-point path writes byte-identical CSV to the BigDecimal path, for pay
+     * stubs and for the employee file, over many random employees and several pay periods.
+     */
+    @Test
+    void runPayroll_IdenticalToBigDecimal() {
+        Random random = new Random(5004);
+        double[] hourChoices = {0, 0.25, 7.5, 39.99, 40, 40.01, 45, 52.75, 80.125, 37.5025};
+        for (int i = 0; i < 20_000; i++) {
+            boolean hourly = random.nextBoolean();
+            long rate = hourly ? random.nextInt(20_000) : random.nextInt(50_000_000);
+            BigDecimal[] values = {
+                BigDecimal.valueOf(rate, 2),
+                BigDecimal.valueOf(random.nextInt(10_000_000), 2),
+                BigDecimal.valueOf(random.nextInt(3_000_000), 2),
+                BigDecimal.valueOf(random.nextInt(300_000), random.nextInt(3)),
+            };
+            EmployeeBigDecimal reference = employee(hourly, values);
+            EmployeeBigDecimal fixed = employee(hourly, values);
+
+            for (int period = 0; period < 3; period++) {
+                double hours = random.nextInt(4) == 0
+                        ? hourChoices[random.nextInt(hourChoices.length)]
+                        : random.nextInt(7000) / 100.0;
+                IPayStub expected = reference.runPayrollBigDecimal(hours);
+                IPayStub actual = fixed.runPayrollFixedPoint(hours);
+
+                assertNotNull(actual, "fixed-point path should apply to whole-cent inputs");
+                assertEquals(expected.toCSV(), actual.toCSV());
+                assertEquals(expected.getPay(), actual.getPay());
+                assertEquals(expected.getTaxesPaid(), actual.getTaxesPaid());
+            }
+            assertEquals(reference.toCSV(), fixed.toCSV());
+        }
+    }
+
+    /**
+     * Tests that inputs the fixed-point path cannot hold exactly go through BigDecimal.
+     */
+    @Test
+    void runPayroll_FallsBackForFractionalCents() {
+        HourlyEmployee employee = new HourlyEmployee("Fraction", "f1", new BigDecimal("20.125"),
+                new BigDecimal("0"), new BigDecimal("0"), new BigDecimal("0"));
+
+        assertNull(employee.runPayrollFixedPoint(40));
+        assertEquals(805.0 * (1 - 0.2265), employee.runPayroll(40).getPay(), 0.000001);
+
+        HourlyEmployee thirds = new HourlyEmployee("Thirds", "t1", 20.0, 0.0, 0.0, 0.0);
+        assertNull(thirds.runPayrollFixedPoint(1.0 / 3));
+        assertNotNull(thirds.runPayroll(1.0 / 3));
+    }
+}
@@ -0,0 +1,60 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdDictionaryTest {
+
+    @Test
+    void add_GivesDenseKeys() {
+        IdDictionary ids = new IdDictionary(2);
+
+        assertEquals(0, ids.add("s192"));
+        assertEquals(1, ids.add("s193"));
+        assertEquals(-1, ids.add("s192"));
+        assertEquals(2, ids.size());
+        assertEquals("s193", ids.idOf(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> ids.idOf(2));
+    }
+
+    /**
+     * Tests that the dictionary grows past its expected size and every ID keeps its key.
+     */
+    @Test
+    void add_GrowsPastExpectedSize() {
+        IdDictionary ids = new IdDictionary(0);
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, ids.add("e" + i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, ids.find("e" + i));
+            assertEquals("e" + i, ids.idOf(i));
+        }
+        assertEquals(-1, ids.find("e100000"));
+        assertEquals(-1, ids.find(""));
+    }
+
+    @Test
+    void find_RangeOfLine() {
+        IdDictionary ids = new IdDictionary(4);
+        ids.add("s192");
+        ids.add("s19");
+
+        assertEquals(0, ids.find("x,s192,40", 2, 6));
+        assertEquals(1, ids.find("x,s192,40", 2, 5));
+        assertEquals(-1, ids.find("x,s192,40", 2, 4));
+    }
+
+    @Test
+    void find_ThroughCursor() {
+        IdDictionary ids = new IdDictionary(1);
+        ids.add("s192");
+        CsvCursor cursor = new CsvCursor().reset("  s192 , 40", 2);
+
+        cursor.next();
+        assertEquals(0, cursor.fieldKey(ids));
+        cursor.next();
+        assertEquals(-1, cursor.fieldKey(ids));
+    }
+}
@@ -0,0 +1,108 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyEmployeeFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes an employee file.
+     *
+     * @param lines the lines after the header
+     * @return the file
+     * @throws IOException if writing fails
+     */
+    private Path employees(String... lines) throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        StringBuilder content = new StringBuilder(FileUtil.EMPLOYEE_HEADER).append("\r\n");
+        for (String line : lines) {
+            content.append(line).append("\r\n");
+        }
+        Files.writeString(file, content);
+        return file;
+    }
+
+    /**
+     * Tests that only looked up employees are built, and that they match the eager builder.
+     */
+    @Test
+    void get_BuildsOnlyWhatIsLookedUp() throws IOException {
+        LazyEmployeeFile lazy = LazyEmployeeFile.open(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami, s193 ,200000,1000,17017,4983",
+                "HOURLY,Zo\u00eb,x101,25.00,0,10000,2265"));
+
+        assertEquals(3, lazy.size());
+        assertEquals(0, lazy.getMaterializedCount());
+        assertEquals(1, lazy.indexOf("s193"));
+        assertEquals(-1, lazy.indexOf("x999"));
+        assertNull(lazy.get("x999"));
+
+        IEmployee nami = lazy.get("s193");
+        assertSame(nami, lazy.get("s193"));
+        assertEquals(Builder.buildEmployeeFromCSV("SALARY,Nami,s193,200000,1000,17017,4983").toCSV(),
+                nami.toCSV());
+        assertEquals("Zo\u00eb", lazy.get("x101").getName());
+        assertEquals(2, lazy.getMaterializedCount());
+    }
+
+    /**
+     * Tests that untouched lines are written exactly as they were read, and paid employees
+     * are written with their new totals.
+     */
+    @Test
+    void writeCSV_CopiesUntouchedLines() throws IOException {
+        LazyEmployeeFile lazy = LazyEmployeeFile.open(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami,s193,200000,1000,17017,4983",
+                "HOURLY,Zo\u00eb,x101,25.00,0,10000,2265"));
+        IEmployee luffy = lazy.get("s192");
+        luffy.runPayroll(45);
+
+        Path out = tempDir.resolve("out.csv");
+        try (LineWriter writer = new LineWriter(out, 64)) {
+            lazy.writeCSV(writer);
+        }
+
+        assertEquals(List.of(luffy.toCSV(), "SALARY,Nami,s193,200000,1000,17017,4983",
+                "HOURLY,Zo\u00eb,x101,25.00,0,10000,2265"), Files.readAllLines(out));
+    }
+
+    @Test
+    void open_RejectsDuplicateIds() throws IOException {
+        Path file = employees("HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "HOURLY,Luffy Copy,s192,30.00,0,20000,4530");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> LazyEmployeeFile.open(file));
+        assertEquals("Duplicate employee ID: s192", e.getMessage());
+    }
+
+    @Test
+    void open_RejectsLineWithoutId() throws IOException {
+        Path file = employees("HOURLY,Luffy,s192,30.00,0,20000,4530", "HOURLY,Nami");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> LazyEmployeeFile.open(file));
+        assertTrue(e.getMessage().contains("at line 3"), e.getMessage());
+    }
+
+    /**
+     * Tests that a bad line is only reported when that employee is looked up.
+     */
+    @Test
+    void get_ReportsBadLineWhenLookedUp() throws IOException {
+        LazyEmployeeFile lazy = LazyEmployeeFile.open(employees(
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "HOURLY,Nami,s193,lots,0,0,0"));
+        assertNotNull(lazy.get("s192"));
+        Exception e = assertThrows(IllegalArgumentException.class, () -> lazy.get("s193"));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+    }
+}
@@ -0,0 +1,129 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyEmployeeSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Snapshots the sample employee file.
+     *
+     * @return the mapped snapshot
+     * @throws IOException if writing or mapping fails
+     */
+    private EmployeeSnapshot sampleSnapshot() throws IOException {
+        Path csv = tempDir.resolve("employees.csv");
+        Files.copy(Paths.get("resources/employees.csv"), csv);
+        Path snapshotFile = tempDir.resolve("employees.snap");
+        EmployeeSnapshot.fromCSV(csv, snapshotFile);
+        return EmployeeSnapshot.map(snapshotFile);
+    }
+
+    /**
+     * Tests that only looked up employees are built, and that they match the snapshot.
+     */
+    @Test
+    void get_BuildsOnlyWhatIsLookedUp() throws IOException {
+        EmployeeSnapshot snapshot = sampleSnapshot();
+        LazyEmployeeSnapshot lazy = new LazyEmployeeSnapshot(snapshot);
+        assertEquals(snapshot.size(), lazy.size());
+        assertEquals(0, lazy.getMaterializedCount());
+
+        String id = snapshot.idOf(3);
+        assertEquals(3, lazy.indexOf(id));
+        assertEquals(-1, lazy.indexOf("x999"));
+        assertNull(lazy.get("x999"));
+
+        IEmployee employee = lazy.get(id);
+        assertSame(employee, lazy.get(id));
+        assertEquals(snapshot.get(3).toCSV(), employee.toCSV());
+        assertEquals(1, lazy.getMaterializedCount());
+    }
+
+    /**
+     * Tests that threads looking up the same employees all get the same objects.
+     */
+    @Test
+    void get_SameEmployeeOnEveryThread() throws Exception {
+        EmployeeSnapshot snapshot = sampleSnapshot();
+        LazyEmployeeSnapshot lazy = new LazyEmployeeSnapshot(snapshot);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<IEmployee>>> lookups = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                lookups.add(pool.submit(() -> {
+                    List<IEmployee> found = new ArrayList<>();
+                    for (int i = 0; i < snapshot.size(); i++) {
+                        found.add(lazy.get(i));
+                    }
+                    return found;
+                }));
+            }
+            List<IEmployee> first = lookups.get(0).get();
+            for (Future<List<IEmployee>> lookup : lookups) {
+                List<IEmployee> found = lookup.get();
+                for (int i = 0; i < found.size(); i++) {
+                    assertSame(first.get(i), found.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that untouched records are written as the snapshot holds them and paid employees
+     * with their new totals, both to the CSV and to a new snapshot.
+     */
+    @Test
+    void writeCSV_FormatsUntouchedRecords() throws IOException {
+        EmployeeSnapshot snapshot = sampleSnapshot();
+        LazyEmployeeSnapshot lazy = new LazyEmployeeSnapshot(snapshot);
+        IEmployee paid = lazy.get(1);
+        paid.runPayroll(45);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            expected.add(i == 1 ? paid.toCSV() : snapshot.get(i).toCSV());
+        }
+        Path out = tempDir.resolve("out.csv");
+        try (LineWriter writer = new LineWriter(out, 64)) {
+            lazy.writeCSV(writer);
+        }
+        assertEquals(expected, Files.readAllLines(out));
+
+        Path next = tempDir.resolve("next.snap");
+        lazy.writeSnapshot(next, out);
+        EmployeeSnapshot written = EmployeeSnapshot.map(next);
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(expected.get(i), written.get(i).toCSV());
+        }
+    }
+
+    @Test
+    void setTaxPolicy_AppliesToLaterLookups() throws IOException {
+        LazyEmployeeSnapshot lazy = new LazyEmployeeSnapshot(sampleSnapshot());
+        EmployeeBigDecimal before = (EmployeeBigDecimal) lazy.get(0);
+        TaxPolicy policy = TaxBrackets.fromCSV(List.of("federal,0,10"),
+                TaxBrackets.Method.ANNUALIZED, 24);
+        lazy.setTaxPolicy(policy);
+        assertSame(policy, before.getTaxPolicy());
+        assertSame(policy, ((EmployeeBigDecimal) lazy.get(2)).getTaxPolicy());
+        assertThrows(IllegalArgumentException.class, () -> lazy.setTaxPolicy(null));
+    }
+}
@@ -0,0 +1,152 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a manifest file.
+     *
+     * @param lines the lines after the header
+     * @return the file name
+     * @throws IOException if writing fails
+     */
+    private String manifest(String... lines) throws IOException {
+        Path file = tempDir.resolve("manifest.csv");
+        StringBuilder content = new StringBuilder(ManifestRunner.MANIFEST_HEADER).append('\n');
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        Files.writeString(file, content);
+        return file.toString();
+    }
+
+    @Test
+    void readManifest_ReadsTenants() throws IOException {
+        List<ManifestRunner.Tenant> tenants = ManifestRunner.readManifest(manifest(
+                "a/employees.csv, a/cards.csv ,a/stubs.csv",
+                "",
+                "b/employees.csv,shared/cards.csv,b/stubs.csv"));
+
+        assertEquals(2, tenants.size());
+        assertEquals("a/cards.csv", tenants.get(0).getTimeCardFile());
+        assertEquals("b/stubs.csv", tenants.get(1).getPayrollFile());
+        assertEquals(4, tenants.get(1).getLineNumber());
+    }
+
+    @Test
+    void readManifest_RejectsBadLines() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> ManifestRunner.readManifest(manifest("a/employees.csv,a/cards.csv")));
+        assertThrows(IllegalArgumentException.class,
+                () -> ManifestRunner.readManifest(manifest("a/employees.csv,,a/stubs.csv")));
+        assertThrows(IllegalArgumentException.class, () -> ManifestRunner.readManifest(manifest(
+                "a/employees.csv,a/cards.csv,a/stubs.csv",
+                "b/employees.csv,b/cards.csv,a/stubs.csv")));
+    }
+
+    /**
+     * Tests that different names for the same file count as the same file, and that a tenant
+     * cannot read its time cards from a file a tenant writes.
+     */
+    @Test
+    void readManifest_RejectsSharedFiles() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ManifestRunner.readManifest(manifest(
+                "a/employees.csv,a/cards.csv,a/stubs.csv",
+                "b/employees.csv,b/cards.csv,./a/stubs.csv")));
+        assertThrows(IllegalArgumentException.class, () -> ManifestRunner.readManifest(manifest(
+                "a/employees.csv,a/cards.csv,a/stubs.csv",
+                "b/../a/employees.csv,b/cards.csv,b/stubs.csv")));
+        assertThrows(IllegalArgumentException.class, () -> ManifestRunner.readManifest(manifest(
+                "a/employees.csv,b/stubs.csv,a/stubs.csv",
+                "b/employees.csv,b/cards.csv,b/stubs.csv")));
+    }
+
+    @Test
+    void readManifest_MissingFile() {
+        assertThrows(IOException.class, () -> ManifestRunner.readManifest(
+                tempDir.resolve("missing.csv").toString()));
+    }
+
+    /**
+     * Tests that a failing or throwing tenant is reported without affecting the others.
+     */
+    @Test
+    void runAll_IsolatesFailures() {
+        List<ManifestRunner.Tenant> tenants = List.of(
+                new ManifestRunner.Tenant("ok1.csv", "cards.csv", "stubs1.csv", 2),
+                new ManifestRunner.Tenant("throws.csv", "cards.csv", "stubs2.csv", 3),
+                new ManifestRunner.Tenant("fails.csv", "cards.csv", "stubs3.csv", 4),
+                new ManifestRunner.Tenant("ok2.csv", "cards.csv", "stubs4.csv", 5));
+        AtomicInteger ran = new AtomicInteger();
+
+        List<ManifestRunner.Outcome> outcomes = new ManifestRunner(2).runAll(tenants, tenant -> {
+            ran.incrementAndGet();
+            if (tenant.getEmployeeFile().equals("throws.csv")) {
+                throw new IllegalArgumentException("bad employee line");
+            }
+            return !tenant.getEmployeeFile().equals("fails.csv");
+        });
+
+        assertEquals(4, ran.get());
+        assertEquals(4, outcomes.size());
+        assertTrue(outcomes.get(0).isSucceeded());
+        assertFalse(outcomes.get(1).isSucceeded());
+        assertTrue(outcomes.get(1).getError() instanceof IllegalArgumentException);
+        assertFalse(outcomes.get(2).isSucceeded());
+        assertNull(outcomes.get(2).getError());
+        assertTrue(outcomes.get(3).isSucceeded());
+        assertSame(tenants.get(3), outcomes.get(3).getTenant());
+    }
+
+    /**
+     * Tests that no more than the allowed number of tenants run at once.
+     */
+    @Test
+    void runAll_LimitsConcurrency() {
+        List<ManifestRunner.Tenant> tenants = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tenants.add(new ManifestRunner.Tenant("e" + i, "t", "o" + i, i + 2));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger most = new AtomicInteger();
+
+        new ManifestRunner(3).runAll(tenants, tenant -> {
+            most.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return true;
+        });
+
+        assertTrue(most.get() <= 3);
+    }
+
+    @Test
+    void newExecutor_RunsTasks() throws Exception {
+        ExecutorService executor = ManifestRunner.newExecutor(2);
+        try {
+            assertEquals(42, executor.submit(() -> 42).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new ManifestRunner(0));
+    }
+}
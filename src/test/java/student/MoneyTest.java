@@ -0,0 +1,47 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void toCents() {
+        assertEquals(3000, Money.toCents(new BigDecimal("30.00")));
+        assertEquals(20000000, Money.toCents(new BigDecimal("200000")));
+        assertEquals(-5, Money.toCents(new BigDecimal("-0.05")));
+        assertThrows(ArithmeticException.class, () -> Money.toCents(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void toMicrosAndBack() {
+        assertEquals(1_234_567_890L, Money.toMicros(new BigDecimal("1234.56789")));
+        assertEquals(new BigDecimal("1234.567890"), Money.fromMicros(1_234_567_890L));
+        assertThrows(ArithmeticException.class, () -> Money.toMicros(new BigDecimal("0.0000001")));
+    }
+
+    /**
+     * Tests that divideHalfUp rounds exactly like RoundingMode.HALF_UP, including negatives.
+     */
+    @Test
+    void divideHalfUp_MatchesBigDecimal() {
+        long[] divisors = {2, 24, 10_000, 100_000};
+        for (long divisor : divisors) {
+            for (long value = -300_000; value <= 300_000; value += 7) {
+                long expected = BigDecimal.valueOf(value)
+                        .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValueExact();
+                assertEquals(expected, Money.divideHalfUp(value, divisor), value + "/" + divisor);
+            }
+        }
+    }
+
+    @Test
+    void microsToCents() {
+        assertEquals(130238, Money.microsToCents(1_302_375_000L));
+        assertEquals(130237, Money.microsToCents(1_302_374_999L));
+    }
+}
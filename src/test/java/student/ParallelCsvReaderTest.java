@@ -0,0 +1,120 @@
+package student;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Pool for the parsing tasks. */
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param content the file content
+     * @return the file
+     * @throws IOException if writing fails
+     */
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("input.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Tests that tiny chunks still give every line, in order, with its real line number.
+     */
+    @Test
+    void read_KeepsOrderAndLineNumbers() throws IOException {
+        StringBuilder content = new StringBuilder("employee_id,hours_worked\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String line = "e" + i + (i % 7 == 0 ? ",\u00e9\u4e2d" : ",40");
+            content.append(line).append('\n');
+            expected.add((i + 2) + ":" + line);
+        }
+        Path file = write(content.toString());
+
+        for (int minChunk : new int[] {1, 17, 4096, ParallelCsvReader.DEFAULT_MIN_CHUNK_BYTES}) {
+            List<String> lines = new ParallelCsvReader(pool, 4, minChunk)
+                    .read(file, (line, number) -> number + ":" + line);
+            assertEquals(expected, lines, "chunk size " + minChunk);
+        }
+    }
+
+    @Test
+    void read_MatchesStreamLines() throws IOException {
+        Path file = write("header\r\na,1\r\n\r\nb,2\nlast line without newline");
+        List<String> expected;
+        try (var lines = FileUtil.streamLines(file.toString())) {
+            expected = lines.toList();
+        }
+        List<String> actual = new ParallelCsvReader(pool, 4, 1)
+                .read(file, (line, number) -> line.toString());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void read_HeaderOnlyOrEmpty() throws IOException {
+        ParallelCsvReader reader = new ParallelCsvReader(pool, 4, 1);
+        assertTrue(reader.read(write("employee_id,hours_worked\n"), (l, n) -> l).isEmpty());
+        assertTrue(reader.read(write(""), (l, n) -> l).isEmpty());
+        assertThrows(NoSuchFileException.class,
+                () -> reader.read(tempDir.resolve("missing.csv"), (l, n) -> l));
+    }
+
+    /**
+     * Tests that the error reported is the one for the first bad line in the file, with the
+     * right line number, even when later chunks fail first.
+     */
+    @Test
+    void read_ReportsFirstBadLine() throws IOException {
+        StringBuilder content = new StringBuilder("employee_id,hours_worked\n");
+        for (int i = 0; i < 2000; i++) {
+            content.append(i == 1500 || i == 1900 ? "s" + i + ",lots" : "s" + i + ",40").append('\n');
+        }
+        Path file = write(content.toString());
+
+        ParallelCsvReader reader = new ParallelCsvReader(pool, 4, 64);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reader.read(file, Builder::buildTimeCardFromCSV));
+        assertTrue(e.getMessage().contains("line 1502"), e.getMessage());
+    }
+
+    @Test
+    void read_BuildsSameTimeCards() throws IOException {
+        Path file = Path.of("resources/time_cards.csv");
+        List<ITimeCard> parallel = new ParallelCsvReader(pool, 4, 1)
+                .read(file, Builder::buildTimeCardFromCSV);
+        List<String> lines = FileUtil.readFileToList(file.toString());
+        assertEquals(lines.size(), parallel.size());
+        for (int i = 0; i < lines.size(); i++) {
+            ITimeCard expected = Builder.buildTimeCardFromCSV(lines.get(i));
+            assertEquals(expected == null, parallel.get(i) == null);
+            if (expected != null) {
+                assertEquals(expected.getEmployeeID(), parallel.get(i).getEmployeeID());
+                assertEquals(expected.getHoursWorked(), parallel.get(i).getHoursWorked());
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPayrollTest {
+
+    /**
+     * Builds a mix of hourly and salary employees.
+     *
+     * @param count number of employees
+     * @return the employees
+     */
+    private static List<IEmployee> employees(int count) {
+        List<IEmployee> employees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 3 == 0) {
+                employees.add(new SalaryEmployee("Salary " + i, "e" + i, new BigDecimal("96000.00"),
+                        new BigDecimal("1000.00"), new BigDecimal("200.00"), new BigDecimal("150")));
+            } else {
+                employees.add(new HourlyEmployee("Hourly " + i, "e" + i, new BigDecimal("21.75"),
+                        new BigDecimal("500.00"), new BigDecimal("100.00"), new BigDecimal("0")));
+            }
+        }
+        return employees;
+    }
+
+    /**
+     * Builds time cards with several cards per employee, some unknown IDs and negative hours.
+     *
+     * @param employees number of employees
+     * @param cards     number of cards
+     * @return the time cards
+     */
+    private static List<ITimeCard> timeCards(int employees, int cards) {
+        Random random = new Random(42);
+        List<ITimeCard> timeCards = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            String id = "e" + random.nextInt(employees + 10); // a few IDs match no one
+            timeCards.add(Builder.buildTimeCardFromCSV(id + "," + (random.nextInt(60) - 5)));
+        }
+        return timeCards;
+    }
+
+    /**
+     * Runs the cards one by one, the same way the sequential payroll loop does.
+     *
+     * @param registry  the employees
+     * @param timeCards the time cards
+     * @return the pay stubs as CSV lines
+     */
+    private static List<String> sequential(EmployeeRegistry registry, List<ITimeCard> timeCards) {
+        List<IPayStub> stubs = new ArrayList<>();
+        for (ITimeCard timeCard : timeCards) {
+            IEmployee employee = registry.get(timeCard);
+            if (employee != null) {
+                stubs.add(employee.runPayroll(timeCard.getHoursWorked()));
+            }
+        }
+        return stubs.stream().map(IPayStub::toCSV).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that the parallel run produces the same stubs, in the same order, as the
+     * sequential run, and leaves every employee with the same totals.
+     */
+    @Test
+    void run_MatchesSequential() {
+        List<ITimeCard> timeCards = timeCards(500, 5_000);
+        EmployeeRegistry expected = new EmployeeRegistry(employees(500));
+        EmployeeRegistry actual = new EmployeeRegistry(employees(500));
+
+        List<String> expectedStubs = sequential(expected, timeCards);
+        ForkJoinPool pool = new ForkJoinPool(8);
+        List<String> actualStubs;
+        try {
+            actualStubs = new ParallelPayroll(pool, 8).run(actual, timeCards).stream()
+                    .map(IPayStub::toCSV).collect(Collectors.toList());
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(expectedStubs, actualStubs);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getEmployees().get(i).toCSV(), actual.getEmployees().get(i).toCSV());
+        }
+    }
+
+    /**
+     * Tests that the buffered run fills one row per card, with the same stubs as the list.
+     */
+    @Test
+    void runBuffered_MatchesRun() {
+        List<ITimeCard> timeCards = timeCards(200, 2_000);
+        EmployeeRegistry expected = new EmployeeRegistry(employees(200));
+        EmployeeRegistry actual = new EmployeeRegistry(employees(200));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<String> expectedStubs;
+        PayStubBuffer buffer;
+        try {
+            expectedStubs = new ParallelPayroll(pool, 4).run(expected, timeCards).stream()
+                    .map(IPayStub::toCSV).collect(Collectors.toList());
+            buffer = new ParallelPayroll(pool, 4).runBuffered(actual, timeCards);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(timeCards.size(), buffer.size());
+        List<String> actualStubs = new ArrayList<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            ITimeCard card = timeCards.get(i);
+            IPayStub stub = buffer.get(i);
+            assertEquals(card != null && actual.get(card) != null, stub != null);
+            if (stub != null) {
+                actualStubs.add(stub.toCSV());
+            }
+        }
+        assertEquals(expectedStubs, actualStubs);
+    }
+
+    @Test
+    void run_NoTimeCards() {
+        EmployeeRegistry registry = new EmployeeRegistry(employees(3));
+        assertTrue(new ParallelPayroll(Runnable::run, 1).run(registry, List.of()).isEmpty());
+    }
+
+    @Test
+    void run_PropagatesFailure() {
+        IEmployee broken = new HourlyEmployee("Broken", "b1", 20.0, 0.0, 0.0, 0.0) {
+            @Override
+            public IPayStub runPayroll(double hoursWorked) {
+                throw new IllegalStateException("payroll failed");
+            }
+        };
+        EmployeeRegistry registry = new EmployeeRegistry(List.of(broken));
+        List<ITimeCard> cards = List.of(new TimeCard("b1", new BigDecimal("40")));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> new ParallelPayroll(pool, 2).run(registry, cards));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelPayroll(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelPayroll(Runnable::run, 0));
+    }
+}
@@ -0,0 +1,125 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayStubBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Employee lines covering hourly, salary, overtime and more than six decimals of YTD. */
+    private static final List<String> EMPLOYEES = List.of(
+            "HOURLY,Luffy,s192,30.00,0,20000,4530",
+            "SALARY,Nami,s193,200000,1000,17017,4983",
+            "HOURLY,Zoro,x101,21.75,15.50,100.1234567,10.00");
+
+    /**
+     * Builds a fresh copy of every test employee.
+     *
+     * @return the employees
+     */
+    private static List<IEmployee> employees() {
+        List<IEmployee> employees = new ArrayList<>();
+        for (String line : EMPLOYEES) {
+            employees.add(Builder.buildEmployeeFromCSV(line));
+        }
+        return employees;
+    }
+
+    /**
+     * Tests that filling the buffer gives the same pay stubs and YTD totals as runPayroll.
+     */
+    @Test
+    void pay_MatchesRunPayroll() {
+        double[] hours = {45, 0, 38.5, 12.123456789};
+        List<IEmployee> reference = employees();
+        List<String> expected = new ArrayList<>();
+        for (IEmployee employee : reference) {
+            for (double h : hours) {
+                expected.add(employee.runPayroll(h).toCSV());
+            }
+        }
+
+        List<IEmployee> buffered = employees();
+        PayStubBuffer buffer = new PayStubBuffer(expected.size());
+        for (IEmployee employee : buffered) {
+            for (double h : hours) {
+                assertTrue(buffer.pay(employee, h));
+            }
+        }
+
+        assertTrue(buffer.isFull());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), buffer.get(i).toCSV());
+        }
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).toCSV(), buffered.get(i).toCSV());
+        }
+    }
+
+    /**
+     * Tests that table rows are filled in place too.
+     */
+    @Test
+    void pay_EmployeeView() {
+        EmployeeTable table = EmployeeTable.fromCSV(EMPLOYEES.subList(0, 2));
+        IEmployee reference = Builder.buildEmployeeFromCSV(EMPLOYEES.get(0));
+        PayStubBuffer buffer = new PayStubBuffer(2);
+
+        buffer.pay(table.asList().get(0), 45);
+
+        PayStubView view = (PayStubView) buffer.get(0);
+        assertEquals(reference.runPayroll(45).toCSV(), view.toCSV());
+        assertEquals("s192", view.getEmployee().getID());
+        assertEquals(new BigDecimal("1102.237500"), view.getPayBD());
+        assertEquals(1102.2375, view.getPay(), 0.0001);
+    }
+
+    @Test
+    void pay_SkipsNegativeHoursAndRejectsWhenFull() {
+        PayStubBuffer buffer = new PayStubBuffer(1);
+        IEmployee employee = Builder.buildEmployeeFromCSV(EMPLOYEES.get(0));
+
+        assertFalse(buffer.pay(employee, -1));
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.pay(employee, 10));
+        assertThrows(IllegalStateException.class, () -> buffer.pay(employee, 10));
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.pay(employee, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+    }
+
+    /**
+     * Tests that writeCSV writes the rows in order and skips empty ones.
+     */
+    @Test
+    void writeCSV_SkipsEmptyRows() throws IOException {
+        List<IEmployee> employees = employees();
+        PayStubBuffer buffer = new PayStubBuffer(3);
+        buffer.setSize(3);
+        buffer.payAt(2, employees.get(0), 40);
+        buffer.payAt(0, employees.get(1), 0);
+
+        Path file = tempDir.resolve("stubs.csv");
+        try (LineWriter out = FileUtil.openWriter(file.toString(), false)) {
+            buffer.writeCSV(out);
+        }
+
+        assertNull(buffer.get(1));
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(List.of(buffer.get(0).toCSV(), buffer.get(2).toCSV()), lines);
+        assertTrue(lines.get(0).startsWith("Nami,"));
+    }
+}
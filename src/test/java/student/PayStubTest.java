@@ -44,7 +44,7 @@ class PayStubTest {
      */
     @Test
     void toCSV() {
-        String expectedCSV = "John Doe,2000.00,500.00,50000.00,8000.00";
+        String expectedCSV = "John Doe,2000.00,500.00,52000.00,8500.00";
         assertEquals(expectedCSV, payStub.toCSV(), "CSV output is incorrect.");
     }
 }
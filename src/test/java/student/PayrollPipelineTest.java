@@ -0,0 +1,173 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Builds a mix of hourly and salary employees.
+     *
+     * @param count number of employees
+     * @return the employees
+     */
+    private static List<IEmployee> employees(int count) {
+        List<IEmployee> employees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 3 == 0) {
+                employees.add(new SalaryEmployee("Salary " + i, "e" + i, new BigDecimal("96000.00"),
+                        new BigDecimal("1000.00"), new BigDecimal("200.00"), new BigDecimal("150")));
+            } else {
+                employees.add(new HourlyEmployee("Hourly " + i, "e" + i, new BigDecimal("21.75"),
+                        new BigDecimal("500.00"), new BigDecimal("100.00"), new BigDecimal("0")));
+            }
+        }
+        return employees;
+    }
+
+    /**
+     * Writes a time card file with several cards per employee, some unknown IDs and negative
+     * hours.
+     *
+     * @param employees number of employees
+     * @param cards     number of cards
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path timeCardFile(int employees, int cards) throws IOException {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>(cards + 1);
+        lines.add("employee_id,hours_worked");
+        for (int i = 0; i < cards; i++) {
+            lines.add("e" + random.nextInt(employees + 10) + "," + (random.nextInt(60) - 5));
+        }
+        Path file = tempDir.resolve("time_cards.csv");
+        Files.write(file, lines);
+        return file;
+    }
+
+    /**
+     * Runs the file one card at a time, the same way the sequential payroll loop does.
+     *
+     * @param employees    the employees
+     * @param timeCardFile the time card file
+     * @param aggregate    if true, sum each employee's cards first
+     * @return the pay stubs as CSV lines
+     * @throws IOException if the file cannot be read
+     */
+    private static List<String> sequential(List<IEmployee> employees, Path timeCardFile,
+            boolean aggregate) throws IOException {
+        EmployeeRegistry registry = new EmployeeRegistry(employees);
+        List<String> lines = Files.readAllLines(timeCardFile);
+        List<ITimeCard> cards = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            cards.add(Builder.buildTimeCardFromCSV(line));
+        }
+        if (aggregate) {
+            TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+            aggregator.addAll(cards);
+            cards = aggregator.getTotals();
+        }
+        List<String> payStubs = new ArrayList<>();
+        for (ITimeCard card : cards) {
+            IEmployee employee = card == null ? null : registry.get(card.getEmployeeID());
+            if (employee != null && card.getHoursWorked() >= 0) {
+                payStubs.add(employee.runPayroll(card.getHoursWorked()).toCSV());
+            }
+        }
+        return payStubs;
+    }
+
+    /**
+     * Runs the pipeline with small batches, so many batches go round the queues.
+     *
+     * @param employees    the employees
+     * @param timeCardFile the time card file
+     * @param aggregate    if true, sum each employee's cards first
+     * @param metrics      the metrics of the run
+     * @return the pay stubs as CSV lines
+     * @throws IOException if a file cannot be read or written
+     */
+    private List<String> pipelined(List<IEmployee> employees, Path timeCardFile,
+            boolean aggregate, RunMetrics metrics) throws IOException {
+        Path out = tempDir.resolve("pay_stubs.csv");
+        try (LineWriter writer = FileUtil.openWriter(out.toString(), false)) {
+            new PayrollPipeline(64, 2).run(new EmployeeRegistry(employees),
+                    timeCardFile.toString(), aggregate, writer, null, metrics);
+        }
+        return Files.readAllLines(out);
+    }
+
+    @Test
+    void run_MatchesSequential() throws IOException {
+        Path timeCards = timeCardFile(200, 5000);
+        List<IEmployee> reference = employees(200);
+        List<IEmployee> pipelined = employees(200);
+        RunMetrics metrics = new RunMetrics();
+
+        List<String> expected = sequential(reference, timeCards, false);
+        assertEquals(expected, pipelined(pipelined, timeCards, false, metrics));
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).toCSV(), pipelined.get(i).toCSV());
+        }
+        assertEquals(5000, metrics.getTimeCardsRead());
+        assertEquals(expected.size(), metrics.getPayStubsWritten());
+        assertEquals(5000, expected.size() + metrics.getNegativeHoursSkipped()
+                + metrics.getUnknownEmployeesSkipped());
+    }
+
+    @Test
+    void run_Aggregate() throws IOException {
+        Path timeCards = timeCardFile(200, 5000);
+        List<IEmployee> reference = employees(200);
+        List<IEmployee> pipelined = employees(200);
+
+        List<String> expected = sequential(reference, timeCards, true);
+        assertEquals(expected, pipelined(pipelined, timeCards, true, new RunMetrics()));
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).toCSV(), pipelined.get(i).toCSV());
+        }
+    }
+
+    @Test
+    void run_EmptyAndExactBatches() throws IOException {
+        for (int cards : new int[] { 0, 64, 128 }) {
+            Path timeCards = timeCardFile(20, cards);
+            assertEquals(sequential(employees(20), timeCards, false),
+                    pipelined(employees(20), timeCards, false, new RunMetrics()));
+        }
+    }
+
+    @Test
+    void run_BadLineStopsPipeline() throws IOException {
+        Path timeCards = tempDir.resolve("bad_time_cards.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("employee_id,hours_worked");
+        for (int i = 0; i < 1000; i++) {
+            lines.add(i == 500 ? "e1,abc" : "e1,8");
+        }
+        Files.write(timeCards, lines);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pipelined(employees(5), timeCards, false, new RunMetrics()));
+    }
+
+    @Test
+    void constructor_RejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new PayrollPipeline(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new PayrollPipeline(16, 1));
+    }
+}
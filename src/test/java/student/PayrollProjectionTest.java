@@ -0,0 +1,160 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollProjectionTest {
+
+    private static final int PERIODS = 24;
+
+    private List<String> lines;
+    private EmployeeTable table;
+
+    @BeforeEach
+    void setUp() {
+        lines = FileUtil.readFileToList("resources/employees.csv");
+        table = EmployeeTable.fromCSV(lines);
+    }
+
+    /**
+     * Checks a projection against paying a copy of each employee every period.
+     *
+     * @param projection the projection
+     * @param hours      the expected hours of each row
+     */
+    private void assertMatchesPayroll(PayrollProjection projection, double[] hours) {
+        long[] earnings = new long[PERIODS];
+        long[] taxes = new long[PERIODS];
+        for (int row = 0; row < table.size(); row++) {
+            projection.project(row, earnings, taxes);
+            EmployeeBigDecimal copy = table.get(row).toEmployee();
+            for (int period = 0; period < PERIODS; period++) {
+                copy.runPayroll(hours[row]);
+                assertEquals(copy.getYTD().getEarnings().compareTo(
+                        Money.fromMicros(earnings[period])), 0, "row " + row + ", " + period);
+                assertEquals(copy.getYTD().getTaxesPaid().compareTo(
+                        Money.fromMicros(taxes[period])), 0, "row " + row + ", " + period);
+            }
+        }
+    }
+
+    /**
+     * Makes expected hours for every row, some with overtime.
+     *
+     * @return the hours
+     */
+    private double[] hours() {
+        double[] hours = new double[table.size()];
+        for (int row = 0; row < hours.length; row++) {
+            hours[row] = 30 + row * 2.25;
+        }
+        return hours;
+    }
+
+    @Test
+    void project_FlatTaxMatchesPayroll() {
+        double[] hours = hours();
+        assertMatchesPayroll(new PayrollProjection(table, hours, PERIODS), hours);
+        // projecting does not pay anyone
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(Builder.buildEmployeeFromCSV(lines.get(row)).toCSV(),
+                    table.get(row).toCSV());
+        }
+    }
+
+    @Test
+    void project_CumulativeBracketsMatchPayroll() {
+        TaxPolicy brackets = TaxBrackets.fromCSV(List.of("federal,0,10", "federal,40000,24",
+                "state,0,4"), TaxBrackets.Method.CUMULATIVE, PERIODS);
+        for (int row = 0; row < table.size(); row++) {
+            table.get(row).setTaxPolicy(brackets);
+        }
+        double[] hours = hours();
+        assertMatchesPayroll(new PayrollProjection(table, hours, PERIODS), hours);
+    }
+
+    @Test
+    void project_InexactHoursFallBack() {
+        double[] hours = hours();
+        hours[0] = 1.0 / 3;
+        long[] earnings = new long[PERIODS];
+        long[] taxes = new long[PERIODS];
+        new PayrollProjection(table, hours, PERIODS).project(0, earnings, taxes);
+
+        EmployeeBigDecimal copy = table.get(0).toEmployee();
+        for (int period = 0; period < PERIODS; period++) {
+            copy.runPayroll(hours[0]);
+        }
+        // the copy keeps every decimal place, the projection rounds to micro-dollars
+        assertEquals(copy.getYTD().getEarnings().setScale(Money.MICRO_SCALE, RoundingMode.HALF_UP),
+                Money.fromMicros(earnings[PERIODS - 1]));
+        assertEquals(copy.getYTD().getTaxesPaid().setScale(Money.MICRO_SCALE, RoundingMode.HALF_UP),
+                Money.fromMicros(taxes[PERIODS - 1]));
+    }
+
+    /**
+     * Tests that an employee a table cannot hold is projected by paying a copy of it, next to
+     * table rows, and is not paid itself.
+     */
+    @Test
+    void project_StandaloneEmployeeFallsBack() {
+        EmployeeBigDecimal fraction = (EmployeeBigDecimal) Builder.buildEmployeeFromCSV(
+                "HOURLY,Zoro,s200,30.005,0,1000,226.5");
+        List<IEmployee> employees = new ArrayList<>(table.asList());
+        employees.add(fraction);
+        double[] hours = new double[employees.size()];
+        Arrays.fill(hours, 45);
+        long[] earnings = new long[PERIODS];
+        long[] taxes = new long[PERIODS];
+        new PayrollProjection(employees, hours, PERIODS).project(table.size(), earnings, taxes);
+
+        EmployeeBigDecimal copy = (EmployeeBigDecimal) Builder.buildEmployeeFromCSV(
+                "HOURLY,Zoro,s200,30.005,0,1000,226.5");
+        for (int period = 0; period < PERIODS; period++) {
+            copy.runPayroll(45);
+            assertEquals(copy.getYTD().getEarnings().setScale(Money.MICRO_SCALE,
+                    RoundingMode.HALF_UP), Money.fromMicros(earnings[period]));
+            assertEquals(copy.getYTD().getTaxesPaid().setScale(Money.MICRO_SCALE,
+                    RoundingMode.HALF_UP), Money.fromMicros(taxes[period]));
+        }
+        assertEquals(0, new BigDecimal("1000").compareTo(fraction.getYTD().getEarnings()));
+    }
+
+    @Test
+    void writeCSV_OneLinePerEmployeeAndPeriod(@TempDir Path dir)
+            throws IOException {
+        Path file = dir.resolve("projection.csv");
+        PayrollProjection projection = new PayrollProjection(table, hours(), 3);
+        try (LineWriter out = new LineWriter(file, 1024)) {
+            assertEquals(table.size() * 3L, projection.writeCSV(out));
+        }
+        List<String> written = Files.readAllLines(file);
+        assertEquals(table.size() * 3, written.size());
+        assertTrue(written.get(0).startsWith(table.get(0).getID() + ",1,"));
+        assertTrue(written.get(2).startsWith(table.get(0).getID() + ",3,"));
+    }
+
+    @Test
+    void constructor_Invalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PayrollProjection(table, new double[1], PERIODS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PayrollProjection(table, hours(), 0));
+        double[] negative = hours();
+        negative[3] = -1;
+        assertThrows(IllegalArgumentException.class,
+                () -> new PayrollProjection(table, negative, PERIODS));
+    }
+}
@@ -0,0 +1,121 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RunMetricsTest {
+
+    @Test
+    void lap_AddsToStageAndChains() throws InterruptedException {
+        RunMetrics metrics = new RunMetrics();
+        long lap = metrics.now();
+        Thread.sleep(5);
+        long next = metrics.lap(RunMetrics.Stage.PARSE, lap);
+        Thread.sleep(5);
+        metrics.lap(RunMetrics.Stage.PARSE, next);
+
+        assertTrue(next > lap);
+        assertTrue(metrics.getParseMillis() >= 10);
+        assertEquals(0, metrics.getReadMillis());
+        assertEquals(metrics.getParseMillis(), metrics.getStageMillis(RunMetrics.Stage.PARSE));
+    }
+
+    @Test
+    void toCSVLines_ListsCounters() {
+        RunMetrics metrics = new RunMetrics();
+        metrics.addEmployeesLoaded(3);
+        metrics.addTimeCardsRead(5);
+        metrics.addPayStubsWritten(2);
+        metrics.negativeHoursSkipped();
+        metrics.unknownEmployeeSkipped();
+        metrics.unknownEmployeeSkipped();
+        metrics.addBytesRead(100);
+        metrics.addBytesWritten(40);
+        metrics.finish();
+
+        List<String> lines = metrics.toCSVLines();
+        assertEquals("metric,value", lines.get(0));
+        assertTrue(lines.get(1).startsWith("elapsed_ms,"));
+        assertTrue(lines.contains("employees_loaded,3"));
+        assertTrue(lines.contains("time_cards_read,5"));
+        assertTrue(lines.contains("pay_stubs_written,2"));
+        assertTrue(lines.contains("negative_hours_skipped,1"));
+        assertTrue(lines.contains("unknown_employees_skipped,2"));
+        assertTrue(lines.contains("bytes_read,100"));
+        assertTrue(lines.contains("bytes_written,40"));
+        assertEquals(16, lines.size());
+    }
+
+    @Test
+    void finish_FixesElapsedTime() throws InterruptedException {
+        RunMetrics metrics = new RunMetrics();
+        assertFalse(metrics.isFinished());
+        metrics.finish();
+        long elapsed = metrics.getElapsedMillis();
+        long allocated = metrics.getAllocatedBytes();
+        Thread.sleep(5);
+        metrics.finish();
+
+        assertTrue(metrics.isFinished());
+        assertEquals(elapsed, metrics.getElapsedMillis());
+        assertEquals(allocated, metrics.getAllocatedBytes());
+    }
+
+    /**
+     * Tests that what a worker thread allocates is added to the run once it is counted.
+     */
+    @Test
+    void countWorkers_AddsWorkerAllocations() throws InterruptedException {
+        RunMetrics metrics = new RunMetrics();
+        assumeTrue(metrics.getAllocatedBytes() >= 0);
+        CountDownLatch done = new CountDownLatch(1);
+        CountDownLatch counted = new CountDownLatch(1);
+        Object[] sink = new Object[1];
+        Thread worker = metrics.addWorker(new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                sink[0] = new byte[10_000];
+            }
+            done.countDown();
+            try {
+                counted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        worker.start();
+        done.await();
+        metrics.countWorkers();
+        counted.countDown();
+        worker.join();
+        metrics.finish();
+
+        assertTrue(metrics.getAllocatedBytes() >= 10_000_000L, () -> "allocated "
+                + metrics.getAllocatedBytes());
+    }
+
+    @Test
+    void register_ReplacesEarlierRun() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        RunMetrics first = new RunMetrics();
+        ObjectName name = first.register("run \"metrics\" test");
+        assertNotNull(name);
+
+        RunMetrics second = new RunMetrics();
+        second.addTimeCardsRead(7);
+        assertEquals(name, second.register("run \"metrics\" test"));
+        try {
+            assertEquals(7L, server.getAttribute(name, "TimeCardsRead"));
+            assertEquals(false, server.getAttribute(name, "Finished"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxBracketsTest {
+
+    /** A federal table with two brackets and a flat state table. */
+    private static final List<String> TABLES = List.of(
+            "federal,0,10",
+            "federal,1000,20",
+            "state,0,5");
+
+    @Test
+    void fromCSV_MergesTables() {
+        TaxBrackets brackets = TaxBrackets.fromCSV(TABLES, TaxBrackets.Method.ANNUALIZED, 24);
+        assertEquals(2, brackets.getBracketCount());
+        // 15% of the first 1000, 25% above it
+        assertEquals(150_0000_000_000L, brackets.annualTaxUnits(1000_000_000L));
+        assertEquals(0, new BigDecimal("175").compareTo(
+                brackets.annualTax(new BigDecimal("1100"))));
+    }
+
+    @Test
+    void taxMicros_Annualized() {
+        TaxBrackets brackets = TaxBrackets.fromCSV(TABLES, TaxBrackets.Method.ANNUALIZED, 24);
+        assertFalse(brackets.usesYtd());
+        // $100 a period is $2400 a year: 150 + 350 = 500, over 24 periods
+        assertEquals(20_833_333L, brackets.taxMicros(10_000, 0));
+        assertEquals(new BigDecimal("20.833333"),
+                brackets.tax(new BigDecimal("100.00"), BigDecimal.ZERO));
+    }
+
+    @Test
+    void taxMicros_Cumulative() {
+        TaxBrackets brackets = TaxBrackets.fromCSV(TABLES, TaxBrackets.Method.CUMULATIVE, 24);
+        assertTrue(brackets.usesYtd());
+        // $200 on top of $900 so far crosses the $1000 threshold: 175 - 135
+        assertEquals(40_000_000L, brackets.taxMicros(20_000, 900_000_000L));
+        assertEquals(new BigDecimal("40.000000"),
+                brackets.tax(new BigDecimal("200.00"), new BigDecimal("900")));
+    }
+
+    @Test
+    void taxMicros_MatchesBigDecimal() {
+        List<String> lines = List.of("federal,0,10", "federal,11600,12", "federal,47150,22",
+                "federal,100525,24", "state,0,3.07", "state,25000,4.95");
+        Random random = new Random(7);
+        for (TaxBrackets.Method method : TaxBrackets.Method.values()) {
+            TaxBrackets brackets = TaxBrackets.fromCSV(lines, method, 24);
+            for (int i = 0; i < 1000; i++) {
+                long taxableCents = random.nextInt(2_000_000);
+                long ytdMicros = random.nextInt(20_000_000) * 10_000L;
+                assertEquals(Money.fromMicros(brackets.taxMicros(taxableCents, ytdMicros)),
+                        brackets.tax(BigDecimal.valueOf(taxableCents, 2),
+                                Money.fromMicros(ytdMicros)));
+            }
+        }
+    }
+
+    @Test
+    void flatBracket_MatchesFlatTax() {
+        TaxPolicy brackets = TaxBrackets.fromCSV(List.of("flat,0,22.65"),
+                TaxBrackets.Method.ANNUALIZED, 24);
+        for (long cents : new long[] {0, 1, 99, 235_000, 123_457}) {
+            assertEquals(TaxPolicy.FLAT.taxMicros(cents, 0), brackets.taxMicros(cents, 0));
+        }
+    }
+
+    @Test
+    void setTaxPolicy_ChangesPayStub() {
+        SalaryEmployee employee = new SalaryEmployee("Test", "1", new BigDecimal("60000.00"),
+                new BigDecimal("5000.00"), new BigDecimal("1000.00"), new BigDecimal("150.00"));
+        assertSame(TaxPolicy.FLAT, employee.getTaxPolicy());
+        employee.setTaxPolicy(TaxBrackets.fromCSV(List.of("none,0,0"),
+                TaxBrackets.Method.CUMULATIVE, 24));
+        IPayStub payStub = employee.runPayroll(40.0);
+        assertEquals(0.0, payStub.getTaxesPaid());
+        assertEquals(2350.0, payStub.getPay());
+        assertThrows(IllegalArgumentException.class, () -> employee.setTaxPolicy(null));
+    }
+
+    @Test
+    void fromCSV_RejectsInvalidTables() {
+        TaxBrackets.Method method = TaxBrackets.Method.ANNUALIZED;
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of(), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of("federal,0"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of(",0,10"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of("federal,zero,10"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of("federal,0,101"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of("federal,100,10"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(List.of("federal,0,10", "federal,0,20"), method, 24));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxBrackets.fromCSV(TABLES, method, 0));
+    }
+}
@@ -0,0 +1,99 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeCardAggregatorTest {
+
+    private EmployeeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new EmployeeRegistry(List.of(
+                new HourlyEmployee("Luffy", "s192", new BigDecimal("30.00"),
+                        new BigDecimal("20000"), new BigDecimal("4530"), new BigDecimal("0")),
+                new SalaryEmployee("Nami", "s193", new BigDecimal("200000"),
+                        new BigDecimal("17017"), new BigDecimal("4983"), new BigDecimal("1000")),
+                new HourlyEmployee("Light Yagami", "x101", new BigDecimal("25.00"),
+                        new BigDecimal("12000"), new BigDecimal("2880"), new BigDecimal("0"))));
+    }
+
+    /**
+     * Creates a time card.
+     *
+     * @param id    the employee ID
+     * @param hours the hours worked
+     * @return the time card
+     */
+    private static ITimeCard card(String id, String hours) {
+        return new TimeCard(id, new BigDecimal(hours));
+    }
+
+    /**
+     * Tests that five 10 hour days become one 50 hour period with 10 hours of overtime,
+     * which paying each day on its own would never give.
+     */
+    @Test
+    void getTotals_OvertimeOverWholePeriod() {
+        TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+        for (int day = 0; day < 5; day++) {
+            assertTrue(aggregator.add(card("s192", "10")));
+        }
+
+        List<ITimeCard> totals = aggregator.getTotals();
+        assertEquals(1, totals.size());
+        assertEquals("s192", totals.get(0).getEmployeeID());
+        assertEquals(50.0, totals.get(0).getHoursWorked());
+
+        IPayStub stub = registry.get("s192").runPayroll(totals.get(0).getHoursWorked());
+        // 40 * 30 + 10 * 45 = 1650 gross, no deductions
+        assertEquals(1650 * (1 - 0.2265), stub.getPay(), 0.001);
+    }
+
+    @Test
+    void getTotals_FirstSeenOrder() {
+        TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+        aggregator.add(card("x101", "8"));
+        aggregator.add(card("s192", "7.25"));
+        aggregator.add(card("x101", "8.5"));
+        aggregator.add(card("s193", "0"));
+
+        List<String> ids = new ArrayList<>();
+        List<Double> hours = new ArrayList<>();
+        for (ITimeCard total : aggregator.getTotals()) {
+            ids.add(total.getEmployeeID());
+            hours.add(total.getHoursWorked());
+        }
+        assertEquals(List.of("x101", "s192", "s193"), ids);
+        assertEquals(List.of(16.5, 7.25, 0.0), hours);
+        assertEquals(3, aggregator.size());
+    }
+
+    @Test
+    void add_SkipsInvalidCards() {
+        TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+        List<ITimeCard> cards = new ArrayList<>();
+        cards.add(null);
+        cards.add(card("x999", "40"));
+        cards.add(card("s192", "0.1"));
+        cards.add(card("s192", "0.2"));
+
+        assertEquals(2, aggregator.addAll(cards));
+        assertEquals(1, aggregator.size());
+        assertEquals(0.3, aggregator.getTotals().get(0).getHoursWorked()); // exact, not 0.30000000000000004
+    }
+
+    @Test
+    void add_KeepsHoursWithManyDecimals() {
+        TimeCardAggregator aggregator = new TimeCardAggregator(registry);
+        aggregator.add(card("s192", "1.123456"));
+        aggregator.add(card("s192", "2"));
+        assertEquals(3.123456, aggregator.getTotals().get(0).getHoursWorked(), 1e-12);
+    }
+}
@@ -0,0 +1,209 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YtdJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Loads the employees in a file.
+     *
+     * @param file the employee file
+     * @return the employees, indexed by ID
+     */
+    private static EmployeeRegistry load(Path file) {
+        List<IEmployee> employees = new ArrayList<>();
+        for (String line : FileUtil.readFileToList(file.toString())) {
+            employees.add(Builder.buildEmployeeFromCSV(line));
+        }
+        return new EmployeeRegistry(employees);
+    }
+
+    /**
+     * Writes an employee file with two employees.
+     *
+     * @return the file
+     * @throws IOException if writing fails
+     */
+    private Path employeeFile() throws IOException {
+        Path file = tempDir.resolve("employees.csv");
+        Files.write(file, List.of(FileUtil.EMPLOYEE_HEADER,
+                "HOURLY,Luffy,s192,30.00,0,20000,4530",
+                "SALARY,Nami,s193,200000,1000,17017,4983"));
+        return file;
+    }
+
+    /**
+     * Tests that replaying the journal gives the same YTD totals as running payroll on the
+     * employees directly.
+     */
+    @Test
+    void replay_MatchesDirectPayroll() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+
+        EmployeeRegistry paid = load(file);
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record(paid.get("s192").runPayroll(45.5));
+            journal.record(paid.get("s193").runPayroll(0));
+            journal.record(paid.get("s192").runPayroll(12.25));
+            journal.commit();
+        }
+
+        EmployeeRegistry replayed = load(file);
+        // three pay stubs, plus a rounding record for each employee's fractions of a cent
+        assertEquals(5, YtdJournal.replay(journalFile, file, replayed));
+        for (IEmployee employee : paid.getEmployees()) {
+            assertEquals(employee.toCSV(), replayed.get(employee.getID()).toCSV());
+        }
+    }
+
+    @Test
+    void replay_NoJournal() throws IOException {
+        Path file = employeeFile();
+        assertEquals(0, YtdJournal.replay(YtdJournal.pathFor(file.toString()), file, load(file)));
+    }
+
+    /**
+     * Tests that a journal is ignored once the employee file it belongs to is rewritten,
+     * so its deltas are never counted twice.
+     */
+    @Test
+    void replay_IgnoresOutOfDateJournal() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", new BigDecimal("100"), new BigDecimal("10"));
+            journal.commit();
+        }
+
+        Files.write(file, List.of(FileUtil.EMPLOYEE_HEADER,
+                "HOURLY,Luffy,s192,30.00,0,20000,4530"));
+        Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(0));
+
+        EmployeeRegistry registry = load(file);
+        assertEquals(0, YtdJournal.replay(journalFile, file, registry));
+        assertEquals(20000, registry.get("s192").getYTDEarnings(), 0.001);
+    }
+
+    /**
+     * Tests that a record cut short by a crash is not applied, and is dropped before the
+     * next records are appended.
+     */
+    @Test
+    void replay_SkipsTornRecord() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", new BigDecimal("100"), new BigDecimal("10"));
+            journal.commit();
+        }
+        Files.write(journalFile, "s193,1,2".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND); // the rest of ",2.5" never made it
+
+        EmployeeRegistry registry = load(file);
+        assertEquals(1, YtdJournal.replay(journalFile, file, registry));
+        assertEquals(4983, registry.get("s193").getYTDTaxesPaid(), 0.001);
+
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s193", new BigDecimal("5"), new BigDecimal("6"));
+            journal.commit();
+        }
+        registry = load(file);
+        assertEquals(2, YtdJournal.replay(journalFile, file, registry));
+        assertEquals(4989, registry.get("s193").getYTDTaxesPaid(), 0.001);
+    }
+
+    /**
+     * Tests that records of a run that was not committed are cut off when the journal closes,
+     * and that records left by a run that crashed before committing are never applied.
+     */
+    @Test
+    void replay_SkipsUncommittedRun() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", new BigDecimal("100"), new BigDecimal("10"));
+            journal.commit();
+        }
+        long committedSize = Files.size(journalFile);
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s193", new BigDecimal("5"), new BigDecimal("6"));
+            journal.sync();
+        }
+        assertEquals(committedSize, Files.size(journalFile));
+
+        Files.write(journalFile, "s193,5,6\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND); // a run that crashed before its commit marker
+        EmployeeRegistry registry = load(file);
+        assertEquals(1, YtdJournal.replay(journalFile, file, registry));
+        assertEquals(20100, registry.get("s192").getYTDEarnings(), 0.001);
+        assertEquals(4983, registry.get("s193").getYTDTaxesPaid(), 0.001);
+    }
+
+    @Test
+    void replay_OntoTable() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", new BigDecimal("100.123456"), new BigDecimal("10.5"));
+            journal.commit();
+        }
+
+        EmployeeTable table = EmployeeTable.fromCSV(FileUtil.readFileToList(file.toString()));
+        EmployeeRegistry registry = new EmployeeRegistry(table.asList());
+        assertEquals(1, YtdJournal.replay(journalFile, file, registry));
+        assertEquals(20100.123456, registry.get("s192").getYTDEarnings(), 1e-9);
+    }
+
+    @Test
+    void replay_ExactDeltaOntoTable() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", new BigDecimal("100.12345678"), new BigDecimal("10.5"));
+            journal.commit();
+        }
+
+        // employee objects hold the delta exactly
+        EmployeeRegistry objects = load(file);
+        assertEquals(1, YtdJournal.replay(journalFile, file, objects));
+        assertEquals(20100.12345678, objects.get("s192").getYTDEarnings(), 1e-9);
+
+        // table rows cannot, which is reported instead of rounded
+        EmployeeTable table = EmployeeTable.fromCSV(FileUtil.readFileToList(file.toString()));
+        EmployeeRegistry rows = new EmployeeRegistry(table.asList());
+        IOException exception = assertThrows(IOException.class,
+                () -> YtdJournal.replay(journalFile, file, rows));
+        assertTrue(exception.getMessage().contains("line 2"));
+    }
+
+    @Test
+    void size_CountsHeaderAndRecords() throws IOException {
+        Path file = employeeFile();
+        Path journalFile = YtdJournal.pathFor(file.toString());
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            journal.record("s192", BigDecimal.ONE, BigDecimal.ONE);
+            journal.sync();
+            assertEquals(Files.size(journalFile), journal.size());
+            journal.commit();
+        }
+        try (YtdJournal journal = YtdJournal.open(journalFile, file)) {
+            assertEquals(Files.size(journalFile), journal.size());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YtdSnapshotTest {
+
+    @Test
+    void add_ReturnsNewSnapshot() {
+        YtdSnapshot start = new YtdSnapshot(new BigDecimal("100.00"), new BigDecimal("20.00"));
+        YtdSnapshot next = start.add(new BigDecimal("10.50"), new BigDecimal("2.25"));
+
+        assertEquals(new BigDecimal("110.50"), next.getEarnings());
+        assertEquals(new BigDecimal("22.25"), next.getTaxesPaid());
+        assertEquals(new BigDecimal("100.00"), start.getEarnings());
+    }
+
+    /**
+     * Contention stress test: many threads pay the same employee at once. No run may be lost,
+     * and every pay stub must hold earnings and taxes taken from the same run.
+     */
+    @Test
+    void runPayroll_ConcurrentSameEmployee() throws Exception {
+        int threads = 8;
+        int runsPerThread = 2_000;
+        HourlyEmployee employee = new HourlyEmployee("Busy", "b1", new BigDecimal("30.00"),
+                new BigDecimal("0"), new BigDecimal("0"), new BigDecimal("0"));
+        // 40 hours at 30.00 is 1200.00 gross, 271.80 taxes and 928.20 net per run
+        BigDecimal net = new BigDecimal("928.20");
+        BigDecimal taxes = new BigDecimal("271.80");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<PayStub>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    List<PayStub> stubs = new ArrayList<>(runsPerThread);
+                    for (int i = 0; i < runsPerThread; i++) {
+                        stubs.add((PayStub) employee.runPayroll(40.0));
+                    }
+                    return stubs;
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<PayStub>> future : futures) {
+                for (PayStub stub : future.get()) {
+                    // the YTD pair must belong to the same run k
+                    long k = Math.round(stub.getYTDEarnings() / net.doubleValue());
+                    assertEquals(net.doubleValue() * k, stub.getYTDEarnings(), 0.001);
+                    assertEquals(taxes.doubleValue() * k, stub.getYTDTaxesPaid(), 0.001);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        BigDecimal runs = BigDecimal.valueOf((long) threads * runsPerThread);
+        YtdSnapshot total = employee.getYTD();
+        assertEquals(0, net.multiply(runs).compareTo(total.getEarnings()));
+        assertEquals(0, taxes.multiply(runs).compareTo(total.getTaxesPaid()));
+    }
+
+    /**
+     * Contention stress test with taxes that depend on the YTD totals: every run must be taxed
+     * on the totals it is added to, so the totals match paying the runs one after another.
+     * The 30.005 rate is not whole cents, so it goes through the {@code BigDecimal} path.
+     */
+    @Test
+    void runPayroll_ConcurrentCumulativeTax() throws Exception {
+        TaxBrackets brackets = TaxBrackets.fromCSV(List.of("federal,0,10", "federal,100000,20",
+                "federal,1000000,30"), TaxBrackets.Method.CUMULATIVE, 24);
+        for (String rate : new String[] {"30.00", "30.005"}) {
+            int threads = 8;
+            int runsPerThread = 500;
+            HourlyEmployee employee = new HourlyEmployee("Busy", "b1", new BigDecimal(rate),
+                    new BigDecimal("0"), new BigDecimal("0"), new BigDecimal("0"));
+            employee.setTaxPolicy(brackets);
+            HourlyEmployee sequential = new HourlyEmployee("Calm", "c1", new BigDecimal(rate),
+                    new BigDecimal("0"), new BigDecimal("0"), new BigDecimal("0"));
+            sequential.setTaxPolicy(brackets);
+            for (int i = 0; i < threads * runsPerThread; i++) {
+                sequential.runPayroll(40.0);
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        PayStubBuffer stubs = new PayStubBuffer(runsPerThread);
+                        for (int i = 0; i < runsPerThread; i++) {
+                            // half the threads fill in a pay stub buffer instead
+                            if (thread % 2 == 0) {
+                                employee.runPayroll(40.0);
+                            } else {
+                                employee.runPayroll(40.0, stubs, i);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            YtdSnapshot expected = sequential.getYTD();
+            YtdSnapshot total = employee.getYTD();
+            assertEquals(0, expected.getEarnings().compareTo(total.getEarnings()), rate);
+            assertEquals(0, expected.getTaxesPaid().compareTo(total.getTaxesPaid()), rate);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package student;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link BatchPayroll} kernel on the Vector API, paying a vector of employees per
+ * iteration.
+ * <p>
+ * Lanes use the same scaled {@code long} steps as {@link FixedPointPayroll}, so the results
+ * are identical. Vector lanes wrap on overflow instead of throwing, so a vector is only
+ * computed this way when its rates, hours and deductions are small enough that nothing can
+ * overflow; any other vector, and the rows left over at the end, go through the scalar loop,
+ * which throws as usual. There is no vector division of {@code long}s, so the half up
+ * divisions are done in {@code double} and then corrected by one with the exact remainder.
+ * </p>
+ * <p>
+ * This class needs {@code --add-modules jdk.incubator.vector}, so it lives in the
+ * {@code vector} source set, the only code compiled with that module. {@link BatchPayroll}
+ * loads it by name, after checking that the module is there.
+ * </p>
+ */
+final class VectorBatchPayroll implements BatchPayroll.Kernel {
+    /** Widest long vectors the CPU handles well. */
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    /** Type bytes are loaded eight at a time and widened to the first lanes of a long vector. */
+    private static final VectorSpecies<Byte> TYPE_BYTES = ByteVector.SPECIES_64;
+    /** Rates below this many cents cannot overflow the gross pay multiply. */
+    private static final long MAX_RATE_CENTS = 1L << 31;
+    /** Scaled hours below this, about 13,000 hours, cannot overflow the gross pay multiply. */
+    private static final long MAX_SCALED_HOURS = 1L << 27;
+    /** Deductions within this many cents either way cannot overflow net pay. */
+    private static final long MAX_PRETAX_CENTS = 1L << 40;
+    /** Gross pay in cents scaled by 100,000, from cents times hundred-thousandths of an hour. */
+    private static final long HOURLY_DIVISOR = 100_000L;
+
+    /** Creates the kernel; {@link BatchPayroll} does this by reflection. */
+    VectorBatchPayroll() {
+    }
+
+    /** @return the number of employees paid per vector. */
+    @Override
+    public int lanes() {
+        return LONGS.length();
+    }
+
+    /**
+     * Works out net pay and taxes for a range of rows, as {@link BatchPayroll#compute} does.
+     *
+     * @param from         first row, inclusive
+     * @param to           last row, exclusive
+     * @param types        employee type of each row, as the {@link EmployeeType} ordinal
+     * @param payRateCents hourly wage or annual salary of each row, in cents
+     * @param pretaxCents  pretax deductions of each row, in cents
+     * @param scaledHours  hours worked per row, in ten-thousandths
+     * @param netMicros    receives net pay per row, in micro-dollars
+     * @param taxMicros    receives taxes per row, in micro-dollars
+     * @return the number of rows paid
+     * @throws ArithmeticException if an amount does not fit a long
+     */
+    @Override
+    public int compute(int from, int to, byte[] types, long[] payRateCents, long[] pretaxCents,
+            long[] scaledHours, long[] netMicros, long[] taxMicros) {
+        int lanes = LONGS.length();
+        int upper = from + LONGS.loopBound(to - from);
+        int paid = 0;
+        int row = from;
+        for (; row < upper && row + TYPE_BYTES.length() <= types.length; row += lanes) {
+            LongVector rate = LongVector.fromArray(LONGS, payRateCents, row);
+            LongVector pretax = LongVector.fromArray(LONGS, pretaxCents, row);
+            LongVector hours = LongVector.fromArray(LONGS, scaledHours, row);
+            VectorMask<Long> safe = rate.compare(VectorOperators.GE, 0)
+                    .and(rate.compare(VectorOperators.LT, MAX_RATE_CENTS))
+                    .and(hours.compare(VectorOperators.LT, MAX_SCALED_HOURS))
+                    .and(pretax.compare(VectorOperators.GT, -MAX_PRETAX_CENTS))
+                    .and(pretax.compare(VectorOperators.LT, MAX_PRETAX_CENTS));
+            if (!safe.allTrue()) {
+                paid += BatchPayroll.computeScalar(row, row + lanes, types, payRateCents,
+                        pretaxCents, scaledHours, netMicros, taxMicros);
+                continue;
+            }
+            VectorMask<Long> hourly = ((LongVector) ByteVector.fromArray(TYPE_BYTES, types, row)
+                    .convertShape(VectorOperators.B2L, LONGS, 0))
+                    .compare(VectorOperators.EQ, BatchPayroll.HOURLY);
+            VectorMask<Long> skipped = hours.compare(VectorOperators.LT, 0);
+
+            // paid hours in hundred-thousandths: 10 per hour, and 5 more per hour past 40
+            LongVector paidHours = hours.mul(10)
+                    .add(hours.sub(FixedPointPayroll.OVERTIME_HOURS).max(0).mul(5));
+            // hourly pay over 100,000 and salary over the pay periods, both rounded half up
+            LongVector divisor = LongVector.broadcast(LONGS, FixedPointPayroll.PAY_PERIODS_PER_YEAR)
+                    .blend(HOURLY_DIVISOR, hourly);
+            LongVector numerator = rate.blend(rate.mul(paidHours), hourly)
+                    .add(divisor.lanewise(VectorOperators.ASHR, 1));
+            LongVector gross = divide(numerator, divisor);
+
+            LongVector taxable = gross.sub(pretax).max(0);
+            LongVector taxes = taxable.mul(FixedPointPayroll.TAX_RATE_BASIS_POINTS);
+            LongVector net = taxable.mul(Money.MICROS_PER_CENT).sub(taxes).max(0);
+            net.blend(-1L, skipped).intoArray(netMicros, row);
+            taxes.blend(-1L, skipped).intoArray(taxMicros, row);
+            paid += lanes - skipped.trueCount();
+        }
+        return paid + BatchPayroll.computeScalar(row, to, types, payRateCents, pretaxCents,
+                scaledHours, netMicros, taxMicros);
+    }
+
+    /**
+     * Divides lane by lane, rounding down. The quotient from {@code double} division is off by
+     * at most one for numerators below 2<sup>62</sup>, which the remainder then corrects.
+     *
+     * @param numerator the numerators, not negative
+     * @param divisor   the divisors, positive
+     * @return the quotients
+     */
+    private static LongVector divide(LongVector numerator, LongVector divisor) {
+        DoubleVector quotient = ((DoubleVector) numerator.convert(VectorOperators.L2D, 0))
+                .div((DoubleVector) divisor.convert(VectorOperators.L2D, 0));
+        LongVector estimate = (LongVector) quotient.convert(VectorOperators.D2L, 0);
+        LongVector remainder = numerator.sub(estimate.mul(divisor));
+        return estimate.sub(1L, remainder.compare(VectorOperators.LT, 0))
+                .add(1L, remainder.compare(VectorOperators.GE, divisor));
+    }
+}